@@ -37,6 +37,15 @@ export default {
 
 // All get API requests
   getNotifications: (userId, token, parameters) => localAxiosInstance.get(`profiles/${userId}/notifications`, {headers: {"authorization":token}, params: parameters}),
+  createNotificationStreamToken: (userId, token) => localAxiosInstance.post(`profiles/${userId}/notifications/stream/token`, {}, {headers: {"authorization":token}}),
+  // EventSource cannot send headers, so the stream is opened with a short lived stream token in the URL instead
+  getNotificationStreamUrl: (userId, streamToken, lastEventId) => {
+    const parameters = new URLSearchParams({token: streamToken});
+    if (lastEventId) {
+      parameters.append("lastEventId", lastEventId);
+    }
+    return `${SERVER_URL}/profiles/${userId}/notifications/stream?${parameters.toString()}`;
+  },
   getActivity: (activityId, token) => localAxiosInstance.get('activities/' + activityId,{headers: {"authorization":token}}),
   getActivitiesList: () => localAxiosInstance.get('activities'),
   getAllActivityMembers: (activityId, token) => localAxiosInstance.get(`/activities/${activityId}/members`, {headers: {"authorization": token}}),
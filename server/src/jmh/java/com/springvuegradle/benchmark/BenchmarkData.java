@@ -0,0 +1,139 @@
+package com.springvuegradle.benchmark;
+
+import com.springvuegradle.enums.NotificationType;
+import com.springvuegradle.model.Activity;
+import com.springvuegradle.model.ActivityType;
+import com.springvuegradle.model.Notification;
+import com.springvuegradle.model.Profile;
+
+import java.lang.reflect.Field;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the synthetic datasets used by the benchmarks. Every dataset is generated from a fixed seed so runs can be
+ * compared with each other.
+ */
+public class BenchmarkData {
+
+    public static final long SEED = 302L;
+
+    public static final String[] ACTIVITY_TYPE_NAMES = {"Tramping", "Hiking", "Running", "Cycling", "Swimming",
+            "Kayaking", "Climbing", "Yoga", "Skiing", "Surfing", "Rowing", "Walking"};
+
+    private BenchmarkData() {
+        throw new IllegalStateException("Utility class should not be instantiated");
+    }
+
+    /**
+     * Creates activities scattered around New Zealand, each with one to three activity types. The types have mask bits
+     * in the order of ACTIVITY_TYPE_NAMES, like the types returned by activityTypes.
+     * @param size the number of activities
+     * @return the activities
+     */
+    public static List<Activity> activities(int size) {
+        Random random = new Random(SEED);
+        List<Activity> activities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String[] types = new String[1 + random.nextInt(3)];
+            for (int j = 0; j < types.length; j++) {
+                types[j] = ACTIVITY_TYPE_NAMES[random.nextInt(ACTIVITY_TYPE_NAMES.length)];
+            }
+            double latitude = -47 + random.nextDouble() * 13;
+            double longitude = 166 + random.nextDouble() * 13;
+            Activity activity = new Activity("Activity " + i, "A synthetic activity", types, true, null, null,
+                    "New Zealand", latitude, longitude);
+            activity.setActivityTypes(new HashSet<>(activityTypes(types)));
+            activities.add(activity);
+        }
+        return activities;
+    }
+
+    /**
+     * Creates activity type objects for the given names, each with its index in ACTIVITY_TYPE_NAMES as its mask bit.
+     * @param names the names of the activity types
+     * @return the activity types
+     */
+    public static List<ActivityType> activityTypes(String... names) {
+        List<String> allNames = Arrays.asList(ACTIVITY_TYPE_NAMES);
+        List<ActivityType> types = new ArrayList<>();
+        for (String name : names) {
+            ActivityType type = new ActivityType(name);
+            if (allNames.contains(name)) {
+                type.setMaskBit(allNames.indexOf(name));
+            }
+            types.add(type);
+        }
+        return types;
+    }
+
+    /**
+     * Creates profiles with a primary email, a couple of activity types and no passports.
+     * @param size the number of profiles
+     * @return the profiles
+     */
+    public static List<Profile> profiles(int size) {
+        Random random = new Random(SEED);
+        List<Profile> profiles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String[] types = {ACTIVITY_TYPE_NAMES[random.nextInt(ACTIVITY_TYPE_NAMES.length)],
+                    ACTIVITY_TYPE_NAMES[random.nextInt(ACTIVITY_TYPE_NAMES.length)]};
+            profiles.add(new Profile((long) i, "First" + i, "Last" + i, null, null, "user" + i + "@example.com",
+                    new String[]{}, "password", null, new GregorianCalendar(1990, Calendar.JANUARY, 1), "female",
+                    random.nextInt(5), new String[]{}, types));
+        }
+        return profiles;
+    }
+
+    /**
+     * Creates a profile that has received the given number of notifications, with timestamps spread over the last
+     * year in no particular order.
+     * @param size the number of notifications
+     * @return the profile
+     */
+    public static Profile profileWithNotifications(int size) {
+        Random random = new Random(SEED);
+        Profile profile = profiles(1).get(0);
+        Activity activity = activities(1).get(0);
+        OffsetDateTime now = OffsetDateTime.now();
+        try {
+            Field timeStamp = Notification.class.getDeclaredField("timeStamp");
+            timeStamp.setAccessible(true);
+            for (int i = 0; i < size; i++) {
+                Notification notification = new Notification("Notification " + i, activity, profile,
+                        NotificationType.ACTIVITY_EDITED);
+                timeStamp.set(notification, now.minusSeconds(random.nextInt(365 * 24 * 60 * 60)));
+                profile.addNotification(notification);
+            }
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Could not set notification timestamps", e);
+        }
+        return profile;
+    }
+
+    /**
+     * Creates activity search strings mixing quoted phrases and single words.
+     * @param size the number of search strings
+     * @return the search strings
+     */
+    public static List<String> keywordStrings(int size) {
+        Random random = new Random(SEED);
+        List<String> keywordStrings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder builder = new StringBuilder();
+            int words = 1 + random.nextInt(6);
+            for (int j = 0; j < words; j++) {
+                String word = ACTIVITY_TYPE_NAMES[random.nextInt(ACTIVITY_TYPE_NAMES.length)];
+                builder.append(random.nextInt(4) == 0 ? "\"" + word + " race\"" : word).append(' ');
+            }
+            keywordStrings.add(builder.toString());
+        }
+        return keywordStrings;
+    }
+}
@@ -0,0 +1,38 @@
+package com.springvuegradle.controller;
+
+import com.springvuegradle.benchmark.BenchmarkData;
+import com.springvuegradle.dto.responses.ProfileSummary;
+import com.springvuegradle.model.Profile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for converting profiles into the summaries returned by the profile search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProfileControllerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private Profile_Controller profileController;
+    private List<Profile> profiles;
+
+    @Setup
+    public void setUp() {
+        profileController = new Profile_Controller(null, null, null, null, null, null, null, null, null, null);
+        profiles = BenchmarkData.profiles(size);
+    }
+
+    @Benchmark
+    public List<ProfileSummary> createSimplifiedProfiles() {
+        return profileController.createSimplifiedProfiles(profiles);
+    }
+}
@@ -0,0 +1,65 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.benchmark.BenchmarkData;
+import com.springvuegradle.model.Activity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the parts of ActivitySearchService that run in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivitySearchServiceBenchmark {
+
+    private static final double CHRISTCHURCH_LATITUDE = -43.5;
+    private static final double CHRISTCHURCH_LONGITUDE = 172.6;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private ActivitySearchService activitySearchService;
+    private List<Activity> activities;
+    private List<String> keywordStrings;
+
+    @Setup
+    public void setUp() {
+        activitySearchService = new ActivitySearchService();
+        activities = BenchmarkData.activities(size);
+        keywordStrings = BenchmarkData.keywordStrings(size);
+    }
+
+    @Benchmark
+    public void splitKeywordString(Blackhole blackhole) {
+        for (String keywordString : keywordStrings) {
+            blackhole.consume(activitySearchService.splitKeywordString(keywordString));
+        }
+    }
+
+    @Benchmark
+    public void distance(Blackhole blackhole) {
+        for (Activity activity : activities) {
+            blackhole.consume(activitySearchService.distance(CHRISTCHURCH_LATITUDE, activity.getLatitude(),
+                    CHRISTCHURCH_LONGITUDE, activity.getLongitude()));
+        }
+    }
+
+    @Benchmark
+    public List<Activity> filterActivitiesByDistance() {
+        return activitySearchService.filterActivitiesByDistance(activities, CHRISTCHURCH_LATITUDE,
+                CHRISTCHURCH_LONGITUDE, 200000);
+    }
+
+    @Benchmark
+    public List<Activity> findNearestTwentyActivities() {
+        return activitySearchService.findNearestActivities(activities, CHRISTCHURCH_LATITUDE,
+                CHRISTCHURCH_LONGITUDE, 200000, 0, 20);
+    }
+}
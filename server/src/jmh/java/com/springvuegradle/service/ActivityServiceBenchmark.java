@@ -0,0 +1,52 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.benchmark.BenchmarkData;
+import com.springvuegradle.model.Activity;
+import com.springvuegradle.model.ActivityType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the parts of ActivityService that run in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"any", "all"})
+    private String searchMethod;
+
+    /**
+     * Whether the required types have mask bits, without them the types of each activity are compared one by one.
+     */
+    @Param({"true", "false"})
+    private boolean masked;
+
+    private ActivityService activityService;
+    private List<Activity> activities;
+    private List<ActivityType> requiredActivityTypes;
+
+    @Setup
+    public void setUp() {
+        activityService = new ActivityService(null, null, null, null, null, null);
+        activities = BenchmarkData.activities(size);
+        requiredActivityTypes = BenchmarkData.activityTypes("Hiking", "Running");
+        if (!masked) {
+            requiredActivityTypes.forEach(type -> type.setMaskBit(null));
+        }
+    }
+
+    @Benchmark
+    public List<Activity> filterActivitiesByActivityTypes() {
+        return activityService.filterActivitiesByActivityTypes(activities, requiredActivityTypes, searchMethod);
+    }
+}
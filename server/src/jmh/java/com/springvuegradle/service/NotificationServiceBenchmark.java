@@ -0,0 +1,42 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.benchmark.BenchmarkData;
+import com.springvuegradle.model.Notification;
+import com.springvuegradle.model.Profile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for getting a page of a user's notifications by sorting every notification the user has received in
+ * memory, which is how NotificationService paged notifications before the database did the ordering. The database
+ * paging is measured end to end by the notifications endpoint in the load test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private Profile profile;
+
+    @Setup
+    public void setUp() {
+        profile = BenchmarkData.profileWithNotifications(size);
+    }
+
+    @Benchmark
+    public List<Notification> getFirstPageBySortingInMemory() {
+        List<Notification> notifications = new ArrayList<>(profile.getNotifications());
+        notifications.sort(Comparator.comparing(Notification::getTimeStamp).reversed());
+        return notifications.subList(0, Math.min(notifications.size(), 10));
+    }
+}
@@ -0,0 +1,81 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.benchmark.BenchmarkData;
+import com.springvuegradle.model.Activity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the batch haversine kernel in DistanceHelper with the per-activity distance calculation it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceHelperBenchmark {
+
+    private static final double CHRISTCHURCH_LATITUDE = -43.5;
+    private static final double CHRISTCHURCH_LONGITUDE = 172.6;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"20000", "200000", "2000000"})
+    private int maximumDistance;
+
+    private List<Activity> activities;
+    private DistanceHelper.Points points;
+    private double[] distances;
+
+    @Setup
+    public void setUp() {
+        activities = BenchmarkData.activities(size);
+        points = DistanceHelper.Points.of(activities);
+        distances = new double[size];
+    }
+
+    /**
+     * The distance calculation ActivitySearchService used before DistanceHelper, kept here as the baseline.
+     */
+    private static double legacyDistance(double lat1, double lat2, double lon1, double lon2) {
+        final int R = 6371;
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        double distance = R * c * 1000;
+        distance = Math.pow(distance, 2);
+        return Math.sqrt(distance);
+    }
+
+    @Benchmark
+    public void legacyPerActivity(Blackhole blackhole) {
+        for (Activity activity : activities) {
+            if (activity.getLatitude() != null) {
+                Double distance = legacyDistance(CHRISTCHURCH_LATITUDE, activity.getLatitude(),
+                        CHRISTCHURCH_LONGITUDE, activity.getLongitude());
+                if (distance < maximumDistance) {
+                    blackhole.consume(distance);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int batchKernel() {
+        return DistanceHelper.distancesWithin(points, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, maximumDistance, distances);
+    }
+
+    @Benchmark
+    public int batchKernelIncludingPoints() {
+        DistanceHelper.Points activityPoints = DistanceHelper.Points.of(activities);
+        return DistanceHelper.distancesWithin(activityPoints, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, maximumDistance, distances);
+    }
+}
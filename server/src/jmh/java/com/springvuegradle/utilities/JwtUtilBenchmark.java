@@ -0,0 +1,61 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.Profile;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the token checks an authenticated request made before verified tokens were cached, a fresh parse and
+ * signature check for each of validateToken, extractId and the two extractPermission calls in
+ * SecurityService.checkEditPermission, with the same calls now and with reading the principal once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtKeyRing keyRing;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        keyRing = JwtKeyRing.inMemory();
+        jwtUtil = new JwtUtil(keyRing);
+        Profile profile = new Profile();
+        profile.setId(42L);
+        token = jwtUtil.generateToken(profile);
+    }
+
+    private Claims parseUncached() {
+        return Jwts.parserBuilder().setSigningKey(keyRing.getSigningKey().getValue()).build().parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public void parsePerCall(Blackhole blackhole) {
+        blackhole.consume(parseUncached());
+        blackhole.consume(Long.parseLong(parseUncached().getSubject()));
+        blackhole.consume(parseUncached().get(JwtUtil.PERMISSION_KEY));
+        blackhole.consume(parseUncached().get(JwtUtil.PERMISSION_KEY));
+    }
+
+    @Benchmark
+    public void cachedPerCall(Blackhole blackhole) {
+        blackhole.consume(jwtUtil.validateToken(token));
+        blackhole.consume(jwtUtil.extractId(token));
+        blackhole.consume(jwtUtil.extractPermission(token));
+        blackhole.consume(jwtUtil.extractPermission(token));
+    }
+
+    @Benchmark
+    public JwtPrincipal principalOnce() {
+        return jwtUtil.getPrincipal(token);
+    }
+}
@@ -1,7 +1,12 @@
 package com.springvuegradle;
 
 import com.springvuegradle.repositories.*;
+import com.springvuegradle.service.StartupService;
+import com.springvuegradle.utilities.ActivityRoleCountHelper;
+import com.springvuegradle.utilities.ActivityTypeMaskHelper;
 import com.springvuegradle.utilities.InitialDataHelper;
+import com.springvuegradle.utilities.LocationIndexHelper;
+import com.springvuegradle.utilities.NotificationInboxHelper;
 import com.springvuegradle.utilities.ValidationHelper;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -9,7 +14,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.core.Ordered;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -17,6 +24,7 @@ import org.springframework.web.filter.CorsFilter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 @SpringBootApplication
 @ComponentScan({"com.springvuegradle.controller", "com.springvuegradle.utilities", "com.springvuegradle.service"})
@@ -26,18 +34,38 @@ public class Application {
         SpringApplication.run(Application.class, args);
     }
 
+    /**
+     * Seeds and backfills the database through the StartupService. Seeding the activity types, the default admin and
+     * the passport countries, counting the roles of activities saved before the role counters existed, copying
+     * notifications from the old recipients table into the inboxes and filling in the location cells distance searches
+     * rely on, is needed to serve requests, so the server only reports itself ready once those are done. The activity
+     * type masks wait on the activity types.
+     */
     @Bean
     CommandLineRunner init(EmailRepository eRepo, ProfileRepository pRepo,
                            PassportCountryRepository pcRepo, ActivityTypeRepository atRepo,
-                           ActivityRepository aRepo, ActivityMembershipRepository amRepo) {
+                           ActivityRepository aRepo, ActivityMembershipRepository amRepo, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager, StartupService startupService) {
         return args -> {
-            System.out.println("-----Updating Activity Type and Profile Repositories-----");
-            String password = InitialDataHelper.init(atRepo, pRepo, eRepo);
-            if (password != null) {
-                System.out.println("Default admin created with password: " + password);
+            CompletableFuture<Void> activityTypes = startupService.submit("activity types and default admin", true, () -> {
+                String password = InitialDataHelper.init(atRepo, pRepo, eRepo);
+                if (password != null) {
+                    System.out.println("Default admin created with password: " + password);
+                }
+            });
+            startupService.submitAfter(activityTypes, "activity type masks", true, () ->
+                    ActivityTypeMaskHelper.updateActivityTypeMasks(atRepo, jdbcTemplate));
+            startupService.submit("activity role counts", true, () ->
+                    ActivityRoleCountHelper.fillMissingRoleCounts(jdbcTemplate, transactionManager));
+            startupService.submit("passport countries", true, () ->
+                    ValidationHelper.updatePassportCountryRepository(pcRepo, transactionManager));
+            startupService.submit("notification inboxes", true, () ->
+                    NotificationInboxHelper.migrateProfileNotifications(jdbcTemplate, transactionManager));
+            startupService.submit("activity location index", true, () ->
+                    LocationIndexHelper.updateActivityLocationCells(jdbcTemplate));
+            if (!startupService.isFastStart()) {
+                startupService.awaitAll();
             }
-            System.out.println("-----Updating Passport Country Repository-----");
-            ValidationHelper.updatePassportCountryRepository(pcRepo, pRepo);
             System.out.println("-----Program should be running now-----");
         };
     }
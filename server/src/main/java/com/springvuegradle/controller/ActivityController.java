@@ -295,6 +295,24 @@ public class ActivityController {
         }
     }
 
+    /**
+     * Re-derives the role counts of every activity from their memberships. Only available to admins, to repair the
+     * counts if they are found to be wrong.
+     *
+     * @param token the authentication token of the user
+     * @return the number of activities with at least one organiser, participant or follower
+     */
+    @PostMapping("/activities/rolecount/rebuild")
+    public ResponseEntity<Integer> rebuildActivityRoleCounts(@RequestHeader("authorization") String token) {
+        if (Boolean.FALSE.equals(jwtUtil.validateToken(token))) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        if (jwtUtil.extractPermission(token) > AuthLevel.ADMIN.getLevel()) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return new ResponseEntity<>(activityService.rebuildRoleCounts(), HttpStatus.OK);
+    }
+
 
     /**
      * Allows the changing of a profiles role within an activity memebership
@@ -39,7 +39,10 @@ public class ActivitySearchController {
      * @param distance the distance in metres the user wishes to see activities within
      * @param latitude the latitude of the location of the search center
      * @param longitude the longitude of the location of the search center
-     * @return a list of activities that are within a specific range of a location and visible to the user
+     * @param count the maximum number of activities to return, or every activity if not given
+     * @param startIndex the number of nearer activities to skip, or 0 if not given
+     * @return a list of activities that are within a specific range of a location and visible to the user, nearest
+     * first
      */
     @GetMapping("activities/distance")
     public ResponseEntity<List<ActivityLocationResponse>> getActivitiesInRange(@RequestParam Integer distance,
@@ -47,14 +50,18 @@ public class ActivitySearchController {
                                                                                @RequestParam Double longitude,
                                                                                @RequestParam(required = false) String[] activityTypes,
                                                                                @RequestParam(required = false) String searchMethod,
+                                                                               @RequestParam(required = false) Integer count,
+                                                                               @RequestParam(required = false, defaultValue = "0") int startIndex,
                                                                                @RequestHeader("authorization") String token) {
         if (!jwtUtil.validateToken(token)) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        } else if ((count != null && count <= 0) || startIndex < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         boolean isAdmin = jwtUtil.extractPermission(token) < 2;
         Long profileId = jwtUtil.extractId(token);
         try {
-            List<ActivityLocationResponse> activities = activitySearchService.getActivitiesByRangeAndActivityTypes(profileId, isAdmin, distance, latitude, longitude, activityTypes, searchMethod);
+            List<ActivityLocationResponse> activities = activitySearchService.getActivitiesByRangeAndActivityTypes(profileId, isAdmin, distance, latitude, longitude, activityTypes, searchMethod, startIndex, count);
             return new ResponseEntity<>(activities, HttpStatus.OK);
         } catch(IllegalArgumentException e){
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
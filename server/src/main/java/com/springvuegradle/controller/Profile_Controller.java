@@ -2,6 +2,8 @@ package com.springvuegradle.controller;
 
 import com.springvuegradle.dto.requests.*;
 import com.springvuegradle.dto.responses.ActivityTypesResponse;
+import com.springvuegradle.dto.responses.NotificationFanOutMetrics;
+import com.springvuegradle.dto.responses.NotificationStreamTokenResponse;
 import com.springvuegradle.dto.responses.NotificationsResponse;
 import com.springvuegradle.dto.responses.ProfileSearchResponse;
 import com.springvuegradle.dto.responses.ProfileSummary;
@@ -10,17 +12,21 @@ import com.springvuegradle.enums.AuthenticationErrorMessage;
 import com.springvuegradle.enums.ProfileErrorMessage;
 import com.springvuegradle.model.*;
 import com.springvuegradle.repositories.*;
+import com.springvuegradle.service.ActivityTypeRegistry;
 import com.springvuegradle.service.NotificationService;
 import com.springvuegradle.service.ProfileService;
 import com.springvuegradle.service.SecurityService;
 import com.springvuegradle.utilities.FieldValidationHelper;
+import com.springvuegradle.utilities.JwtPrincipal;
 import com.springvuegradle.utilities.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.xml.bind.DatatypeConverter;
 import java.nio.charset.StandardCharsets;
@@ -67,6 +73,12 @@ public class Profile_Controller {
     @Autowired
     private ActivityTypeRepository aRepo;
 
+    /**
+     * Resolves activity type names without querying the ActivityType table.
+     */
+    @Autowired
+    private ActivityTypeRegistry activityTypeRegistry;
+
     @Autowired
     private ProfileService profileService;
 
@@ -97,6 +109,7 @@ public class Profile_Controller {
         eRepo = emailRepository;
         activityRepo = activityRepository;
         aRepo = activityTypeRepository;
+        activityTypeRegistry = new ActivityTypeRegistry(activityTypeRepository);
         this.profileLocationRepository = profileLocationRepository;
         this.jwtUtil = jwtUtil;
         this.securityService = securityService;
@@ -144,7 +157,7 @@ public class Profile_Controller {
      */
     @PostMapping("/profiles")
     public ResponseEntity<String> createProfile (@RequestBody Profile newProfile) {
-        String error = FieldValidationHelper.verifyProfile(newProfile, false, pcRepo, aRepo, eRepo);
+        String error = FieldValidationHelper.verifyProfile(newProfile, false, pcRepo, activityTypeRegistry, eRepo);
         if (error.equals("")) {
             String hashedPW = hashPassword(newProfile.getPassword());
             if (!hashedPW.equals("Hash Failed")) {
@@ -159,12 +172,7 @@ public class Profile_Controller {
             }
             newProfile.setPassports(updated);
 
-            Set<ActivityType> updatedActivityType = new HashSet<>();
-            for(ActivityType activityType : newProfile.getActivityTypeObjects()){
-                List<ActivityType> resultActivityTypes = aRepo.findByActivityTypeName(activityType.getActivityTypeName());
-                updatedActivityType.add(resultActivityTypes.get(0));
-            }
-            newProfile.setActivityTypes(updatedActivityType);
+            newProfile.setActivityTypes(activityTypeRegistry.resolve(newProfile.getActivityTypeObjects()));
 
 
 
@@ -354,6 +362,8 @@ public class Profile_Controller {
      * @param token the users validation token
      * @param count an integer that determines the amount of notifications to be returned from the database
      * @param startIndex an integer for the starting index of notifications to search/obtain from
+     * @param before the cursor returned with the previous page, in the form timestamp,id. Takes the place of
+     *               startIndex when infinitely scrolling, as it does not get slower deeper into the notifications
      * @param id the users profile ID
      * @return a response entity containing a NotificationsResponse object or an error message
      */
@@ -361,7 +371,8 @@ public class Profile_Controller {
     public @ResponseBody ResponseEntity<NotificationsResponse> getNotifications(@RequestHeader("authorization") String token,
                                                                                 @PathVariable Long id,
                                                                                 @RequestParam("count") int count,
-                                                                                @RequestParam("startIndex") int startIndex)
+                                                                                @RequestParam(value = "startIndex", defaultValue = "0") int startIndex,
+                                                                                @RequestParam(value = "before", required = false) String before)
     {
         if (token == null || token.isBlank()) {
             return new ResponseEntity<>(new NotificationsResponse(AuthenticationErrorMessage.AUTHENTICATION_REQUIRED.getMessage()),
@@ -375,14 +386,146 @@ public class Profile_Controller {
             return new ResponseEntity<>(new NotificationsResponse(ProfileErrorMessage.INVALID_SEARCH_COUNT.getMessage()),
                     HttpStatus.BAD_REQUEST);
         }
+        if (startIndex < 0) {
+            return new ResponseEntity<>(new NotificationsResponse(ProfileErrorMessage.INVALID_START_INDEX.getMessage()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (before != null && !NotificationService.isValidCursor(before)) {
+            return new ResponseEntity<>(new NotificationsResponse(ProfileErrorMessage.INVALID_NOTIFICATION_CURSOR.getMessage()),
+                    HttpStatus.BAD_REQUEST);
+        }
         try {
-            List<Notification> notificationsList = notificationService.getSortedNotifications(id, count, startIndex);
-            return new ResponseEntity<>(new NotificationsResponse(notificationsList), HttpStatus.OK);
+            List<Notification> notificationsList = before == null
+                    ? notificationService.getSortedNotifications(id, count, startIndex)
+                    : notificationService.getSortedNotificationsBefore(id, count, before);
+            String next = null;
+            if (notificationsList != null && notificationsList.size() == count) {
+                next = NotificationService.getCursor(notificationsList.get(count - 1));
+            }
+            return new ResponseEntity<>(new NotificationsResponse(notificationsList, next), HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(new NotificationsResponse(e.getMessage()), HttpStatus.NOT_FOUND);
         }
     }
 
+    /**
+     * Issues a short lived token that opens the user's notification stream. A browser's EventSource cannot send the
+     * authorization header, so the client fetches one of these and puts it in the stream's URL instead.
+     *
+     * @param principal the user the request's token was issued to, set by JwtAuthenticationFilter if the token is valid
+     * @param id the users profile ID
+     * @return a response entity containing the stream token and how long it is valid for
+     */
+    @PostMapping("/profiles/{id}/notifications/stream/token")
+    public @ResponseBody ResponseEntity<NotificationStreamTokenResponse> createNotificationStreamToken(
+            @RequestAttribute(name = JwtPrincipal.REQUEST_ATTRIBUTE, required = false) JwtPrincipal principal,
+            @PathVariable Long id) {
+        if (principal == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        if (principal.getAuthLevel() > AuthLevel.ADMIN.getLevel() && !principal.getId().equals(id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return new ResponseEntity<>(new NotificationStreamTokenResponse(jwtUtil.generateStreamToken(principal),
+                JwtUtil.STREAM_TOKEN_LIFETIME_MILLIS / 1000), HttpStatus.OK);
+    }
+
+    /**
+     * Opens a server-sent event stream the user's new notifications are pushed to as they are created. Each event's
+     * id is the notification's cursor, so a client reconnecting with the Last-Event-ID header is first sent the
+     * notifications it missed, or a reset event if it missed too many and should reload its notifications.
+     * Browsers open the stream with an EventSource, which cannot set headers, so it can also be opened with a stream
+     * token from createNotificationStreamToken in the token parameter. The browser only sends Last-Event-ID itself
+     * when it reconnects on its own, so a client opening a new stream after its token expired passes the id of the
+     * last event it received in the lastEventId parameter.
+     *
+     * @param token the users validation token, if the client can send the authorization header
+     * @param streamToken a stream token, for clients that cannot send the authorization header
+     * @param id the users profile ID
+     * @param lastEventId the id of the last event the client received, sent by the browser when it reconnects
+     * @param lastEventIdParameter the id of the last event the client received, when opening a new stream
+     * @return a response entity containing the event stream
+     */
+    @GetMapping(value = "/profiles/{id}/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(@RequestHeader(value = "authorization", required = false) String token,
+                                                          @RequestParam(value = "token", required = false) String streamToken,
+                                                          @PathVariable Long id,
+                                                          @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                          @RequestParam(value = "lastEventId", required = false) String lastEventIdParameter) {
+        if (!securityService.checkEditPermission(token, id) && !securityService.checkStreamPermission(streamToken, id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        String cursor = lastEventId != null ? lastEventId : lastEventIdParameter;
+        if (cursor != null && !NotificationService.isValidCursor(cursor)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(notificationService.streamNotifications(id, cursor), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Gets the number of notifications in the user's inbox they have not read yet.
+     *
+     * @param token the users validation token
+     * @param id the users profile ID
+     * @return a response entity containing the unread count
+     */
+    @GetMapping("/profiles/{id}/notifications/unread")
+    public @ResponseBody ResponseEntity<Long> getUnreadNotificationCount(@RequestHeader("authorization") String token,
+                                                                         @PathVariable Long id) {
+        if (!securityService.checkEditPermission(token, id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        try {
+            return new ResponseEntity<>(notificationService.getUnreadCount(id), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Marks notifications in the user's inbox as read, or every notification if the request has no ids.
+     *
+     * @param request the ids of the notifications the user has read
+     * @param token the users validation token
+     * @param id the users profile ID
+     * @return a response entity containing the number of notifications marked as read
+     */
+    @PutMapping("/profiles/{id}/notifications/read")
+    public @ResponseBody ResponseEntity<Integer> markNotificationsRead(@RequestBody NotificationReadRequest request,
+                                                                       @RequestHeader("authorization") String token,
+                                                                       @PathVariable Long id) {
+        if (!securityService.checkEditPermission(token, id)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        try {
+            return new ResponseEntity<>(notificationService.markRead(id, request.getNotificationIds()), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+
+    /**
+     * Gets the queue depth, throughput and lag of notification delivery. Only available to admins.
+     *
+     * @param principal the user the request's token was issued to, set by JwtAuthenticationFilter if the token is valid
+     * @return a response entity containing the notification delivery metrics
+     */
+    @GetMapping("/notifications/metrics")
+    public @ResponseBody ResponseEntity<NotificationFanOutMetrics> getNotificationMetrics(
+            @RequestAttribute(name = JwtPrincipal.REQUEST_ATTRIBUTE, required = false) JwtPrincipal principal) {
+        if (principal == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        if (principal.getAuthLevel() > AuthLevel.ADMIN.getLevel()) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return new ResponseEntity<>(notificationService.getFanOutMetrics(), HttpStatus.OK);
+    }
 
     /**
      * Called by the endpoint defined above
@@ -445,12 +588,12 @@ public class Profile_Controller {
     }
 
     /**
-     * Queries the Database to find all the activityTypes.
+     * Returns all the activityTypes, read from the activity type registry rather than the database.
      * @return a response with all the activityTypes in the database.
      */
     @GetMapping("/activityTypes")
     public ResponseEntity<ActivityTypesResponse> getActivityTypesList() {
-        List<String> allActivityTypes = aRepo.findAllActivityTypeNames();
+        List<String> allActivityTypes = new ArrayList<>(activityTypeRegistry.getNames());
         ActivityTypesResponse activityTypesResponse = new ActivityTypesResponse(allActivityTypes);
         return new ResponseEntity<>(activityTypesResponse, HttpStatus.OK);
     }
@@ -572,7 +715,7 @@ public class Profile_Controller {
      */
     protected ResponseEntity<String> updateProfile(Profile editedProfile, Long id){
         editedProfile.setPassword("temporary");
-        String verificationMsg = FieldValidationHelper.verifyProfile(editedProfile, true, pcRepo, aRepo, eRepo);
+        String verificationMsg = FieldValidationHelper.verifyProfile(editedProfile, true, pcRepo, activityTypeRegistry, eRepo);
         if (!verificationMsg.equals("")) {
             return new ResponseEntity<>(verificationMsg, HttpStatus.BAD_REQUEST);
         }
@@ -590,12 +733,7 @@ public class Profile_Controller {
             dbProfile.setPassports(updatedCountries);
 
             // verifying activityTypes
-            Set<ActivityType> updatedActivityTypes = new HashSet<>();
-            for (ActivityType activityType : editedProfile.getActivityTypeObjects()) {
-                List<ActivityType> resultActivityTypes = aRepo.findByActivityTypeName(activityType.getActivityTypeName());
-                updatedActivityTypes.add(resultActivityTypes.get(0));
-            }
-            dbProfile.setActivityTypes(updatedActivityTypes);
+            dbProfile.setActivityTypes(activityTypeRegistry.resolve(editedProfile.getActivityTypeObjects()));
 
             // verifying emails, reuses the editEmails method
             EmailUpdateRequest mockRequest = new EmailUpdateRequest(new ArrayList<>(editedProfile.getAdditional_email()), editedProfile.getPrimary_email(), id.intValue());
@@ -632,17 +770,14 @@ public class Profile_Controller {
             Profile profile = dbResults.get();
 
 
-            HashSet<ActivityType> newActivityTypes = new HashSet<>();
+            //Check if the activityTypes are of a valid type
             for (String activityTypeString : newActivityTypeStrings) {
-
-                //Check if the activityType is of a valid type
-                if (!aRepo.existsByActivityTypeName(activityTypeString)) {
+                if (!activityTypeRegistry.exists(activityTypeString)) {
                     return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
                 }
-                newActivityTypes.add(aRepo.findByActivityTypeName(activityTypeString).get(0));
             }
 
-            profile.setActivityTypes(newActivityTypes);
+            profile.setActivityTypes(new HashSet<>(activityTypeRegistry.getActivityTypes(newActivityTypeStrings)));
             repo.save(profile);
             return new ResponseEntity<>(HttpStatus.OK);
         } else {
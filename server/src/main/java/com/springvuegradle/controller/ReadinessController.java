@@ -0,0 +1,36 @@
+package com.springvuegradle.controller;
+
+import com.springvuegradle.dto.responses.ReadinessResponse;
+import com.springvuegradle.service.StartupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Lets a load balancer know when the server can be put back into rotation after starting.
+ */
+@RestController
+public class ReadinessController {
+
+    private final StartupService startupService;
+
+    @Autowired
+    public ReadinessController(StartupService startupService) {
+        this.startupService = startupService;
+    }
+
+    /**
+     * Reports whether the server has finished the startup tasks it needs to serve requests, and which tasks are still
+     * pending. Does not need a token so it can be polled by the load balancer.
+     *
+     * @return a response entity with the progress of the startup tasks, OK once ready and SERVICE_UNAVAILABLE before
+     */
+    @GetMapping("/ready")
+    public @ResponseBody ResponseEntity<ReadinessResponse> getReadiness() {
+        ReadinessResponse readiness = startupService.getReadiness();
+        return new ResponseEntity<>(readiness, readiness.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
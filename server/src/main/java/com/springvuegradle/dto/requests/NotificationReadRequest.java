@@ -0,0 +1,28 @@
+package com.springvuegradle.dto.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Model Class for incoming requests to mark notifications as read. Every notification is marked when no ids are given.
+ */
+public class NotificationReadRequest {
+    private List<Long> notificationIds;
+
+    /**
+     * Constructor for a notification read request with parameter for JSON parsing with spring requestmapping methods.
+     * @param notificationIds the ids of the notifications the user has read
+     */
+    public NotificationReadRequest(@JsonProperty("notificationIds") List<Long> notificationIds) {
+        this.notificationIds = notificationIds;
+    }
+
+    public List<Long> getNotificationIds() {
+        return notificationIds;
+    }
+
+    public void setNotificationIds(List<Long> notificationIds) {
+        this.notificationIds = notificationIds;
+    }
+}
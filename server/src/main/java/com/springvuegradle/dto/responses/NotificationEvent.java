@@ -0,0 +1,29 @@
+package com.springvuegradle.dto.responses;
+
+import com.springvuegradle.enums.NotificationType;
+import com.springvuegradle.model.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A notification pushed to a connected recipient, with the same fields as the notifications in the feed. Copied from
+ * the notification when it is published so it can be sent from another thread.
+ */
+@Data
+@AllArgsConstructor
+public class NotificationEvent {
+    private Long id;
+    private String message;
+    private OffsetDateTime timeStamp;
+    private Long activityId;
+    private Long editorId;
+    private NotificationType notificationType;
+    private int occurrences;
+
+    public NotificationEvent(Notification notification) {
+        this(notification.getId(), notification.getMessage(), notification.getTimeStamp(), notification.getActivityId(),
+                notification.getEditorId(), notification.getNotificationType(), notification.getOccurrences());
+    }
+}
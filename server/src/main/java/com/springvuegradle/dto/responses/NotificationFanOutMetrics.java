@@ -0,0 +1,26 @@
+package com.springvuegradle.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Snapshot of the notification dispatcher's queue and throughput, with lag measured from a notification being queued
+ * to its recipients being inserted.
+ */
+@Data
+@AllArgsConstructor
+public class NotificationFanOutMetrics {
+    private boolean asyncEnabled;
+    private int queueDepth;
+    private int queueCapacity;
+    private int workers;
+    private long tasksQueued;
+    private long tasksCompleted;
+    private long tasksRunByCaller;
+    private long tasksFailed;
+    private long recipientsInserted;
+    private long lastLagMillis;
+    private long maxLagMillis;
+    private long averageLagMillis;
+    private long oldestQueuedMillis;
+}
@@ -0,0 +1,15 @@
+package com.springvuegradle.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A short lived token the notification stream can be opened with, for browsers whose EventSource cannot send the
+ * authorization header.
+ */
+@Data
+@AllArgsConstructor
+public class NotificationStreamTokenResponse {
+    private String token;
+    private long expiresInSeconds;
+}
@@ -9,6 +9,7 @@ public class NotificationsResponse {
 
     String message = null;
     List<Notification> notifications = null;
+    String next = null;
 
     /**
      * Creates a NotificationsResponse object which contains a list of notifications
@@ -19,6 +20,17 @@ public class NotificationsResponse {
         this.notifications = notifications;
     }
 
+    /**
+     * Creates a NotificationsResponse object which contains a page of notifications and the cursor of the next page
+     * @param notifications the list of notifications
+     * @param next the cursor to request the next page with, or null if this is the last page
+     */
+    public NotificationsResponse(List<Notification> notifications, String next) {
+        this.message = null;
+        this.notifications = notifications;
+        this.next = next;
+    }
+
     /**
      * Creates a NotificationsResponse object which contains an error message which is to be sent
      * to the front end
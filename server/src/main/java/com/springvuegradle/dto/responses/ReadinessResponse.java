@@ -0,0 +1,18 @@
+package com.springvuegradle.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Whether the server is ready to serve requests, which is once all of its critical startup tasks are done, along with
+ * the names of the tasks still to finish and the progress of every task.
+ */
+@Data
+@AllArgsConstructor
+public class ReadinessResponse {
+    private boolean ready;
+    private List<String> pending;
+    private List<StartupTaskStatus> tasks;
+}
@@ -0,0 +1,19 @@
+package com.springvuegradle.dto.responses;
+
+import com.springvuegradle.enums.StartupTaskState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The progress of one of the tasks run when the server starts. The duration is how long the task has been running so
+ * far, or how long it took once it has finished.
+ */
+@Data
+@AllArgsConstructor
+public class StartupTaskStatus {
+    private String name;
+    private boolean critical;
+    private StartupTaskState state;
+    private long durationMillis;
+    private String error;
+}
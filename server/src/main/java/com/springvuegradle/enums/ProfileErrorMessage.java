@@ -4,7 +4,9 @@ public enum ProfileErrorMessage {
     INVALID_SEARCH_COUNT("Count must be a positive integer"),
     INVALID_AUTH_LEVEL("Auth level must be between 1 and 5"),
     PROFILE_NOT_FOUND("No profile with that ID exists"),
-    INVALID_ROLE("Role type is invalid");
+    INVALID_ROLE("Role type is invalid"),
+    INVALID_NOTIFICATION_CURSOR("Before must be a notification timestamp and id separated by a comma"),
+    INVALID_START_INDEX("Start index must not be negative");
 
     private final String message;
     ProfileErrorMessage(String message) {
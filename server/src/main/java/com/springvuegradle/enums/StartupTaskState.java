@@ -0,0 +1,8 @@
+package com.springvuegradle.enums;
+
+/**
+ * Enum for the progress of a task run when the server starts, in the order a task moves through them
+ */
+public enum StartupTaskState {
+    PENDING, RUNNING, DONE, FAILED
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.springvuegradle.utilities.FormatHelper;
+import com.springvuegradle.utilities.LocationIndexHelper;
 
 import javax.persistence.*;
 import javax.validation.constraints.Max;
@@ -13,6 +14,10 @@ import java.time.OffsetDateTime;
 import java.util.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "activity_location_cell_index", columnList = "location_cell"),
+        @Index(name = "activity_privacy_level_index", columnList = "privacyLevel, id")
+})
 public class Activity {
     /**
      * Holds the automatically generated activity id assigned when the object is saved to the database.
@@ -47,6 +52,12 @@ public class Activity {
     @Column
     private Double longitude;
 
+    /**
+     * Holds the spatial index grid cell the activity's coordinates fall into (see LocationIndexHelper). Kept up to
+     * date whenever the activity is saved.
+     */
+    @Column(name = "location_cell")
+    private Long locationCell;
 
     /**
      * Holds the privacy level of the activity.
@@ -68,6 +79,28 @@ public class Activity {
             joinColumns = @JoinColumn(name = "activity_id", referencedColumnName = "id"))
     private Set<ActivityType> activityTypes;
 
+    /**
+     * The mask bits of the activity's activity types, kept up to date whenever they change so activities can be
+     * matched on activity types without joining them.
+     */
+    @Column(name = "activity_type_mask")
+    private long activityTypeMask;
+
+    /**
+     * The number of organisers, participants and followers of the activity, so they can be read without counting the
+     * memberships. Only changed by the bulk updates in ActivityRepository, which ActivityService runs in the same
+     * transaction as the memberships change, so saving a loaded activity never writes back a stale count. Null for
+     * activities saved before the counters existed until ActivityRoleCountHelper has counted them.
+     */
+    @Column(name = "organiser_count", updatable = false)
+    private Long organiserCount = 0L;
+
+    @Column(name = "participant_count", updatable = false)
+    private Long participantCount = 0L;
+
+    @Column(name = "follower_count", updatable = false)
+    private Long followerCount = 0L;
+
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "activity")
     private Set<ActivityMembership> members;
@@ -140,6 +173,7 @@ public class Activity {
 
         this.activityTypes.removeAll(removals);
         this.activityTypes.addAll(activity.activityTypes);
+        updateActivityTypeMask();
     }
 
     @Override
@@ -240,11 +274,15 @@ public class Activity {
     }
 
     public boolean addActivityType(ActivityType activityType) {
-        return this.activityTypes.add(activityType);
+        boolean added = this.activityTypes.add(activityType);
+        updateActivityTypeMask();
+        return added;
     }
 
     public boolean removeActivityType(ActivityType type) {
-        return this.activityTypes.remove(type);
+        boolean removed = this.activityTypes.remove(type);
+        updateActivityTypeMask();
+        return removed;
     }
 
     public boolean addMember(ActivityMembership membership) {
@@ -257,6 +295,34 @@ public class Activity {
 
     public void setActivityTypes(Set<ActivityType> updatedActivityType) {
         this.activityTypes = updatedActivityType;
+        updateActivityTypeMask();
+    }
+
+    @JsonIgnore
+    public long getActivityTypeMask() {
+        return activityTypeMask;
+    }
+
+    /**
+     * Recalculates the activity type mask from the activity's current activity types.
+     */
+    public void updateActivityTypeMask() {
+        this.activityTypeMask = ActivityType.maskOf(activityTypes);
+    }
+
+    @JsonIgnore
+    public Long getOrganiserCount() {
+        return organiserCount;
+    }
+
+    @JsonIgnore
+    public Long getParticipantCount() {
+        return participantCount;
+    }
+
+    @JsonIgnore
+    public Long getFollowerCount() {
+        return followerCount;
     }
 
     public Integer getPrivacyLevel() { return privacyLevel; }
@@ -336,4 +402,19 @@ public class Activity {
     public Double getLatitude() {
         return latitude;
     }
+
+    @JsonIgnore
+    public Long getLocationCell() {
+        return locationCell;
+    }
+
+    /**
+     * Recalculates the location cell from the activity's current coordinates. Called automatically before the
+     * activity is inserted or updated.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateLocationCell() {
+        this.locationCell = LocationIndexHelper.cellOf(latitude, longitude);
+    }
 }
@@ -5,6 +5,7 @@ import java.io.Serializable;
 import java.util.Objects;
 
 @Entity
+@Table(indexes = @Index(name = "activity_membership_profile_role_index", columnList = "profile_fk, role"))
 public class ActivityMembership {
     public enum Role {
         CREATOR, ORGANISER, PARTICIPANT, FOLLOWER
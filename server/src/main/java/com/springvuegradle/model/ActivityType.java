@@ -4,16 +4,31 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Entity
 public class ActivityType {
 
+    /**
+     * Counts the activity types saved, changed or deleted, so copies of the activity types kept in memory can tell
+     * when they are out of date.
+     */
+    private static final AtomicLong changeCount = new AtomicLong();
+
+    /**
+     * Activity type masks are longs, the sign bit is left unused so masks are never negative.
+     */
+    public static final int MAX_MASK_BITS = 63;
+
     /**
      * Holds the automatically generated activityType id assigned when the object is saved to the database.
      */
@@ -28,6 +43,13 @@ public class ActivityType {
     @NotNull
     private String activityTypeName;
 
+    /**
+     * The bit standing for this type in the activity type masks of profiles and activities. Assigned when the type
+     * is first saved and never changed, so the masks stay valid when other types are added or deleted.
+     */
+    @Column(name = "mask_bit", unique = true)
+    private Integer maskBit;
+
     /**
      * Each activityType object can have multiple profiles with the activityTypes being referred.
      */
@@ -48,6 +70,27 @@ public class ActivityType {
         this.activityTypeName = activityTypeName;
     }
 
+    @PostPersist
+    @PostUpdate
+    @PreRemove
+    @PostRemove
+    private void recordChange() {
+        changeCount.incrementAndGet();
+        // anything read before the transaction ends may include changes that are rolled back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    changeCount.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public static long getChangeCount() {
+        return changeCount.get();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -61,6 +104,54 @@ public class ActivityType {
         return Objects.hash(activityTypeName);
     }
 
+    @JsonIgnore
+    public long getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public Integer getMaskBit() {
+        return maskBit;
+    }
+
+    public void setMaskBit(Integer maskBit) {
+        this.maskBit = maskBit;
+    }
+
+    /**
+     * Checks whether this type has a bit in the activity type masks.
+     * @return true if the type has been given a bit that fits in a mask
+     */
+    @JsonIgnore
+    public boolean hasMaskBit() {
+        return maskBit != null && maskBit < MAX_MASK_BITS;
+    }
+
+    /**
+     * Combines the bits of the given activity types into a mask, leaving out types without a bit.
+     * @param activityTypes the activity types, may be null
+     * @return the mask with a bit set for each type
+     */
+    public static long maskOf(Collection<ActivityType> activityTypes) {
+        long mask = 0;
+        if (activityTypes != null) {
+            for (ActivityType activityType : activityTypes) {
+                if (activityType.hasMaskBit()) {
+                    mask |= 1L << activityType.maskBit;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Checks whether every one of the given activity types can be matched with a mask.
+     * @param activityTypes the activity types
+     * @return true if all the types have a bit
+     */
+    public static boolean allHaveMaskBits(Collection<ActivityType> activityTypes) {
+        return activityTypes.stream().allMatch(ActivityType::hasMaskBit);
+    }
 
     public String getActivityTypeName() {
         return activityTypeName;
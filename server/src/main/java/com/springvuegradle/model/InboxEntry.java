@@ -0,0 +1,125 @@
+package com.springvuegradle.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * A notification in the inbox of one of its recipients. Each recipient has their own row so the newest first feed,
+ * the unread count and marking notifications as read only ever touch the rows of one recipient, found through the
+ * (recipient_id, created_at, notification_id) index.
+ */
+@Entity
+@Table(name = "notification_inbox",
+        indexes = {
+                @Index(name = "notification_inbox_feed_index", columnList = "recipient_id, created_at, notification_id"),
+                @Index(name = "notification_inbox_unread_index", columnList = "recipient_id, is_read"),
+                @Index(name = "notification_inbox_notification_index", columnList = "notification_id")
+        })
+public class InboxEntry {
+
+    /**
+     * The key of an inbox entry, a recipient can only have a notification in their inbox once.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "recipient_id")
+        private Long recipientId;
+
+        @Column(name = "notification_id")
+        private Long notificationId;
+
+        public Key() {}
+
+        public Key(Long recipientId, Long notificationId) {
+            this.recipientId = recipientId;
+            this.notificationId = notificationId;
+        }
+
+        public Long getRecipientId() {
+            return recipientId;
+        }
+
+        public Long getNotificationId() {
+            return notificationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(recipientId, key.recipientId) &&
+                    Objects.equals(notificationId, key.notificationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(recipientId, notificationId);
+        }
+    }
+
+    @EmbeddedId
+    private Key id = new Key();
+
+    @MapsId("recipientId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipient_id")
+    private Profile recipient;
+
+    @MapsId("notificationId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "notification_id")
+    private Notification notification;
+
+    /**
+     * Copied from the notification's time stamp so the feed can be read in order without joining the notifications.
+     */
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    /**
+     * READ is a reserved word in MariaDB, hence the column name.
+     */
+    @Column(name = "is_read")
+    private boolean read;
+
+    public InboxEntry() {}
+
+    public InboxEntry(Profile recipient, Notification notification) {
+        this.recipient = recipient;
+        this.notification = notification;
+        this.createdAt = notification.getTimeStamp();
+    }
+
+    @JsonIgnore
+    public Key getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public Profile getRecipient() {
+        return recipient;
+    }
+
+    @JsonIgnore
+    public Notification getNotification() {
+        return notification;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public void setRead(boolean read) {
+        this.read = read;
+    }
+}
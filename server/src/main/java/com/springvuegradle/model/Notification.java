@@ -7,6 +7,7 @@ import com.springvuegradle.enums.NotificationType;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
@@ -14,6 +15,10 @@ import java.util.Set;
 
 
 @Entity
+@Table(indexes = {
+        @Index(name = "notification_time_stamp_index", columnList = "time_stamp, id"),
+        @Index(name = "notification_coalesce_index", columnList = "activity_id, notification_type, time_stamp")
+})
 public class Notification {
     /**
      * Holds automatically generated notification id that is assigned when the
@@ -41,22 +46,30 @@ public class Notification {
     private Profile profile;
 
     /**
-     * Holds the user's notifications and estabishes a Many to Many relationship as a Profile object can be associated with
-     * multiple Notifications.
+     * Holds an inbox entry for each recipient of the notification. Saving the notification saves the entries, and
+     * removing a recipient deletes their entry.
      */
-    @ManyToMany(fetch = FetchType.LAZY)
-    @JoinTable(name = "profile_notification",
-            inverseJoinColumns = @JoinColumn(name = "notification_id", referencedColumnName = "id"),
-            joinColumns = @JoinColumn(name = "profile_id", referencedColumnName = "id"))
-    private Set<Profile> recipients = new HashSet<>();
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "notification", cascade = CascadeType.ALL, orphanRemoval = true)
+    private Set<InboxEntry> inboxEntries = new HashSet<>();
 
+    /**
+     * Truncated to milliseconds so the value kept in memory matches what the database stores, which the notification
+     * cursors rely on when comparing time stamps.
+     */
     @Column
-    private OffsetDateTime timeStamp = OffsetDateTime.now();
+    private OffsetDateTime timeStamp = OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
     @Column
     @NotNull
     private NotificationType notificationType;
 
+    /**
+     * The number of times the event happened, greater than one when repeated events were merged into this
+     * notification.
+     */
+    @Column
+    private int occurrences = 1;
+
     public Notification(
             String message, Activity activity, Profile profile, NotificationType notificationType)
     {
@@ -85,6 +98,8 @@ public class Notification {
     }
 
 
+    public Long getId() { return id; }
+
     public String getMessage() { return message; }
 
     public void setMessage(String message) { this.message = message; }
@@ -110,21 +125,66 @@ public class Notification {
         return notificationType;
     }
 
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
     @JsonIgnore
     public Set<Profile> getRecipients() {
+        Set<Profile> recipients = new HashSet<>();
+        for (InboxEntry entry : inboxEntries) {
+            recipients.add(entry.getRecipient());
+        }
         return Collections.unmodifiableSet(recipients);
     }
 
     public void setRecipients(Set<Profile> recipients) {
-        this.recipients = recipients;
+        for (Profile recipient : getRecipients()) {
+            removeRecipient(recipient);
+        }
+        for (Profile recipient : recipients) {
+            addRecipient(recipient);
+        }
     }
 
+    /**
+     * Puts the notification in the recipient's inbox, unless it is already there.
+     * @param recipient the profile receiving the notification
+     * @return true if the recipient was added
+     */
     public boolean addRecipient(Profile recipient) {
-        return recipients.add(recipient);
+        if (findEntry(recipient) != null) {
+            return false;
+        }
+        InboxEntry entry = new InboxEntry(recipient, this);
+        inboxEntries.add(entry);
+        recipient.addInboxEntry(entry);
+        return true;
     }
 
     public boolean removeRecipient(Profile recipient) {
-        return recipients.remove(recipient);
+        InboxEntry entry = findEntry(recipient);
+        if (entry == null) {
+            return false;
+        }
+        inboxEntries.remove(entry);
+        recipient.removeInboxEntry(entry);
+        return true;
+    }
+
+    private InboxEntry findEntry(Profile recipient) {
+        for (InboxEntry entry : inboxEntries) {
+            Profile entryRecipient = entry.getRecipient();
+            if (entryRecipient == recipient
+                    || (recipient.getId() != null && recipient.getId().equals(entryRecipient.getId()))) {
+                return entry;
+            }
+        }
+        return null;
     }
 
     /**
@@ -138,7 +198,7 @@ public class Notification {
         return this.message.equals(notification.message) &&
                 this.activity.equals(notification.activity) &&
                 this.profile.equals(notification.profile) &&
-                this.recipients.equals(notification.recipients) &&
+                this.getRecipients().equals(notification.getRecipients()) &&
                 this.notificationType.equals(notification.notificationType);
     }
 }
@@ -2,6 +2,7 @@ package com.springvuegradle.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import javax.persistence.*;
@@ -57,6 +58,11 @@ public class PassportCountry {
         this.numericCode = code;
     }
 
+    @JsonIgnore
+    public long getId() {
+        return id;
+    }
+
     public void setCountryName(String name){this.countryName = name;}
     public String getCountryName(){return this.countryName;}
 
@@ -121,6 +121,13 @@ public class Profile {
             joinColumns = @JoinColumn(name = "profile_id", referencedColumnName = "id"))
     private Set<ActivityType> activityTypes;
 
+    /**
+     * The mask bits of the user's activityTypes, kept up to date whenever they change so profiles can be matched on
+     * activity types without joining them.
+     */
+    @Column(name = "activity_type_mask")
+    private long activityTypeMask;
+
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "location_id", referencedColumnName = "id")
     private ProfileLocation location;
@@ -131,9 +138,9 @@ public class Profile {
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "profile")
     private Set<ActivityParticipation> activityParticipations = new HashSet<>();
 
-    @ManyToMany(mappedBy = "recipients")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "recipient")
     @JsonIgnore
-    private Set<Notification> notifications = new HashSet<>();
+    private Set<InboxEntry> inbox = new HashSet<>();
 
     /**
      * No argument constructor for Profile, can be used for creating new profiles directly from JSON data.
@@ -328,14 +335,29 @@ public class Profile {
 
     public void setActivityTypes(Set<ActivityType> activityTypes) {
         this.activityTypes = activityTypes;
+        updateActivityTypeMask();
     }
 
     public void addActivityType(ActivityType activityType) {
         activityTypes.add(activityType);
+        updateActivityTypeMask();
     }
 
     public void removeActivityType(ActivityType activityType) {
         activityTypes.remove(activityType);
+        updateActivityTypeMask();
+    }
+
+    @JsonIgnore
+    public long getActivityTypeMask() {
+        return activityTypeMask;
+    }
+
+    /**
+     * Recalculates the activity type mask from the profile's current activity types.
+     */
+    public void updateActivityTypeMask() {
+        this.activityTypeMask = ActivityType.maskOf(activityTypes);
     }
 
     /**
@@ -353,6 +375,7 @@ public class Profile {
         this.fitness = editedProfile.fitness;
         this.passports = editedProfile.passports;
         this.activityTypes = editedProfile.activityTypes;
+        updateActivityTypeMask();
     }
 
     /**
@@ -550,18 +573,31 @@ public class Profile {
 
     @JsonIgnore
     public Set<Notification> getNotifications() {
+        Set<Notification> notifications = new HashSet<>();
+        for (InboxEntry entry : inbox) {
+            notifications.add(entry.getNotification());
+        }
         return Collections.unmodifiableSet(notifications);
     }
 
-    public void setNotifications(Set<Notification> notifications) {
-        this.notifications = notifications;
-    }
-
     public boolean addNotification(Notification notification) {
-        return notifications.add(notification);
+        return notification.addRecipient(this);
     }
 
     public boolean removeNotification(Notification notification) {
-        return notifications.remove(notification);
+        return notification.removeRecipient(this);
+    }
+
+    /**
+     * Keeps the profile's side of the inbox in step with the notification's, use Notification.addRecipient to add
+     * a notification to the inbox.
+     * @param entry the new inbox entry
+     */
+    void addInboxEntry(InboxEntry entry) {
+        inbox.add(entry);
+    }
+
+    void removeInboxEntry(InboxEntry entry) {
+        inbox.remove(entry);
     }
 }
\ No newline at end of file
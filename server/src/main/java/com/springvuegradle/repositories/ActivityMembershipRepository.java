@@ -10,13 +10,16 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @RepositoryRestResource
-public interface ActivityMembershipRepository extends JpaRepository<ActivityMembership, Long> {
+public interface ActivityMembershipRepository extends JpaRepository<ActivityMembership, Long>,
+        ActivityMembershipRepositoryCustom {
 
 
     List<ActivityMembership> findActivityMembershipsByActivity_IdAndRole(Long id, ActivityMembership.Role role);
@@ -39,11 +42,64 @@ public interface ActivityMembershipRepository extends JpaRepository<ActivityMemb
     List<ActivityMemberProfileResponse> findActivityMembershipsByActivityId(long activityId);
 
 
+    /**
+     * Returns the memberships of the given profiles in an activity with one query.
+     * @param activityId  the id of the activity
+     * @param profileIds  the ids of the profiles, must not be empty
+     * @return the memberships the profiles have in the activity, profiles that are not members are left out
+     */
+    @RestResource(exported = false)
+    @Query("SELECT am FROM ActivityMembership am WHERE am.activity.id = :activityId AND am.profile.id IN :profileIds")
+    List<ActivityMembership> findAllByActivityIdAndProfileIds(@Param("activityId") long activityId,
+                                                              @Param("profileIds") Collection<Long> profileIds);
+
     @Transactional
     @Modifying
     @Query("delete from ActivityMembership am where am.activity.id = :activityId and am.profile.id = :profileId")
     int deleteActivityMembershipByProfileIdAndActivityId(long profileId, long activityId);
 
+    /**
+     * Deletes every membership of the given activities in one statement.
+     * @param activityIds the ids of the activities whose memberships are deleted
+     * @return the number of memberships deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ActivityMembership am where am.activity.id in :activityIds")
+    int deleteAllByActivityIds(@Param("activityIds") Collection<Long> activityIds);
+
+    /**
+     * Deletes every membership of a profile in one statement.
+     * @param profileId the id of the profile whose memberships are deleted
+     * @return the number of memberships deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ActivityMembership am where am.profile.id = :profileId")
+    int deleteAllByProfileId(@Param("profileId") long profileId);
+
+    /**
+     * Deletes every membership of an activity with the given role in one statement. Clears the persistence context
+     * afterwards so activities loaded later in the transaction do not still list the deleted members.
+     * @param activityId the id of the activity
+     * @param role       the role whose memberships are deleted
+     * @return the number of memberships deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ActivityMembership am where am.activity.id = :activityId and am.role = :role")
+    int deleteAllByActivityIdAndRole(@Param("activityId") long activityId,
+                                     @Param("role") ActivityMembership.Role role);
+
+    @Query("SELECT am.profile.id FROM ActivityMembership am WHERE am.activity.id = :activityId")
+    List<Long> findProfileIdsByActivityId(@Param("activityId") long activityId);
+
+    @Query("SELECT am.activity.id FROM ActivityMembership am WHERE am.profile.id = :profileId AND am.role = :role")
+    List<Long> findActivityIdsByProfileIdAndRole(@Param("profileId") long profileId, @Param("role") ActivityMembership.Role role);
+
     @Query("SELECT am FROM ActivityMembership am LEFT JOIN FETCH Activity a ON am.activity = a WHERE am.profile.id = :profileId")
     Page<ActivityMembership> findAllByProfileId(@Param("profileId") Long profileId, Pageable pageable);
     @Query("SELECT am FROM ActivityMembership am LEFT JOIN FETCH Activity a ON am.activity = a WHERE am.profile.id = :profileId")
@@ -53,4 +109,24 @@ public interface ActivityMembershipRepository extends JpaRepository<ActivityMemb
     @Query("SELECT a FROM ActivityMembership am LEFT JOIN FETCH Activity a ON am.activity = a WHERE am.profile.id = :profileId AND am.role = :role")
     List<Activity> findAllActivitiesByProfileId(@Param("profileId") Long profileId, @Param("role") ActivityMembership.Role role);
 
+    /**
+     * Returns a page of the activities a profile has one of the given roles in, ordered by id. Activities below the
+     * minimum privacy level are left out unless the profile created them. Found through the (profile_fk, role) index,
+     * so only the rows on the page are read however many activities the profile has a role in.
+     * @param profileId            the id of the profile
+     * @param roles                the roles to include, must not be empty
+     * @param minimumPrivacyLevel  the lowest privacy level returned for activities the profile did not create
+     * @param creator              the creator role, whose activities are returned at any privacy level
+     * @param pageable             the page to return, any sort is ignored
+     * @return the activities on the page
+     */
+    @RestResource(exported = false)
+    @Query("SELECT a FROM ActivityMembership am JOIN am.activity a WHERE am.profile.id = :profileId " +
+            "AND am.role IN :roles AND (a.privacyLevel >= :minimumPrivacyLevel OR am.role = :creator) ORDER BY a.id")
+    List<Activity> findActivitiesByProfileIdAndRoles(@Param("profileId") long profileId,
+                                                     @Param("roles") Collection<ActivityMembership.Role> roles,
+                                                     @Param("minimumPrivacyLevel") int minimumPrivacyLevel,
+                                                     @Param("creator") ActivityMembership.Role creator,
+                                                     Pageable pageable);
+
 }
@@ -0,0 +1,14 @@
+package com.springvuegradle.repositories;
+
+import com.springvuegradle.model.ActivityMembership;
+
+import java.util.Collection;
+
+/**
+ * Adds inserting new memberships without checking whether each one already exists, which save does for every
+ * membership as their ids are assigned rather than generated.
+ */
+public interface ActivityMembershipRepositoryCustom {
+
+    void insertAll(Collection<ActivityMembership> memberships);
+}
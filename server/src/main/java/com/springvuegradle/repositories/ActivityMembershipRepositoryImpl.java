@@ -0,0 +1,26 @@
+package com.springvuegradle.repositories;
+
+import com.springvuegradle.model.ActivityMembership;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+
+/**
+ * Persists new memberships directly so Hibernate can send the inserts in batches of hibernate.jdbc.batch_size. The
+ * caller must already know none of the memberships exist, otherwise the flush fails on the primary key.
+ */
+public class ActivityMembershipRepositoryImpl implements ActivityMembershipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertAll(Collection<ActivityMembership> memberships) {
+        for (ActivityMembership membership : memberships) {
+            entityManager.persist(membership);
+        }
+    }
+}
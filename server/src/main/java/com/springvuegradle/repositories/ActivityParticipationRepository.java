@@ -2,12 +2,39 @@ package com.springvuegradle.repositories;
 
 import com.springvuegradle.model.ActivityParticipation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ActivityParticipationRepository extends JpaRepository<ActivityParticipation, Long> {
 
     @Query("SELECT ap FROM ActivityParticipation ap WHERE ap.activity.id = :activityId")
     List<ActivityParticipation> findAllByActivityId(long activityId);
+
+    /**
+     * Deletes every participation in the given activities in one statement.
+     * @param activityIds the ids of the activities whose participations are deleted
+     * @return the number of participations deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ActivityParticipation ap where ap.activity.id in :activityIds")
+    int deleteAllByActivityIds(@Param("activityIds") Collection<Long> activityIds);
+
+    /**
+     * Deletes every participation of a profile in one statement.
+     * @param profileId the id of the profile whose participations are deleted
+     * @return the number of participations deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ActivityParticipation ap where ap.profile.id = :profileId")
+    int deleteAllByProfileId(@Param("profileId") long profileId);
 }
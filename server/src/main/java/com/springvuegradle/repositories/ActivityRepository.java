@@ -1,16 +1,22 @@
 package com.springvuegradle.repositories;
 
+import com.springvuegradle.dto.ActivityRoleCountResponse;
 import com.springvuegradle.model.Activity;
 import com.springvuegradle.model.ActivityMembership;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @RepositoryRestResource
 public interface ActivityRepository extends JpaRepository<Activity, Long>, JpaSpecificationExecutor<Activity> {
@@ -27,6 +33,22 @@ public interface ActivityRepository extends JpaRepository<Activity, Long>, JpaSp
     @Query("SELECT a FROM Activity a WHERE a.privacyLevel = :privacyLevel")
     Page<Activity> findAllByPrivacyLevelWithPagination(@Param("privacyLevel") int privacyLevel, Pageable pageable);
 
+    /**
+     * Returns a page of the activities a profile has no role in, for them to discover. The membership of each activity
+     * is checked through the primary key of the memberships, so only the activities on the page are read.
+     * @param profileId            the id of the profile discovering activities
+     * @param minimumPrivacyLevel  the lowest privacy level returned, 2 for only public activities and 0 for all of them
+     * @param pageable             the page to return, any sort is ignored as activities are ordered by id
+     * @return the activities on the page
+     */
+    @RestResource(exported = false)
+    @Query("SELECT a FROM Activity a WHERE a.privacyLevel >= :minimumPrivacyLevel AND NOT EXISTS " +
+            "(SELECT am FROM ActivityMembership am WHERE am.activity = a AND am.profile.id = :profileId) " +
+            "ORDER BY a.id")
+    List<Activity> findActivitiesWithoutMember(@Param("profileId") long profileId,
+                                               @Param("minimumPrivacyLevel") int minimumPrivacyLevel,
+                                               Pageable pageable);
+
     @Query("SELECT distinct a FROM Activity a " +
             "Join ActivityMembership am on a = am.activity " +
             "WHERE (am.profile.id = :profileId AND a.privacyLevel = 1)" +
@@ -40,4 +62,76 @@ public interface ActivityRepository extends JpaRepository<Activity, Long>, JpaSp
                                   @Param("y_bottom") double y_bottom, @Param("y_top") double y_top);
 
     boolean existsById(Long id);
+
+    /**
+     * Returns the role counts of an activity, read from the counters kept on the activity. Empty if the activity does
+     * not exist or has no members. Counters not yet filled in on startup are read as 0.
+     * @param activityId the id of the activity
+     * @return the number of organisers, participants and followers of the activity
+     */
+    @RestResource(exported = false)
+    @Query("SELECT new com.springvuegradle.dto.ActivityRoleCountResponse(COALESCE(a.organiserCount, 0L), " +
+            "COALESCE(a.participantCount, 0L), COALESCE(a.followerCount, 0L)) FROM Activity a WHERE a.id = :activityId " +
+            "AND EXISTS (SELECT am FROM ActivityMembership am WHERE am.activity = a)")
+    Optional<ActivityRoleCountResponse> findRoleCountsById(@Param("activityId") long activityId);
+
+    /**
+     * Adds to the role counters of the given activities in one statement. The counters are changed in the database
+     * rather than on a loaded activity, so concurrent changes to an activity's members are never lost. Counters that
+     * have not been filled in yet stay null, as filling them in counts the memberships this change is part of.
+     * @param activityIds  the ids of the activities
+     * @param organisers   the number to add to the organiser count, negative to subtract
+     * @param participants the number to add to the participant count, negative to subtract
+     * @param followers    the number to add to the follower count, negative to subtract
+     * @return the number of activities updated
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Activity a SET a.organiserCount = a.organiserCount + :organisers, " +
+            "a.participantCount = a.participantCount + :participants, a.followerCount = a.followerCount + :followers " +
+            "WHERE a.id IN :activityIds")
+    int adjustRoleCounts(@Param("activityIds") Collection<Long> activityIds, @Param("organisers") long organisers,
+                         @Param("participants") long participants, @Param("followers") long followers);
+
+    /**
+     * Adds to the counter of one role in the given activities. Creators are not counted, so changes to them are
+     * ignored.
+     * @param activityIds the ids of the activities
+     * @param role        the role whose counter is changed
+     * @param amount      the number to add to the counter, negative to subtract
+     */
+    @RestResource(exported = false)
+    default void adjustRoleCount(Collection<Long> activityIds, ActivityMembership.Role role, long amount) {
+        if (role == ActivityMembership.Role.CREATOR || amount == 0 || activityIds.isEmpty()) {
+            return;
+        }
+        adjustRoleCounts(activityIds, role == ActivityMembership.Role.ORGANISER ? amount : 0,
+                role == ActivityMembership.Role.PARTICIPANT ? amount : 0,
+                role == ActivityMembership.Role.FOLLOWER ? amount : 0);
+    }
+
+    /**
+     * Removes activities from the activity_activity_type join table, so they can be deleted without loading their
+     * activity types.
+     * @param activityIds the ids of the activities
+     * @return the number of join table rows deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM activity_activity_type WHERE activity_id IN (:activityIds)", nativeQuery = true)
+    int deleteActivityTypeLinks(@Param("activityIds") Collection<Long> activityIds);
+
+    /**
+     * Deletes activities in one statement. The rows referencing the activities must already be gone. Clears the
+     * persistence context afterwards, as any loaded copy of the activities is now stale.
+     * @param activityIds the ids of the activities
+     * @return the number of activities deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Activity a where a.id in :activityIds")
+    int deleteActivitiesByIds(@Param("activityIds") Collection<Long> activityIds);
 }
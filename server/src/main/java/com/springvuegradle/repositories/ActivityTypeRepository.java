@@ -9,7 +9,7 @@ import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import java.util.List;
 
 @RepositoryRestResource
-public interface ActivityTypeRepository extends JpaRepository<ActivityType, Long> {
+public interface ActivityTypeRepository extends JpaRepository<ActivityType, Long>, ActivityTypeRepositoryCustom {
 
     @Query("SELECT a FROM ActivityType a WHERE a.activityTypeName = :activityTypeName")
     List<ActivityType> findByActivityTypeName(@Param("activityTypeName") String activityTypeName);
@@ -20,4 +20,6 @@ public interface ActivityTypeRepository extends JpaRepository<ActivityType, Long
 
     @Query("SELECT a.activityTypeName FROM ActivityType a")
     List<String> findAllActivityTypeNames();
+
+    List<ActivityType> findAllByMaskBitIsNullOrderByIdAsc();
 }
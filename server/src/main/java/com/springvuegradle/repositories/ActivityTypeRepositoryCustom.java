@@ -0,0 +1,15 @@
+package com.springvuegradle.repositories;
+
+import com.springvuegradle.model.ActivityType;
+
+import java.util.List;
+
+/**
+ * Replaces the save methods of ActivityTypeRepository so every activity type is given a mask bit when it is saved.
+ */
+public interface ActivityTypeRepositoryCustom {
+
+    <S extends ActivityType> S save(S activityType);
+
+    <S extends ActivityType> List<S> saveAll(Iterable<S> activityTypes);
+}
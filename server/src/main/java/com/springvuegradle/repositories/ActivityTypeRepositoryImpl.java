@@ -0,0 +1,45 @@
+package com.springvuegradle.repositories;
+
+import com.springvuegradle.model.ActivityType;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives each new activity type the next unused mask bit. Bits of deleted types are not reused, as profiles and
+ * activities may still have them set. Activity types are only added by the initial data and by admins, so two being
+ * added at the same time is unlikely, and the unique constraint on the mask bit rejects the second if it happens.
+ */
+public class ActivityTypeRepositoryImpl implements ActivityTypeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public <S extends ActivityType> S save(S activityType) {
+        if (activityType.getMaskBit() == null) {
+            Integer highestBit = entityManager.createQuery("SELECT MAX(a.maskBit) FROM ActivityType a", Integer.class)
+                    .getSingleResult();
+            activityType.setMaskBit(highestBit == null ? 0 : highestBit + 1);
+        }
+        if (activityType.getId() == 0) {
+            entityManager.persist(activityType);
+            return activityType;
+        }
+        return entityManager.merge(activityType);
+    }
+
+    @Override
+    @Transactional
+    public <S extends ActivityType> List<S> saveAll(Iterable<S> activityTypes) {
+        List<S> result = new ArrayList<>();
+        for (S activityType : activityTypes) {
+            result.add(save(activityType));
+        }
+        return result;
+    }
+}
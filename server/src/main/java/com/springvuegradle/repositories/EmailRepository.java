@@ -3,9 +3,12 @@ package com.springvuegradle.repositories;
 import com.springvuegradle.model.Email;
 import com.springvuegradle.model.Profile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -27,4 +30,10 @@ public interface EmailRepository extends JpaRepository<Email, Long> {
 
     @Query("SELECT e.address FROM Email e WHERE e.profile = :profile AND e.isPrimary = true")
     String findPrimaryByProfile(@Param("profile") Profile profile);
+
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Email e where e.profile.id = :profileId")
+    int deleteAllByProfileId(@Param("profileId") long profileId);
 }
@@ -0,0 +1,85 @@
+package com.springvuegradle.repositories;
+
+import com.springvuegradle.model.InboxEntry;
+import com.springvuegradle.model.Notification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@RepositoryRestResource(exported = false)
+public interface InboxEntryRepository extends JpaRepository<InboxEntry, InboxEntry.Key>, InboxEntryRepositoryCustom {
+
+    /**
+     * Returns the notifications in a profile's inbox that come after the given one, latest first. Used to page with
+     * a cursor, which only reads the rows on the page however deep into the inbox it is.
+     * @param profileId the id of the recipient
+     * @param timeStamp the time stamp of the last notification already seen
+     * @param id        the id of the last notification already seen
+     * @param pageable  the size of the page, the page number should be 0
+     * @return the notifications on the page
+     */
+    @Query("SELECT e.notification FROM InboxEntry e WHERE e.id.recipientId = :profileId " +
+            "AND (e.createdAt < :timeStamp OR (e.createdAt = :timeStamp AND e.id.notificationId < :id)) " +
+            "ORDER BY e.createdAt DESC, e.id.notificationId DESC")
+    List<Notification> findNotificationsByRecipientBefore(@Param("profileId") long profileId,
+                                                          @Param("timeStamp") OffsetDateTime timeStamp,
+                                                          @Param("id") long id, Pageable pageable);
+
+    /**
+     * Returns the notifications in a profile's inbox that arrived after the given one, oldest first. Used to catch up
+     * a client reconnecting to the notification stream.
+     * @param profileId the id of the recipient
+     * @param timeStamp the time stamp of the last notification the client received
+     * @param id        the id of the last notification the client received
+     * @param pageable  the maximum number of notifications to return, the page number should be 0
+     * @return the notifications the client missed
+     */
+    @Query("SELECT e.notification FROM InboxEntry e WHERE e.id.recipientId = :profileId " +
+            "AND (e.createdAt > :timeStamp OR (e.createdAt = :timeStamp AND e.id.notificationId > :id)) " +
+            "ORDER BY e.createdAt ASC, e.id.notificationId ASC")
+    List<Notification> findNotificationsByRecipientAfter(@Param("profileId") long profileId,
+                                                         @Param("timeStamp") OffsetDateTime timeStamp,
+                                                         @Param("id") long id, Pageable pageable);
+
+    @Query("SELECT COUNT(e) FROM InboxEntry e WHERE e.id.recipientId = :profileId AND e.read = false")
+    long countUnreadByRecipient(@Param("profileId") long profileId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InboxEntry e SET e.read = true " +
+            "WHERE e.id.recipientId = :profileId AND e.id.notificationId IN :notificationIds AND e.read = false")
+    int markRead(@Param("profileId") long profileId, @Param("notificationIds") Collection<Long> notificationIds);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InboxEntry e SET e.read = true WHERE e.id.recipientId = :profileId AND e.read = false")
+    int markAllRead(@Param("profileId") long profileId);
+
+    /**
+     * Puts a notification back in the unread state for every recipient, used when a repeated event is merged into it.
+     * @param notificationId the id of the notification
+     * @return the number of inboxes the notification was marked unread in
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InboxEntry e SET e.read = false WHERE e.id.notificationId = :notificationId AND e.read = true")
+    int markUnread(@Param("notificationId") long notificationId);
+
+    /**
+     * Empties a profile's inbox, required in order to delete the profile.
+     * @param profileId the id of the recipient
+     * @return the number of notifications removed from the inbox
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM InboxEntry e WHERE e.id.recipientId = :profileId")
+    int deleteAllByRecipientId(@Param("profileId") long profileId);
+}
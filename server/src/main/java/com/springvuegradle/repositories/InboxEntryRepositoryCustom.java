@@ -0,0 +1,13 @@
+package com.springvuegradle.repositories;
+
+import com.springvuegradle.model.Notification;
+
+import java.util.List;
+
+/**
+ * Adds reading the notifications in an inbox from any offset, which a Pageable can only do in whole pages.
+ */
+public interface InboxEntryRepositoryCustom {
+
+    List<Notification> findNotificationsByRecipient(long profileId, int startIndex, int count);
+}
@@ -0,0 +1,27 @@
+package com.springvuegradle.repositories;
+
+import com.springvuegradle.model.Notification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Reads the notifications in a profile's inbox starting at an offset, latest first. Notifications with the same time
+ * stamp are ordered by id so pages never overlap.
+ */
+public class InboxEntryRepositoryImpl implements InboxEntryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Notification> findNotificationsByRecipient(long profileId, int startIndex, int count) {
+        return entityManager.createQuery("SELECT e.notification FROM InboxEntry e WHERE e.id.recipientId = :profileId " +
+                "ORDER BY e.createdAt DESC, e.id.notificationId DESC", Notification.class)
+                .setParameter("profileId", profileId)
+                .setFirstResult(startIndex)
+                .setMaxResults(count)
+                .getResultList();
+    }
+}
@@ -1,20 +1,50 @@
 package com.springvuegradle.repositories;
 
 
+import com.springvuegradle.enums.NotificationType;
 import com.springvuegradle.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @RepositoryRestResource
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     @Query("SELECT max(id) from Notification")
     public Long getLastInsertedId();
 
+    /**
+     * Returns the latest notification of a type an editor created for an activity since the given time, which
+     * repeated events are merged into.
+     * @param activityId the id of the activity
+     * @param editorId   the id of the profile that created the notification
+     * @param type       the type of the notification
+     * @param since      the start of the coalescing window
+     * @param pageable   a page of size one
+     * @return the latest matching notification, or an empty list if there is none
+     */
+    @Query("SELECT n FROM Notification n WHERE n.activity.id = :activityId AND n.profile.id = :editorId " +
+            "AND n.notificationType = :type AND n.timeStamp >= :since ORDER BY n.timeStamp DESC, n.id DESC")
+    List<Notification> findLatestSince(@Param("activityId") long activityId, @Param("editorId") long editorId,
+                                       @Param("type") NotificationType type, @Param("since") OffsetDateTime since,
+                                       Pageable pageable);
+
     @Transactional
     @Modifying
     @Query("update Notification n SET n.profile = null WHERE n.profile.id = :profileId")
     int detachProfileFromNotifications(long profileId);
+
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("update Notification n SET n.activity = null WHERE n.activity.id in :activityIds")
+    int detachActivitiesFromNotifications(@Param("activityIds") Collection<Long> activityIds);
 }
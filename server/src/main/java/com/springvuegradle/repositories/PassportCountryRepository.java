@@ -3,10 +3,14 @@ package com.springvuegradle.repositories;
 
 import com.springvuegradle.model.PassportCountry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @RepositoryRestResource
@@ -17,4 +21,22 @@ public interface PassportCountryRepository extends JpaRepository<PassportCountry
     List<PassportCountry> findByNumericCode(String code);
     boolean existsByCountryName(String name);
     boolean existsByNumericCode(String code);
+
+    /**
+     * Removes the given passport countries from every profile holding them, in one statement rather than loading and
+     * saving each profile.
+     * @param ids the ids of the passport countries
+     * @return the number of passports removed from profiles
+     */
+    @RestResource(exported = false)
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM profile_passport_country WHERE passport_country_id IN :ids", nativeQuery = true)
+    int deleteProfilePassportsByCountryIdIn(@Param("ids") Collection<Long> ids);
+
+    @RestResource(exported = false)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM PassportCountry pc WHERE pc.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -3,9 +3,12 @@ package com.springvuegradle.repositories;
 import com.springvuegradle.model.Profile;
 import com.springvuegradle.model.ProfileLocation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -15,5 +18,11 @@ public interface ProfileLocationRepository extends JpaRepository<ProfileLocation
     @Query("SELECT p FROM ProfileLocation p WHERE p.profile = :profile")
     Optional<ProfileLocation> findLocationByProfile(@Param("profile") Profile profile);
 
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ProfileLocation l where l.id = :locationId")
+    int deleteLocationById(@Param("locationId") long locationId);
+
 }
 
@@ -2,15 +2,20 @@ package com.springvuegradle.repositories;
 
 
 import com.springvuegradle.model.ActivityMembership;
+import com.springvuegradle.model.Email;
 import com.springvuegradle.model.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @RepositoryRestResource
@@ -25,9 +30,42 @@ public interface ProfileRepository extends JpaRepository<Profile, Long>, JpaSpec
     @Query("SELECT p FROM Profile p JOIN Email e ON p.id = e.profile.id where p = e.profile AND e.address = :email")
     List<Profile> findByEmail(@Param("email") String email);
 
+    /**
+     * Finds the primary emails with the given addresses along with their profiles in one query.
+     * @param addresses the email addresses to look up, must not be empty
+     * @return the primary emails found, each with its profile loaded. Addresses that are not primary are left out.
+     */
+    @RestResource(exported = false)
+    @Query("SELECT e FROM Email e JOIN FETCH e.profile WHERE e.address IN :addresses AND e.isPrimary = true")
+    List<Email> findPrimaryEmailsByAddresses(@Param("addresses") Collection<String> addresses);
+
     @Query("SELECT p FROM Profile p WHERE p.authLevel = :auth_level")
     List<Profile> findByAuthLevel(@Param("auth_level") Integer authLevel);
 
     @Query("SELECT p FROM Profile p JOIN ActivityMembership am ON p = am.profile WHERE am.activity.id = :id AND am.role = :role")
     Page<Profile> findByActivityAndRole(@Param("id") long activityId, @Param("role") ActivityMembership.Role role, Pageable pageable);
+
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM profile_passport_country WHERE profile_id = :profileId", nativeQuery = true)
+    int deletePassportLinks(@Param("profileId") long profileId);
+
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM profile_activity_type WHERE profile_id = :profileId", nativeQuery = true)
+    int deleteActivityTypeLinks(@Param("profileId") long profileId);
+
+    /**
+     * Deletes a profile in one statement. The rows referencing the profile must already be gone. Clears the
+     * persistence context afterwards, as any loaded copy of the profile is now stale.
+     * @param profileId the id of the profile
+     * @return the number of profiles deleted
+     */
+    @Transactional
+    @RestResource(exported = false)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Profile p where p.id = :profileId")
+    int deleteProfileById(@Param("profileId") long profileId);
 }
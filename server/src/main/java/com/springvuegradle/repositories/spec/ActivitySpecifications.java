@@ -2,9 +2,19 @@ package com.springvuegradle.repositories.spec;
 
 import com.springvuegradle.model.Activity;
 import com.springvuegradle.model.ActivityMembership;
+import com.springvuegradle.model.ActivityType;
+import com.springvuegradle.utilities.LocationIndexHelper;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class ActivitySpecifications {
     /**
@@ -68,4 +78,150 @@ public class ActivitySpecifications {
         };
         return hasRole.and(hasMember(memberId));
     }
+
+    /**
+     * Creates a specification matching all activities that are visible to the given user: public activities,
+     * restricted activities the user is a member of, and activities the user created. The membership check is done
+     * with a subquery so the result contains no duplicate rows.
+     * @param profileId the id of the user.
+     * @return a specification matching all activities visible to the given user.
+     */
+    public static Specification<Activity> isVisibleTo(long profileId) {
+        return (root, query, criteriaBuilder) -> {
+            query.distinct(true);
+            Subquery<ActivityMembership.Role> membership = query.subquery(ActivityMembership.Role.class);
+            Root<ActivityMembership> am = membership.from(ActivityMembership.class);
+            membership.select(am.get("role")).where(
+                    criteriaBuilder.equal(am.get("activity"), root),
+                    criteriaBuilder.equal(am.get("profile").get("id"), profileId),
+                    criteriaBuilder.or(
+                            criteriaBuilder.equal(root.get("privacyLevel"), 1),
+                            criteriaBuilder.equal(am.get("role"), ActivityMembership.Role.CREATOR)));
+            return criteriaBuilder.or(
+                    criteriaBuilder.equal(root.get("privacyLevel"), 2),
+                    criteriaBuilder.exists(membership));
+        };
+    }
+
+    /**
+     * Creates a specification matching all activities whose location cell lies in one of the given ranges. The ranges
+     * come from LocationIndexHelper.cellRanges and let the database use the location cell index.
+     * @param ranges the ranges of location cells being matched against, or null to match every activity.
+     * @return a specification matching all activities located in the given cells.
+     */
+    public static Specification<Activity> inLocationCells(List<LocationIndexHelper.CellRange> ranges) {
+        if (ranges == null) {
+            return Specification.where(null);
+        }
+        return (root, query, criteriaBuilder) -> {
+            query.distinct(true);
+            Predicate[] predicates = new Predicate[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                LocationIndexHelper.CellRange range = ranges.get(i);
+                predicates[i] = criteriaBuilder.between(root.<Long>get("locationCell"), range.getFrom(), range.getTo());
+            }
+            return criteriaBuilder.or(predicates);
+        };
+    }
+
+    /**
+     * Creates a specification matching all activities whose coordinates lie inside the given bounding box. Boxes
+     * crossing the antimeridian are matched on both sides of it, and a box covering the whole globe matches every
+     * activity, including ones without coordinates.
+     * @param box the bounding box being matched against.
+     * @return a specification matching all activities located inside the bounding box.
+     */
+    public static Specification<Activity> withinBoundingBox(LocationIndexHelper.BoundingBox box) {
+        return (root, query, criteriaBuilder) -> {
+            query.distinct(true);
+            if (box.coversWholeGlobe()) {
+                return null;
+            }
+            Predicate latitude = criteriaBuilder.between(root.<Double>get("latitude"), box.getMinLatitude(), box.getMaxLatitude());
+            if (box.coversAllLongitudes()) {
+                return latitude;
+            }
+            Predicate longitude;
+            if (box.crossesAntimeridian()) {
+                longitude = criteriaBuilder.or(
+                        criteriaBuilder.greaterThanOrEqualTo(root.<Double>get("longitude"), box.getMinLongitude()),
+                        criteriaBuilder.lessThanOrEqualTo(root.<Double>get("longitude"), box.getMaxLongitude()));
+            } else {
+                longitude = criteriaBuilder.between(root.<Double>get("longitude"), box.getMinLongitude(), box.getMaxLongitude());
+            }
+            return criteriaBuilder.and(latitude, longitude);
+        };
+    }
+
+    /**
+     * Creates a specification matching all activities that have the given activity types. The types are compared with
+     * the activity type mask of each activity when they all have a mask bit, otherwise they are checked with a
+     * subquery rather than one join per type, so the number of types does not change the shape of the query.
+     * @param activityTypes the activity types being matched against.
+     * @param searchMethod "all" if activities must have every given type, "any" if they only need one of them. Any
+     *                     other method matches no activities.
+     * @return a specification matching all activities with the given types, or every activity if no types or search
+     * method are given.
+     */
+    public static Specification<Activity> hasActivityTypes(List<ActivityType> activityTypes, String searchMethod) {
+        if (activityTypes == null || activityTypes.isEmpty() || searchMethod == null) {
+            return Specification.where(null);
+        }
+        if (ActivityType.allHaveMaskBits(activityTypes)) {
+            return activityTypeMaskMatches(ActivityType.maskOf(activityTypes), searchMethod);
+        }
+        Set<String> typeNames = activityTypes.stream().map(ActivityType::getActivityTypeName).collect(Collectors.toSet());
+        return (root, query, criteriaBuilder) -> {
+            query.distinct(true);
+            Subquery<Long> matchingTypes = query.subquery(Long.class);
+            Root<Activity> activity = matchingTypes.from(Activity.class);
+            Join<Activity, ActivityType> type = activity.joinSet("activityTypes");
+            matchingTypes.select(criteriaBuilder.count(type)).where(
+                    criteriaBuilder.equal(activity, root),
+                    type.get("activityTypeName").in(typeNames));
+            if (searchMethod.equals("all")) {
+                return criteriaBuilder.equal(matchingTypes, (long) typeNames.size());
+            } else if (searchMethod.equals("any")) {
+                return criteriaBuilder.greaterThan(matchingTypes, 0L);
+            }
+            return criteriaBuilder.disjunction();
+        };
+    }
+
+    /**
+     * Creates a specification matching all activities whose activity type mask has all or any of the bits of the given
+     * mask set.
+     * @param mask the mask bits of the activity types being matched against.
+     * @param searchMethod "all" if activities must have every bit, "any" if they only need one of them. Any other
+     *                     method matches no activities.
+     * @return a specification matching all activities with the given activity type bits.
+     */
+    public static Specification<Activity> activityTypeMaskMatches(long mask, String searchMethod) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<Long> matchingBits = criteriaBuilder.function(SqlFunctionContributor.BITAND, Long.class,
+                    root.get("activityTypeMask"), criteriaBuilder.literal(mask));
+            if (searchMethod.equals("all")) {
+                return criteriaBuilder.equal(matchingBits, mask);
+            } else if (searchMethod.equals("any")) {
+                return criteriaBuilder.notEqual(matchingBits, 0L);
+            }
+            return criteriaBuilder.disjunction();
+        };
+    }
+
+    /**
+     * Creates a specification that fetches the activity types of the matched activities in the same query, so building
+     * responses from the results does not load the types of each activity separately. It adds no restriction and is
+     * ignored by count queries.
+     * @return a specification fetching the activity types of the matched activities.
+     */
+    public static Specification<Activity> fetchActivityTypes() {
+        return (root, query, criteriaBuilder) -> {
+            if (!Long.class.equals(query.getResultType()) && !long.class.equals(query.getResultType())) {
+                query.distinct(true);
+                root.fetch("activityTypes", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
 }
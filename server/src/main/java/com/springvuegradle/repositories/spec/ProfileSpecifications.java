@@ -5,6 +5,7 @@ import com.springvuegradle.model.Email;
 import com.springvuegradle.model.Profile;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Join;
 
 import java.util.Objects;
@@ -134,7 +135,8 @@ public class ProfileSpecifications {
     }
 
     /**
-     * Creates a specification to match profiles that have the provided activity types.
+     * Creates a specification to match profiles that have the provided activity types, with one join for each type.
+     * Only used when one of the types has no mask bit, see activityTypeMaskMatches.
      * @param types The collection of activity types to me matched against.
      * @param searchMethod true if only profiles that match all activity types should be provided. If false, any profile
      *                     that has any of the types given will be returned.
@@ -159,6 +161,25 @@ public class ProfileSpecifications {
         return spec;
     }
 
+    /**
+     * Creates a specification to match profiles whose activity type mask has the bits of the provided mask set, which
+     * checks any number of activity types without joining them.
+     * @param mask the mask bits of the activity types to be matched against.
+     * @param searchMethod "all" if only profiles that have every activity type should be provided. Otherwise any
+     *                     profile that has any of the types given will be returned.
+     * @return a specification that matches profiles that have the provided activity types.
+     */
+    public static Specification<Profile> activityTypeMaskMatches(long mask, String searchMethod) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<Long> matchingBits = criteriaBuilder.function(SqlFunctionContributor.BITAND, Long.class,
+                    root.get("activityTypeMask"), criteriaBuilder.literal(mask));
+            if ("all".equals(searchMethod)) {
+                return criteriaBuilder.equal(matchingBits, mask);
+            }
+            return criteriaBuilder.notEqual(matchingBits, 0L);
+        };
+    }
+
     /**
      * Creates a specification matching all profiles whose first, middle, last, or nickname contains the given substring.
      * @param substring The string pattern to be matched to.
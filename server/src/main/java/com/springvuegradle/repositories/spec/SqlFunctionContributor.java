@@ -0,0 +1,62 @@
+package com.springvuegradle.repositories.spec;
+
+import org.hibernate.QueryException;
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+
+import java.util.List;
+
+/**
+ * Registers the SQL functions used by the specifications that JPA has no equivalent of. Registered through the
+ * hibernate.metadata_builder_contributor property.
+ */
+public class SqlFunctionContributor implements MetadataBuilderContributor {
+
+    /**
+     * The bitwise and of two integers, bitand(a, b).
+     */
+    public static final String BITAND = "bitand";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(BITAND, new BitAndFunction());
+    }
+
+    /**
+     * H2 only has the BITAND function and MariaDB only has the bitwise and operator, so the SQL depends on the dialect.
+     */
+    private static class BitAndFunction implements SQLFunction {
+
+        @Override
+        public boolean hasArguments() {
+            return true;
+        }
+
+        @Override
+        public boolean hasParenthesesIfNoArguments() {
+            return true;
+        }
+
+        @Override
+        public Type getReturnType(Type firstArgumentType, Mapping mapping) {
+            return StandardBasicTypes.LONG;
+        }
+
+        @Override
+        public String render(Type firstArgumentType, List arguments, SessionFactoryImplementor factory) {
+            if (arguments.size() != 2) {
+                throw new QueryException(BITAND + " takes two arguments");
+            }
+            if (factory.getJdbcServices().getDialect() instanceof H2Dialect) {
+                return "bitand(" + arguments.get(0) + ", " + arguments.get(1) + ")";
+            }
+            return "(" + arguments.get(0) + " & " + arguments.get(1) + ")";
+        }
+    }
+}
@@ -6,7 +6,9 @@ import com.springvuegradle.model.ActivityMembership;
 import com.springvuegradle.model.ActivityType;
 import com.springvuegradle.repositories.ActivityRepository;
 import com.springvuegradle.repositories.spec.ActivitySpecifications;
+import com.springvuegradle.utilities.DistanceHelper;
 import com.springvuegradle.utilities.FieldValidationHelper;
+import com.springvuegradle.utilities.LocationIndexHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -116,25 +118,75 @@ public class ActivitySearchService {
      * @return a list of simplified activities that are visible to the user and are within the required range
      */
     public List<ActivityLocationResponse> getActivitiesByRangeAndActivityTypes(Long profileId, boolean isAdmin, int maximumDistance, Double latitude, Double longitude, String[] activityTypes, String activityTypeSearchMethod) {
+        return getActivitiesByRangeAndActivityTypes(profileId, isAdmin, maximumDistance, latitude, longitude, activityTypes, activityTypeSearchMethod, 0, null);
+    }
+
+    /**
+     * Returns a page of simplified activities which are both within the specified distance of the specified point AND
+     * visible to the user, ordered from nearest to furthest.
+     *
+     * @param isAdmin         whether the user searching is an admin
+     * @param profileId       the ID of the user who is searching
+     * @param maximumDistance activities only within this distance(specified in m) will be returned
+     * @param latitude        the latitude we are searching within a distance of
+     * @param longitude       the longitude we are searching within a distance of
+     * @param activityTypes   A list of activity types that the resulting activities must contain
+     * @param activityTypeSearchMethod All if all activities are required, Any if any of the activities in the list are required. Null if no
+     *                                 activity type searching is required.
+     * @param startIndex      the number of nearer activities to skip
+     * @param count           the maximum number of activities to return, or null to return every activity after startIndex
+     * @return a page of simplified activities that are visible to the user and are within the required range
+     */
+    public List<ActivityLocationResponse> getActivitiesByRangeAndActivityTypes(Long profileId, boolean isAdmin, int maximumDistance, Double latitude, Double longitude,
+                                                                               String[] activityTypes, String activityTypeSearchMethod, int startIndex, Integer count) {
         List<ActivityType> activityTypeList = activityService.getActivityTypesFromStringArray(activityTypes);
-        List<Activity> activities = getVisibleActivities(profileId, isAdmin);
-        activities = filterActivitiesByDistance(activities, latitude, longitude, maximumDistance);
-        activities = activityService.filterActivitiesByActivityTypes(activities, activityTypeList, activityTypeSearchMethod);
+        checkLocation(latitude, longitude);
+        List<Activity> activities = getVisibleActivitiesNear(profileId, isAdmin, latitude, longitude, maximumDistance, activityTypeList, activityTypeSearchMethod);
+        activities = findNearestActivities(activities, latitude, longitude, maximumDistance, startIndex, count);
         return ActivityService.createActivityLocationResponse(activities);
     }
 
     /**
-     * Gets a list of activities that are visible to a user
+     * Gets the activities visible to a user that lie in the location index cells touched by a search circle. The
+     * result is a superset of the activities within the search circle, so it still needs to be filtered by exact
+     * distance.
+     * @param profileId the ID of the users profile
+     * @param isAdmin whether the user is an admin or not
+     * @param latitude the latitude of the point at the center of the search
+     * @param longitude the longitude of the point at the center of the search
+     * @param maximumDistance the radius of the search in metres
+     * @return a list of visible activities that may be within the search circle
+     */
+    public List<Activity> getVisibleActivitiesNear(Long profileId, boolean isAdmin, double latitude, double longitude, int maximumDistance) {
+        return getVisibleActivitiesNear(profileId, isAdmin, latitude, longitude, maximumDistance, List.of(), null);
+    }
+
+    /**
+     * Gets the activities visible to a user with the required activity types that lie in the bounding box of a search
+     * circle. Visibility, location and activity types are all checked by a single database query, with the activity
+     * types of each result fetched in the same query. The result is a superset of the activities within the search
+     * circle, so it still needs to be filtered by exact distance.
      * @param profileId the ID of the users profile
      * @param isAdmin whether the user is an admin or not
-     * @return a list of activities that are visible to a user
+     * @param latitude the latitude of the point at the center of the search
+     * @param longitude the longitude of the point at the center of the search
+     * @param maximumDistance the radius of the search in metres
+     * @param activityTypes the activity types the activities must have
+     * @param activityTypeSearchMethod "all" if activities need every activity type, "any" if they need at least one,
+     *                                 or null if activity types are not being searched on
+     * @return a list of visible activities with the required types that may be within the search circle
      */
-    public List<Activity> getVisibleActivities(Long profileId, boolean isAdmin){
-        if (isAdmin) {
-            return activityService.getAllActivities();
-        } else {
-           return activityRepository.findActivitiesUserCanSee(profileId, ActivityMembership.Role.CREATOR);
+    public List<Activity> getVisibleActivitiesNear(Long profileId, boolean isAdmin, double latitude, double longitude, int maximumDistance,
+                                                   List<ActivityType> activityTypes, String activityTypeSearchMethod) {
+        LocationIndexHelper.BoundingBox box = LocationIndexHelper.boundingBox(latitude, longitude, maximumDistance);
+        Specification<Activity> spec = ActivitySpecifications.inLocationCells(LocationIndexHelper.cellRanges(box))
+                .and(ActivitySpecifications.withinBoundingBox(box))
+                .and(ActivitySpecifications.hasActivityTypes(activityTypes, activityTypeSearchMethod))
+                .and(ActivitySpecifications.fetchActivityTypes());
+        if (!isAdmin) {
+            spec = spec.and(ActivitySpecifications.isVisibleTo(profileId));
         }
+        return activityRepository.findAll(spec);
     }
 
 
@@ -147,35 +199,80 @@ public class ActivitySearchService {
      * @return  list of activities so only ones within a certain distance of a point
      */
     public List<Activity> filterActivitiesByDistance(List<Activity> activities, Double latitude, Double longitude, Integer maximumDistance){
-        if (!(isInRange(latitude, MINIMUM_LATITUDE, MAXIMUM_LATITUDE) && isInRange(longitude, MINIMUM_LONGITUDE, MAXIMUM_LONGITUDE))) {
-            throw new IllegalArgumentException("Invalid location specified!");
+        return findNearestActivities(activities, latitude, longitude, maximumDistance, 0, null);
+    }
+
+    /**
+     * Finds a page of the activities nearest to a point, ordered from nearest to furthest. Activities at the same
+     * distance are ordered by name and then by id. Only the activities up to the end of the page are kept in a bounded
+     * heap while scanning, so the activities in range are never all copied or sorted.
+     * @param activities a list of activities
+     * @param latitude the latitude of the point at the center of the search
+     * @param longitude the longitude of the point at the center of the search
+     * @param maximumDistance the maximum distance away from the center activities can be
+     * @param startIndex the number of nearer activities to skip
+     * @param count the maximum number of activities to return, or null to return every activity after startIndex
+     * @return the activities within range of the point from startIndex, nearest first
+     */
+    public List<Activity> findNearestActivities(List<Activity> activities, Double latitude, Double longitude, Integer maximumDistance, int startIndex, Integer count) {
+        checkLocation(latitude, longitude);
+        if (startIndex < 0 || (count != null && count <= 0)) {
+            throw new IllegalArgumentException("Invalid page specified!");
         }
-        HashMap<Activity, Double> activityDistanceHashMap = new HashMap<>();
-        for (Activity activity : activities) {
-            if (activity.getLatitude() != null) {
-                Double activityDistanceFromPoint = distance(latitude, activity.getLatitude(), longitude, activity.getLongitude());
-                if (activityDistanceFromPoint < maximumDistance) {
-                    activityDistanceHashMap.put(activity, activityDistanceFromPoint);
+        long limit = count == null ? Long.MAX_VALUE : (long) startIndex + count;
+        double[] distances = new double[activities.size()];
+        DistanceHelper.distancesWithin(DistanceHelper.Points.of(activities), latitude, longitude, maximumDistance, distances);
+        // the heap keeps the furthest of the nearest activities at its head, so it can be evicted in O(log k)
+        PriorityQueue<ActivityDistance> nearest = new PriorityQueue<>(Comparator.reverseOrder());
+        for (int i = 0; i < distances.length; i++) {
+            if (Double.isNaN(distances[i])) {
+                continue;
+            }
+            if (nearest.size() < limit) {
+                nearest.add(new ActivityDistance(activities.get(i), distances[i]));
+            } else if (distances[i] <= nearest.peek().distance) {
+                ActivityDistance candidate = new ActivityDistance(activities.get(i), distances[i]);
+                if (candidate.compareTo(nearest.peek()) < 0) {
+                    nearest.poll();
+                    nearest.add(candidate);
                 }
             }
         }
-        return sortActivitiesByDistance(activityDistanceHashMap);
+        int pageSize = Math.max(0, nearest.size() - startIndex);
+        Activity[] page = new Activity[pageSize];
+        for (int i = nearest.size() - 1; i >= 0; i--) {
+            Activity activity = nearest.poll().activity;
+            if (i >= startIndex) {
+                page[i - startIndex] = activity;
+            }
+        }
+        return new ArrayList<>(Arrays.asList(page));
     }
 
-
     /**
-     * Takes a map of activity distance and returns activities in order of distance increasing
-     * @param activityDistanceHashMap a hashmap of activities and their distance from the search point.
-     * @return a list of activities sorted by distance from the center of the search
+     * An activity paired with its distance from the center of a search, ordered by distance, then name, then id.
      */
-    private List<Activity> sortActivitiesByDistance(HashMap<Activity, Double> activityDistanceHashMap) {
-        List<Map.Entry<Activity, Double>> list = new LinkedList<>(activityDistanceHashMap.entrySet());
-        Collections.sort(list, Comparator.comparing(Map.Entry::getValue));
-        ArrayList<Activity> sortedActivities = new ArrayList<>();
-        for (Map.Entry<Activity, Double> aa : list) {
-            sortedActivities.add(aa.getKey());
+    private static class ActivityDistance implements Comparable<ActivityDistance> {
+        private final Activity activity;
+        private final double distance;
+
+        ActivityDistance(Activity activity, double distance) {
+            this.activity = activity;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(ActivityDistance other) {
+            int result = Double.compare(distance, other.distance);
+            if (result == 0) {
+                result = Objects.compare(activity.getActivityName(), other.activity.getActivityName(),
+                        Comparator.nullsLast(Comparator.naturalOrder()));
+            }
+            if (result == 0) {
+                result = Long.compare(activity.getId(), other.activity.getId());
+            }
+            return result;
         }
-        return sortedActivities;
     }
 
     /**
@@ -191,20 +288,19 @@ public class ActivitySearchService {
      */
     public double distance(double lat1, double lat2, double lon1,
                            double lon2) {
+        return DistanceHelper.distance(lat1, lon1, lat2, lon2);
+    }
 
-        final int R = 6371; // Radius of the earth
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c * 1000; // convert to meters
-
-        distance = Math.pow(distance, 2);
-
-        return Math.sqrt(distance);
+    /**
+     * Checks that the center of a distance search is a valid location
+     * @param latitude the latitude of the point at the center of the search
+     * @param longitude the longitude of the point at the center of the search
+     * @throws IllegalArgumentException if either coordinate is missing or out of range
+     */
+    private void checkLocation(Double latitude, Double longitude) {
+        if (!(isInRange(latitude, MINIMUM_LATITUDE, MAXIMUM_LATITUDE) && isInRange(longitude, MINIMUM_LONGITUDE, MAXIMUM_LONGITUDE))) {
+            throw new IllegalArgumentException("Invalid location specified!");
+        }
     }
 
     /**
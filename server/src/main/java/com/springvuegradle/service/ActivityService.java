@@ -8,12 +8,15 @@ import com.springvuegradle.dto.responses.ActivityMemberProfileResponse;
 import com.springvuegradle.enums.*;
 import com.springvuegradle.model.*;
 import com.springvuegradle.repositories.*;
+import com.springvuegradle.utilities.ActivityRoleCountHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
@@ -29,27 +32,29 @@ public class ActivityService {
 
     private ProfileRepository profileRepo;
     private ActivityRepository activityRepo;
-    private ActivityTypeRepository typeRepo;
+    private ActivityTypeRegistry typeRegistry;
     private ActivityMembershipRepository membershipRepo;
     private ActivityParticipationRepository participationRepo;
     private NotificationService notificationService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     /**
      * Autowired constructor for Spring to create an ActivityService and inject the correct dependencies.
      *
      * @param profileRepo                  the profile repository being injected.
      * @param activityRepo                 the activity repository being injected.
-     * @param activityTypeRepo             the activity type repository being injected.
+     * @param activityTypeRegistry         the activity type registry being injected.
      * @param activityMembershipRepository the activity membership repository being injected.
      */
     @Autowired
-    public ActivityService(ProfileRepository profileRepo, ActivityRepository activityRepo, ActivityTypeRepository activityTypeRepo,
+    public ActivityService(ProfileRepository profileRepo, ActivityRepository activityRepo, ActivityTypeRegistry activityTypeRegistry,
                            ActivityMembershipRepository activityMembershipRepository, ActivityParticipationRepository participationRepo,
                            NotificationService notificationService) {
         this.profileRepo = profileRepo;
         this.activityRepo = activityRepo;
-        this.typeRepo = activityTypeRepo;
+        this.typeRegistry = activityTypeRegistry;
         this.membershipRepo = activityMembershipRepository;
         this.participationRepo = participationRepo;
         this.notificationService = notificationService;
@@ -69,13 +74,7 @@ public class ActivityService {
         }
         Profile profile = profileResult.get();
 
-        Set<ActivityType> updatedActivityType = new HashSet<>();
-        for (ActivityType activityType : activity.retrieveActivityTypes()) {
-            List<ActivityType> resultActivityTypes = typeRepo.findByActivityTypeName(activityType.getActivityTypeName());
-            updatedActivityType.add(resultActivityTypes.get(0));
-        }
-
-        activity.setActivityTypes(updatedActivityType);
+        activity.setActivityTypes(typeRegistry.resolve(activity.retrieveActivityTypes()));
 
         Activity result = activityRepo.save(activity);
 
@@ -108,12 +107,7 @@ public class ActivityService {
         Optional<Activity> result = activityRepo.findById(activityId);
         if (result.isPresent()) {
             Activity dbActivity = result.get();
-            Set<ActivityType> updatedActivityTypes = new HashSet<>();
-            for (ActivityType activityType : activity.retrieveActivityTypes()) {
-                List<ActivityType> resultActivityTypes = typeRepo.findByActivityTypeName(activityType.getActivityTypeName());
-                updatedActivityTypes.add(resultActivityTypes.get(0));
-            }
-            dbActivity.setActivityTypes(updatedActivityTypes);
+            dbActivity.setActivityTypes(typeRegistry.resolve(activity.retrieveActivityTypes()));
             dbActivity.update(activity);
             activityRepo.save(dbActivity);
             notificationService.createNotification(NotificationType.ACTIVITY_EDITED, dbActivity, editor.get(),
@@ -124,7 +118,8 @@ public class ActivityService {
     }
 
     /**
-     * Filters a list of activities to ensure only ones containing all of the required activity types are shown
+     * Filters a list of activities to ensure only ones containing all of the required activity types are shown. The
+     * activity type masks are compared when every required type has a mask bit.
      * @param activities a list of activites
      * @param requiredActivityTypes
      * @return a list of activities that have all activity types
@@ -132,6 +127,17 @@ public class ActivityService {
     public List<Activity> filterActivitiesByActivityTypes(List<Activity> activities, List<ActivityType> requiredActivityTypes, String activityTypeSearchMethod){
         if(requiredActivityTypes.isEmpty() || activityTypeSearchMethod == null){return activities;}
         List<Activity> filteredActivities = new ArrayList<>();
+        if (ActivityType.allHaveMaskBits(requiredActivityTypes)) {
+            long requiredMask = ActivityType.maskOf(requiredActivityTypes);
+            for (Activity activity : activities) {
+                long matchingBits = activity.getActivityTypeMask() & requiredMask;
+                if ((matchingBits == requiredMask && activityTypeSearchMethod.equals("all"))
+                        || (matchingBits != 0 && activityTypeSearchMethod.equals("any"))) {
+                    filteredActivities.add(activity);
+                }
+            }
+            return filteredActivities;
+        }
         for(Activity activity: activities) {
             Set<ActivityType> actualActivityTypes = activity.getActivityTypeObjects();
             Set<ActivityType> result = requiredActivityTypes.stream()
@@ -155,15 +161,7 @@ public class ActivityService {
      */
     public List<ActivityType> getActivityTypesFromStringArray(String[] activityTypes) {
         if(activityTypes == null){return new ArrayList<>();}
-        List<ActivityType> types = new ArrayList<>();
-        for (String activityTypeString : activityTypes) {
-            ActivityType type = typeRepo.getByActivityTypeName(activityTypeString);
-            if (type == null) {
-                throw new IllegalArgumentException();
-            }
-            types.add(type);
-        }
-        return types;
+        return typeRegistry.getActivityTypes(Arrays.asList(activityTypes));
     }
 
 
@@ -173,39 +171,42 @@ public class ActivityService {
      * @param activityId the activity to delete.
      * @return if activity exists then it deletes it and returns true. False otherwise.
      */
+    @Transactional
     public boolean delete(Long activityId, Long profileId) {
         if (activityRepo.existsById(activityId)) {
-            Profile profile = getModelObjectById(profileRepo, profileId);
+            deleteAll(List.of(activityId), profileId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Deletes the given activities, notifying the members of each one that it was deleted. The rows referencing the
+     * activities are removed with one bulk statement per table, so the number of statements does not depend on the
+     * number of members or participations.
+     *
+     * @param activityIds the ids of the activities to delete, which must exist
+     * @param profileId   the id of the profile deleting the activities
+     * @return the number of rows deleted, including the activities themselves
+     */
+    @Transactional
+    public int deleteAll(List<Long> activityIds, Long profileId) {
+        if (activityIds.isEmpty()) {
+            return 0;
+        }
+        Profile profile = getModelObjectById(profileRepo, profileId);
+        for (Long activityId : activityIds) {
             Activity activity = getModelObjectById(activityRepo, activityId);
             notificationService.createNotification(NotificationType.ACTIVITY_REMOVED, activity, profile,
                     profile.getFullName() + " deleted an activity called " + activity.getActivityName() + ".");
-            notificationService.detachActivityFromNotifications(activity);
-
-            for (ActivityMembership membership : membershipRepo.findAll()) {
-                if (membership.getActivity().getId() == activityId) {
-                    Profile profile1 = membership.getProfile();
-                    membershipRepo.delete(membership);
-                    profile1.removeActivity(membership);
-                    membershipRepo.deleteActivityMembershipByProfileIdAndActivityId(profile1.getId(), activityId);
-                }
-            }
-            for (ActivityParticipation participation : participationRepo.findAll()) {
-                if (participation.getActivity().getId() == activityId) {
-                    Profile profile2 = participation.getProfile();
-                    participationRepo.delete(participation);
-                    profile2.removeParticipation(participation);
-                }
-            }
-
-            for (ActivityType activityType : typeRepo.findAll()) {
-                if (activityType.getActivities().contains(activity)) {
-                    activityType.removeActivity(activity);
-                }
-            }
-            activityRepo.deleteById(activityId);
-            return true;
         }
-        return false;
+        notificationService.detachActivitiesFromNotifications(activityIds);
+
+        int rowsDeleted = participationRepo.deleteAllByActivityIds(activityIds);
+        rowsDeleted += membershipRepo.deleteAllByActivityIds(activityIds);
+        rowsDeleted += activityRepo.deleteActivityTypeLinks(activityIds);
+        rowsDeleted += activityRepo.deleteActivitiesByIds(activityIds);
+        return rowsDeleted;
     }
 
     /**
@@ -215,6 +216,7 @@ public class ActivityService {
      * @param editedId   the ID of the profile having their membership deleted
      * @param activityId the ID of the activity we are removing them from
      */
+    @Transactional
     public void removeUserRoleFromActivity(Long editorId, Long editedId, Long activityId) {
         Optional<ActivityMembership> membershipResult = membershipRepo.findByActivity_IdAndProfile_Id(activityId, editedId);
         if (membershipResult.isEmpty()) {
@@ -230,20 +232,7 @@ public class ActivityService {
             throw new IllegalArgumentException(ActivityMessage.EDITING_CREATOR.toString());
         }
 
-        NotificationType type;
-        switch (membership.getRole()) {
-            case FOLLOWER:
-                type = NotificationType.ACTIVITY_FOLLOWER_REMOVED;
-                break;
-            case ORGANISER:
-                type = NotificationType.ACTIVITY_ORGANISER_REMOVED;
-                break;
-            case PARTICIPANT:
-                type = NotificationType.ACTIVITY_PARTICIPANT_REMOVED;
-                break;
-            default:
-                throw new IllegalArgumentException(ActivityMessage.EDITING_CREATOR.toString());
-        }
+        NotificationType type = NotificationService.getTypeForRemovingRole(membership.getRole());
 
         Profile editor = getModelObjectById(profileRepo, editorId);
         Profile edited = getModelObjectById(profileRepo, editedId);
@@ -257,33 +246,45 @@ public class ActivityService {
         }
         notificationService.createNotification(type, membership.getActivity(), editor, message);
 
-        membershipRepo.deleteActivityMembershipByProfileIdAndActivityId(editedId, activityId);
+        if (membershipRepo.deleteActivityMembershipByProfileIdAndActivityId(editedId, activityId) > 0) {
+            activityRepo.adjustRoleCount(Collections.singleton(activityId), membership.getRole(), -1);
+        }
     }
 
     /**
-     * Gets the number of people who have a role in an activity
+     * Gets the number of people who have a role in an activity, read from the counters kept on the activity
      *
      * @param activityId the ID of the activity we are counting the amount of roles for
      * @return the number of people who have different roles in an activity
      */
     public ActivityRoleCountResponse getRoleCounts(long activityId) {
-        long organisers = 0;
-        long followers = 0;
-        long participants = 0;
-        List<ActivityMembership> memberships = membershipRepo.findActivityMembershipsByActivity_Id(activityId);
-        if (memberships.isEmpty()) {
-            throw new IllegalArgumentException(ActivityResponseMessage.INVALID_ACTIVITY.toString());
-        }
-        for (ActivityMembership membership : memberships) {
-            if (membership.getRole().equals(ActivityMembership.Role.PARTICIPANT)) {
-                participants++;
-            } else if (membership.getRole().equals(ActivityMembership.Role.FOLLOWER)) {
-                followers++;
-            } else if (membership.getRole().equals(ActivityMembership.Role.ORGANISER)) {
-                organisers++;
+        return activityRepo.findRoleCountsById(activityId)
+                .orElseThrow(() -> new IllegalArgumentException(ActivityResponseMessage.INVALID_ACTIVITY.toString()));
+    }
+
+    /**
+     * Re-derives the role counters of every activity from their memberships in one transaction, for when they have
+     * drifted, such as after members were added without going through this service.
+     *
+     * @return the number of activities with at least one organiser, participant or follower
+     */
+    @Transactional
+    public int rebuildRoleCounts() {
+        return ActivityRoleCountHelper.rebuildRoleCounts(jdbcTemplate);
+    }
+
+    /**
+     * Takes a profile off the role counts of every activity they have a role in, before their memberships are deleted
+     * along with the profile. One update per role rather than one per membership.
+     *
+     * @param profileId the id of the profile being deleted
+     */
+    public void removeProfileFromRoleCounts(long profileId) {
+        for (ActivityMembership.Role role : ActivityMembership.Role.values()) {
+            if (role != ActivityMembership.Role.CREATOR) {
+                activityRepo.adjustRoleCount(membershipRepo.findActivityIdsByProfileIdAndRole(profileId, role), role, -1);
             }
         }
-        return new ActivityRoleCountResponse(organisers, participants, followers);
     }
 
     /**
@@ -313,36 +314,34 @@ public class ActivityService {
      * @param activityId the specified activity
      * @return true if membership was found and deleted, false otherwise
      */
+    @Transactional
     public boolean removeMembership(Long profileId, Long activityId) {
         //Check against other service method in merge - This seems to be a double-up with removeUserRoleFromActivity
-        if (activityRepo.existsById(activityId)) {
-            for (ActivityMembership membership : membershipRepo.findAll()) {
-                if (membership.getActivity().getId() == activityId && membership.getProfile().getId().equals(profileId)) {
-                    membershipRepo.delete(membership);
-                    membership.getProfile().removeActivity(membership);
-                    return true;
-                }
-            }
+        if (!activityRepo.existsById(activityId)) {
+            return false;
         }
-        return false;
+        Optional<ActivityMembership> membership = membershipRepo.findByActivity_IdAndProfile_Id(activityId, profileId);
+        if (membership.isEmpty() || membershipRepo.deleteActivityMembershipByProfileIdAndActivityId(profileId, activityId) == 0) {
+            return false;
+        }
+        activityRepo.adjustRoleCount(Collections.singleton(activityId), membership.get().getRole(), -1);
+        return true;
     }
 
     /**
-     * Returns all activities associated with the given profile by role.
+     * Returns the activities associated with the given profile by role. Private activities are only returned to their
+     * creator or an admin.
      *
-     * @param profileId The ID of the profile whose activities are being retrieved.
-     * @param role      The role of the user in the activity.
+     * @param profileId  The ID of the profile whose activities are being retrieved.
+     * @param role       The role of the user in the activity.
+     * @param startIndex the index of an activity to be returned; the page containing this activity is returned.
+     * @param count      the number of activities to return. The function may return less if the last page is returned.
+     * @param authLevel  the user's authorisation level.
      * @return A list of the given profile's activities by role.
      */
     public List<Activity> getActivitiesByProfileIdByRole(Long profileId, ActivityMembership.Role role, Integer startIndex, Integer count, Integer authLevel) {
-        List<Activity> userActivities = new ArrayList<>();
-        List<ActivityMembership> memberships = membershipRepo.findAllByProfileId(profileId);
-        for (ActivityMembership membership : memberships) {
-            if ((membership.getRole().equals(role) && (membership.getRole().equals(ActivityMembership.Role.CREATOR) || membership.getActivity().getPrivacyLevel() > 0 || authLevel < 2))) {
-                userActivities.add(membership.getActivity());
-            }
-        }
-        return userActivities.subList(Math.min(userActivities.size(), startIndex), Math.min(userActivities.size(), count + startIndex));
+        return membershipRepo.findActivitiesByProfileIdAndRoles(profileId, Collections.singleton(role),
+                authLevel < 2 ? 0 : 1, ActivityMembership.Role.CREATOR, PageRequest.of(startIndex / count, count));
     }
 
     /**
@@ -357,7 +356,8 @@ public class ActivityService {
     }
 
     /**
-     * Returns all the activities that the user is a creator or organiser of.
+     * Returns all the activities that the user is a creator or organiser of. Private activities are only returned to
+     * their creator or an admin.
      * @param count the number of activities to return. The function may return less if the last page is returned.
      * @param authLevel the user's authorisation level.
      * @param startIndex the index of an items to be returned; the page containing this item is returned.
@@ -365,43 +365,25 @@ public class ActivityService {
      * @return list of activities
      */
     public List<Activity> getActivitiesUserCanModify(Long profileId, Integer startIndex, Integer count, Integer authLevel) {
-        List<Activity> userActivities = new ArrayList<>();
-        List<ActivityMembership> memberships = membershipRepo.findAllByProfileId(profileId);
-        for (ActivityMembership membership : memberships) {
-            if (membership.getRole().equals(ActivityMembership.Role.CREATOR) ||
-                    (membership.getRole().equals(ActivityMembership.Role.ORGANISER) &&
-                            (membership.getActivity().getPrivacyLevel() > 0 || authLevel < 2))) {
-                userActivities.add(membership.getActivity());
-            }
-        }
-        return userActivities.subList(Math.min(userActivities.size(), startIndex), Math.min(userActivities.size(), count + startIndex));
+        return membershipRepo.findActivitiesByProfileIdAndRoles(profileId,
+                EnumSet.of(ActivityMembership.Role.CREATOR, ActivityMembership.Role.ORGANISER),
+                authLevel < 2 ? 0 : 1, ActivityMembership.Role.CREATOR, PageRequest.of(startIndex / count, count));
     }
 
     /**
-     * Returns all the new activities for the user to discover.
+     * Returns all the new activities for the user to discover. Admins can discover every activity, other users only
+     * public ones.
      *
      * @param profileId  refers to id of the user we want to check
-     * @param startIndex used to sublist the activities returned such that the startIndex is the lower limit.
-     * @param count      used to sublist the activities returned such that the startIndex+count is the upper limit.
+     * @param startIndex the index of an activity to be returned; the page containing this activity is returned.
+     * @param count      the number of activities to return. The function may return less if the last page is returned.
+     * @param authLevel  the user's authorisation level.
      * @return list of activities the user has no current association with.
      */
     public List<Activity> getNewActivities(Long profileId, Integer startIndex, Integer count, Integer authLevel) {
-        List<Activity> activities = new ArrayList<>();
-        List<Activity> results = authLevel < 2 ? activityRepo.findAll() : activityRepo.findAllByPrivacyLevel(2);
-        if (results != null) {
-            for (Activity activity : results) {
-                boolean profileAssociated = false;
-                for (ActivityMembership am : activity.getMembers()) {
-                    if (am.getProfile().getId().equals(profileId)) {
-                        profileAssociated = true;
-                    }
-                }
-                if (!profileAssociated) {
-                    activities.add(activity);
-                }
-            }
-        }
-        return activities.subList(Math.min(activities.size(), startIndex), Math.min(activities.size(), startIndex + count));
+        int minimumPrivacyLevel = authLevel < 2 ? 0 : 2;
+        return activityRepo.findActivitiesWithoutMember(profileId, minimumPrivacyLevel,
+                PageRequest.of(startIndex / count, count));
     }
 
 
@@ -502,7 +484,7 @@ public class ActivityService {
             throw new IllegalArgumentException(ActivityResponseMessage.MISSING_TYPES.toString());
         } else {
             for (ActivityType type : activity.retrieveActivityTypes()) {
-                if (!typeRepo.existsByActivityTypeName(type.getActivityTypeName())) {
+                if (!typeRegistry.exists(type.getActivityTypeName())) {
                     throw new IllegalArgumentException(ActivityResponseMessage.INVALID_TYPE.toString());
                 }
             }
@@ -516,6 +498,7 @@ public class ActivityService {
      * @param profileId    the id of the user we want to assign the role to.
      * @param activityRole the role we want to assign to the user for the activity.
      */
+    @Transactional
     public void addActivityRole(Long activityId, Long profileId, String activityRole) {
         Optional<Profile> optionalProfile = profileRepo.findById(profileId);
         Optional<Activity> optionalActivity = activityRepo.findById(activityId);
@@ -527,8 +510,11 @@ public class ActivityService {
         Profile profile = optionalProfile.get();
         Activity activity = optionalActivity.get();
         ActivityMembership.Role role = ActivityMembership.Role.valueOf(activityRole.toUpperCase());
+        Optional<ActivityMembership> existing = membershipRepo.findByActivity_IdAndProfile_Id(activityId, profileId);
+        existing.ifPresent(membership -> activityRepo.adjustRoleCount(Collections.singleton(activityId), membership.getRole(), -1));
         ActivityMembership activityMembership = new ActivityMembership(activity, profile, role);
         membershipRepo.save(activityMembership);
+        activityRepo.adjustRoleCount(Collections.singleton(activityId), role, 1);
         profile.addActivity(activityMembership);
         activity.addMember(activityMembership);
 
@@ -619,6 +605,7 @@ public class ActivityService {
      *                                  that id exists, or the given profile isn't a member of that activity), or if the profile is being set to or from
      *                                  the Creator role.
      */
+    @Transactional
     public void setProfileRole(long editedId, long editorId, long activityId, ActivityMembership.Role newRole) {
         if (newRole.equals(ActivityMembership.Role.CREATOR)) {
             throw new IllegalArgumentException(ActivityResponseMessage.EDITING_CREATOR.toString());
@@ -651,8 +638,10 @@ public class ActivityService {
         }
         message = String.format(template, edited.getFirstAndLastName(), activity.getActivityName(), roleName);
 
+        activityRepo.adjustRoleCount(Collections.singleton(activityId), membership.getRole(), -1);
         membership.setRole(newRole);
         membershipRepo.save(membership);
+        activityRepo.adjustRoleCount(Collections.singleton(activityId), newRole, 1);
         notificationService.createNotification(type, activity, editor, message);
     }
 
@@ -711,43 +700,71 @@ public class ActivityService {
 
     /**
      * Adds the members to the activity under the given roles. If the member is already a role, their role is changed.
+     * The profiles and their existing memberships are each found with one query and the new memberships are inserted
+     * in batches, so the number of round trips does not grow with the number of members.
      *
      * @param members    list of MembersRequest objects which contain member emails and their associated roles.
      * @param activityId id referring to the activity.
      * @throws IllegalArgumentException when activity or email is not found.
      */
+    @Transactional
     public void addMembers(List<MembersRequest> members, long activityId) {
+        long start = System.currentTimeMillis();
         Optional<Activity> optionalActivity = activityRepo.findById(activityId);
         if (optionalActivity.isEmpty()) {
             throw new IllegalArgumentException(ActivityMessage.ACTIVITY_NOT_FOUND.getMessage());
         }
-        Map<Profile, String> profiles = new HashMap<>();
+        // the addresses are looked up as requested, but the roles are keyed by the lower-cased address, as a case
+        // insensitive collation may return a stored address that differs in case from the requested one
+        Set<String> addresses = new HashSet<>();
+        Map<String, ActivityMembership.Role> roles = new HashMap<>();
         for (MembersRequest member : members) {
-            List<Profile> profilesWithEmail = profileRepo.findByPrimaryEmail(member.getEmail());
-            if (!profilesWithEmail.isEmpty()) {
-                profiles.put(profilesWithEmail.get(0), member.getRole());
-            } else {
-                throw new IllegalArgumentException(ActivityResponseMessage.INVALID_EMAILS.toString());
-            }
+            addresses.add(member.getEmail());
+            roles.put(member.getEmail().toLowerCase(), ActivityMembership.Role.valueOf(member.getRole().toUpperCase()));
+        }
+        if (roles.isEmpty()) {
+            return;
+        }
+        Map<Long, Profile> profiles = new HashMap<>();
+        Map<Long, ActivityMembership.Role> profileRoles = new HashMap<>();
+        for (Email email : profileRepo.findPrimaryEmailsByAddresses(addresses)) {
+            profiles.put(email.getProfile().getId(), email.getProfile());
+            profileRoles.put(email.getProfile().getId(), roles.get(email.getAddress().toLowerCase()));
+        }
+        if (profiles.size() != roles.size()) {
+            throw new IllegalArgumentException(ActivityResponseMessage.INVALID_EMAILS.toString());
+        }
+
+        Map<Long, ActivityMembership> existing = new HashMap<>();
+        for (ActivityMembership membership : membershipRepo.findAllByActivityIdAndProfileIds(activityId, profiles.keySet())) {
+            existing.put(membership.getProfile().getId(), membership);
         }
         Activity activity = optionalActivity.get();
-        for (Map.Entry<Profile, String> entry : profiles.entrySet()) {
-            Profile profile = entry.getKey();
-            String roleName = entry.getValue();
-            Optional<ActivityMembership> optionalMembership = membershipRepo.findByActivity_IdAndProfile_Id(profile.getId(), activityId);
-            ActivityMembership.Role role = ActivityMembership.Role.valueOf(roleName.toUpperCase());
-            ActivityMembership membership;
-            if (optionalMembership.isPresent()) {
-                membership = optionalMembership.get();
+        List<ActivityMembership> added = new ArrayList<>();
+        long[] roleChanges = new long[ActivityMembership.Role.values().length];
+        for (Map.Entry<Long, ActivityMembership.Role> entry : profileRoles.entrySet()) {
+            ActivityMembership.Role role = entry.getValue();
+            ActivityMembership membership = existing.get(entry.getKey());
+            if (membership == null) {
+                added.add(new ActivityMembership(activity, profiles.get(entry.getKey()), role));
+            } else if (membership.getRole() != role) {
+                roleChanges[membership.getRole().ordinal()]--;
                 membership.setRole(role);
             } else {
-                membership = new ActivityMembership(activity, profile, role);
+                continue;
             }
-            membershipRepo.save(membership);
-            profile.addActivity(membership);
-            activity.addMember(membership);
-            profileRepo.save(profile);
+            roleChanges[role.ordinal()]++;
         }
+        membershipRepo.insertAll(added);
+        long organisers = roleChanges[ActivityMembership.Role.ORGANISER.ordinal()];
+        long participants = roleChanges[ActivityMembership.Role.PARTICIPANT.ordinal()];
+        long followers = roleChanges[ActivityMembership.Role.FOLLOWER.ordinal()];
+        if (organisers != 0 || participants != 0 || followers != 0) {
+            activityRepo.adjustRoleCounts(Collections.singleton(activityId), organisers, participants, followers);
+        }
+        membershipRepo.flush();
+        System.out.println("-----Added " + profiles.size() + " members to activity " + activityId + " (" + added.size() +
+                " new) in " + (System.currentTimeMillis() - start) + " ms-----");
     }
 
     /**
@@ -886,18 +903,41 @@ public class ActivityService {
 
 
     /**
-     * Method to clear all memberships that have a specified role
+     * Method to clear all memberships that have a specified role. The memberships are deleted with one statement and
+     * the remaining members are sent a single notification saying how many were removed.
      *
+     * @param editorID    the ID of the profile clearing the role, who must be an admin or an organiser or creator of
+     *                    the activity
      * @param activityId  the ID of the activity being cleared
      * @param roleToClear the ENUM String of the role to clear
+     * @throws IllegalArgumentException if the activity does not exist or the role is not one that can be cleared
+     * @throws AccessControlException if the editor does not have permission to remove members
      */
+    @Transactional
     public void clearActivityRoleList(Long editorID, Long activityId, String roleToClear) {
-        List<ActivityMemberProfileResponse> memberships = getActivityMembers(activityId);
-        for (ActivityMemberProfileResponse membership : memberships) {
-            if (membership.getRole().name().equals(roleToClear)) {
-                removeUserRoleFromActivity(editorID, membership.getId(), activityId);
-            }
+        if (!activityRepo.existsById(activityId)) {
+            throw new IllegalArgumentException(ActivityResponseMessage.INVALID_ACTIVITY.toString());
         }
+        ActivityMembership.Role role = ActivityMembership.Role.valueOf(roleToClear);
+        if (role == ActivityMembership.Role.CREATOR) {
+            throw new IllegalArgumentException(ActivityMessage.EDITING_CREATOR.toString());
+        }
+        if (!canChangeRole(editorID, -1, activityId, null)) {
+            throw new AccessControlException("No permission");
+        }
+
+        int removed = membershipRepo.deleteAllByActivityIdAndRole(activityId, role);
+        if (removed == 0) {
+            return;
+        }
+        activityRepo.adjustRoleCount(Collections.singleton(activityId), role, -removed);
+        Activity activity = getModelObjectById(activityRepo, activityId);
+        Profile editor = getModelObjectById(profileRepo, editorID);
+        String roleName = role.toString().toLowerCase() + (removed == 1 ? "" : "s");
+        String message = String.format("%s removed %d %s from the activity %s", editor.getFirstAndLastName(), removed,
+                roleName, activity.getActivityName());
+        notificationService.createNotification(NotificationService.getTypeForRemovingRole(role), activity, editor,
+                message);
     }
 
     /**
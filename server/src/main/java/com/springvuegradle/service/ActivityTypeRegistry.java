@@ -0,0 +1,194 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.model.ActivityType;
+import com.springvuegradle.repositories.ActivityTypeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Keeps the names and ids of the activity types in memory, so checking a type exists or finding its id does not
+ * query the database. There are only a few types and they rarely change, so every change replaces the whole
+ * snapshot, and readers never lock.
+ *
+ * Each type also has an ordinal, its position when the types are ordered by id, and the masks of the types' bits are
+ * kept so searches can be turned into activity type masks without loading the types. The snapshot is loaded again
+ * whenever an activity type is saved or deleted, and again once the transaction that saved or deleted it commits or
+ * rolls back.
+ */
+@Service
+public class ActivityTypeRegistry {
+
+    /**
+     * The activity types at one point in time, never changed once built.
+     */
+    private static class Snapshot {
+        private final long changeCount;
+        private final List<String> names;
+        private final Map<String, Integer> ordinals;
+        private final Map<String, Long> masks;
+        private final long[] ids;
+
+        private Snapshot(long changeCount, List<ActivityType> types) {
+            this.changeCount = changeCount;
+            List<String> typeNames = new ArrayList<>(types.size());
+            Map<String, Integer> typeOrdinals = new HashMap<>();
+            Map<String, Long> typeMasks = new HashMap<>();
+            ids = new long[types.size()];
+            for (ActivityType type : types) {
+                typeOrdinals.put(type.getActivityTypeName(), typeNames.size());
+                if (type.hasMaskBit()) {
+                    typeMasks.put(type.getActivityTypeName(), ActivityType.maskOf(List.of(type)));
+                }
+                ids[typeNames.size()] = type.getId();
+                typeNames.add(type.getActivityTypeName());
+            }
+            names = Collections.unmodifiableList(typeNames);
+            ordinals = Collections.unmodifiableMap(typeOrdinals);
+            masks = Collections.unmodifiableMap(typeMasks);
+        }
+    }
+
+    private final ActivityTypeRepository typeRepo;
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ActivityTypeRegistry(ActivityTypeRepository typeRepo) {
+        this.typeRepo = typeRepo;
+    }
+
+    /**
+     * Loads the activity types when the application starts.
+     */
+    @PostConstruct
+    public void refresh() {
+        reload();
+    }
+
+    /**
+     * Returns the current snapshot, loading the activity types again if one has been saved or deleted since.
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (isOutdated(current)) {
+            synchronized (this) {
+                current = isOutdated(snapshot) ? reload() : snapshot;
+            }
+        }
+        return current;
+    }
+
+    private boolean isOutdated(Snapshot current) {
+        return current == null || current.changeCount != ActivityType.getChangeCount();
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot loaded = new Snapshot(ActivityType.getChangeCount(), typeRepo.findAll(Sort.by("id")));
+        snapshot = loaded;
+        return loaded;
+    }
+
+    public boolean exists(String name) {
+        return current().ordinals.containsKey(name);
+    }
+
+    /**
+     * Returns the position of an activity type when the types are ordered by id.
+     * @param name the name of the activity type
+     * @return the ordinal of the type, or -1 if there is no type with the name
+     */
+    public int getOrdinal(String name) {
+        Integer ordinal = current().ordinals.get(name);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Returns the name of the activity type with the given ordinal.
+     * @param ordinal the ordinal of the type
+     * @return the name of the type
+     * @throws IndexOutOfBoundsException if there is no type with the ordinal
+     */
+    public String getName(int ordinal) {
+        return current().names.get(ordinal);
+    }
+
+    /**
+     * Combines the mask bits of the named activity types, for matching them against the activity type masks of
+     * profiles and activities.
+     * @param names the names of the activity types
+     * @return the mask, or null if one of the types does not exist or has no mask bit
+     */
+    public Long getMask(Collection<String> names) {
+        Snapshot current = current();
+        long mask = 0;
+        for (String name : names) {
+            Long bit = current.masks.get(name);
+            if (bit == null) {
+                return null;
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    public List<String> getNames() {
+        return current().names;
+    }
+
+    public int size() {
+        return current().names.size();
+    }
+
+    /**
+     * Returns the activity types with the given names in the order they are given, fetched with a single query so
+     * they can be attached to a profile or activity.
+     * @param names the names of the activity types
+     * @return the activity types, without duplicates
+     * @throws IllegalArgumentException if there is no activity type with one of the names
+     */
+    public List<ActivityType> getActivityTypes(Collection<String> names) {
+        Snapshot current = current();
+        Map<Long, String> ids = new LinkedHashMap<>();
+        for (String name : names) {
+            Integer ordinal = current.ordinals.get(name);
+            if (ordinal == null) {
+                throw new IllegalArgumentException("Activity type " + name + " does not exist.");
+            }
+            ids.put(current.ids[ordinal], name);
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ActivityType> types = new HashMap<>();
+        for (ActivityType type : typeRepo.findAllById(ids.keySet())) {
+            types.put(type.getId(), type);
+        }
+        List<ActivityType> result = new ArrayList<>(ids.size());
+        for (Map.Entry<Long, String> id : ids.entrySet()) {
+            ActivityType type = types.get(id.getKey());
+            if (type == null) {
+                throw new IllegalArgumentException("Activity type " + id.getValue() + " does not exist.");
+            }
+            result.add(type);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the activity types stored in the database with the same names as the given ones, which may have been
+     * read from a request.
+     * @param activityTypes the activity types to look up
+     * @return the stored activity types
+     * @throws IllegalArgumentException if one of the activity types does not exist
+     */
+    public Set<ActivityType> resolve(Collection<ActivityType> activityTypes) {
+        List<String> names = new ArrayList<>(activityTypes.size());
+        for (ActivityType activityType : activityTypes) {
+            names.add(activityType.getActivityTypeName());
+        }
+        return new HashSet<>(getActivityTypes(names));
+    }
+}
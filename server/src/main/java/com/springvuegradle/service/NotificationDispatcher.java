@@ -0,0 +1,206 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.dto.responses.NotificationFanOutMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers notifications to their recipients off the request thread. Each notification is queued with the ids of its
+ * recipients once the transaction that created it commits, and worker threads insert the rows of the recipients'
+ * inboxes in JDBC batches. When the queue is full the caller delivers the notification itself, so notifications are never
+ * dropped and a flood of notifications slows down the requests creating them rather than growing the queue forever.
+ *
+ * Recipients deleted before their notification is delivered are skipped.
+ *
+ * Delivery happens in the caller when notifications.async.enabled is false, which the tests use as they check the
+ * recipients straight after creating a notification.
+ */
+@Service
+public class NotificationDispatcher {
+
+    /**
+     * Inserts the row through the profile table so a recipient deleted since the notification was dispatched, such as
+     * the creator of an activity deleted along with their profile, inserts nothing rather than failing the foreign key
+     * and rolling back the rows of every other recipient.
+     */
+    private static final String INSERT_RECIPIENT =
+            "INSERT INTO notification_inbox (recipient_id, notification_id, created_at, is_read) " +
+            "SELECT p.id, ?, ?, false FROM profile p WHERE p.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int workerCount;
+    private final int batchSize;
+    private final BlockingQueue<FanOutTask> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final AtomicLong tasksQueued = new AtomicLong();
+    private final AtomicLong tasksCompleted = new AtomicLong();
+    private final AtomicLong tasksRunByCaller = new AtomicLong();
+    private final AtomicLong tasksFailed = new AtomicLong();
+    private final AtomicLong recipientsInserted = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private volatile long lastLagMillis;
+
+    /**
+     * A notification waiting to be delivered, with the time it was queued so the lag can be measured.
+     */
+    private static class FanOutTask {
+        private final long notificationId;
+        private final Timestamp createdAt;
+        private final List<Long> recipientIds;
+        private final long queuedAt = System.currentTimeMillis();
+
+        private FanOutTask(long notificationId, Timestamp createdAt, List<Long> recipientIds) {
+            this.notificationId = notificationId;
+            this.createdAt = createdAt;
+            this.recipientIds = recipientIds;
+        }
+    }
+
+    @Autowired
+    public NotificationDispatcher(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  @Value("${notifications.async.enabled:true}") boolean enabled,
+                                  @Value("${notifications.async.workers:2}") int workerCount,
+                                  @Value("${notifications.async.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${notifications.async.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // a new transaction is needed when the caller delivers from afterCommit, as the committed one is still bound
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "notification-dispatcher-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Stops taking notifications from the queue once it is empty, waiting a few seconds for the workers to finish.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Delivers a saved notification to the given recipients once the current transaction commits, or straight away
+     * if there is no transaction.
+     * @param notificationId the id of the saved notification
+     * @param timeStamp the time stamp of the notification, which orders the recipients' inboxes
+     * @param recipientIds the ids of the profiles receiving the notification
+     */
+    public void dispatch(long notificationId, OffsetDateTime timeStamp, List<Long> recipientIds) {
+        if (recipientIds.isEmpty()) {
+            return;
+        }
+        FanOutTask task = new FanOutTask(notificationId, Timestamp.from(timeStamp.toInstant()), recipientIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(task);
+                }
+            });
+        } else {
+            enqueue(task);
+        }
+    }
+
+    private void enqueue(FanOutTask task) {
+        tasksQueued.incrementAndGet();
+        if (!running || !queue.offer(task)) {
+            tasksRunByCaller.incrementAndGet();
+            deliver(task);
+        }
+    }
+
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            try {
+                FanOutTask task = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    deliver(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void deliver(FanOutTask task) {
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_RECIPIENT, task.recipientIds, batchSize,
+                    (statement, recipientId) -> {
+                        statement.setLong(1, task.notificationId);
+                        statement.setTimestamp(2, task.createdAt);
+                        statement.setLong(3, recipientId);
+                    }));
+            recipientsInserted.addAndGet(task.recipientIds.size());
+            tasksCompleted.incrementAndGet();
+        } catch (RuntimeException e) {
+            tasksFailed.incrementAndGet();
+            System.out.println("-----Failed to deliver notification " + task.notificationId + ": " + e.getMessage() + "-----");
+        }
+        long lag = System.currentTimeMillis() - task.queuedAt;
+        lastLagMillis = lag;
+        totalLagMillis.addAndGet(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    /**
+     * Returns the current queue depth, throughput counters and the lag between queueing and delivering notifications.
+     * @return a snapshot of the dispatcher's metrics
+     */
+    public NotificationFanOutMetrics getMetrics() {
+        FanOutTask oldest = queue.peek();
+        long delivered = tasksCompleted.get() + tasksFailed.get();
+        return new NotificationFanOutMetrics(enabled, queue.size(), queue.size() + queue.remainingCapacity(),
+                workers.size(), tasksQueued.get(), tasksCompleted.get(), tasksRunByCaller.get(), tasksFailed.get(),
+                recipientsInserted.get(), lastLagMillis, maxLagMillis.get(),
+                delivered == 0 ? 0 : totalLagMillis.get() / delivered,
+                oldest == null ? 0 : System.currentTimeMillis() - oldest.queuedAt);
+    }
+}
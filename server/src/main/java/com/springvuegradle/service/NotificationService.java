@@ -1,5 +1,6 @@
 package com.springvuegradle.service;
 
+import com.springvuegradle.dto.responses.NotificationFanOutMetrics;
 import com.springvuegradle.enums.ActivityMessage;
 import com.springvuegradle.enums.NotificationType;
 import com.springvuegradle.enums.ProfileErrorMessage;
@@ -9,8 +10,13 @@ import com.springvuegradle.model.Notification;
 import com.springvuegradle.model.Profile;
 import com.springvuegradle.repositories.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -20,82 +26,290 @@ import java.util.*;
 public class NotificationService {
 
     private NotificationRepository notificationRepo;
+    private InboxEntryRepository inboxRepo;
     private ProfileRepository profileRepository;
+    private ActivityMembershipRepository membershipRepo;
+    private NotificationDispatcher dispatcher;
+    private NotificationStreamService streamService;
+    private long coalesceWindowSeconds;
+
+    /**
+     * Repeats of these notifications by the same editor on the same activity are merged into one notification while
+     * they are inside the coalescing window.
+     */
+    private static final Set<NotificationType> COALESCED_TYPES = EnumSet.of(NotificationType.ACTIVITY_EDITED,
+            NotificationType.ACTIVITY_PRIVACY_CHANGED, NotificationType.PARTICIPATION_EDITED);
+
+    /**
+     * The merged notifications of these types say how many times the event happened, the others only keep the
+     * latest message as it describes the current state.
+     */
+    private static final Set<NotificationType> COUNTED_TYPES = EnumSet.of(NotificationType.ACTIVITY_EDITED,
+            NotificationType.PARTICIPATION_EDITED);
 
     /**
      * Autowired constructor for Spring to create an ActivityService and inject the correct dependencies.
      * @param notificationRepo             the notification repository being injected.
+     * @param inboxRepo                    the repository of the recipients' inboxes.
+     * @param membershipRepo               the activity membership repository used to look up recipients.
+     * @param dispatcher                   delivers notifications to their recipients off the request thread.
+     * @param streamService                pushes notifications to the recipients connected to the stream.
+     * @param coalesceWindowSeconds        how long repeated edits are merged into the first notification for, 0 to
+     *                                     never merge them.
      */
     @Autowired
     public NotificationService(NotificationRepository notificationRepo,
-                               ProfileRepository profileRepo) {
+                               InboxEntryRepository inboxRepo,
+                               ProfileRepository profileRepo,
+                               ActivityMembershipRepository membershipRepo,
+                               NotificationDispatcher dispatcher,
+                               NotificationStreamService streamService,
+                               @Value("${notifications.coalesce-window-seconds:60}") long coalesceWindowSeconds) {
         this.notificationRepo = notificationRepo;
+        this.inboxRepo = inboxRepo;
         this.profileRepository = profileRepo;
+        this.membershipRepo = membershipRepo;
+        this.dispatcher = dispatcher;
+        this.streamService = streamService;
+        this.coalesceWindowSeconds = coalesceWindowSeconds;
     }
 
-    /** Inserts the given Notification into the database
+    /** Inserts the given Notification into the database and delivers it to every member of the activity. Delivery
+     * happens off the request thread when the notification dispatcher is enabled, and members connected to the
+     * notification stream are sent the notification once it is committed. Edits repeated inside the
+     * coalescing window are merged into the notification of the first edit instead.
      * @param notificationType the type of notification
      * @param activity the activity the notification belongs to
      * @param notificationCreator the profile the notification is for
      * @param message string message the contains the content of the notification
      */
     public void createNotification(NotificationType notificationType, Activity activity, Profile notificationCreator, String message){
+        if (coalesce(notificationType, activity, notificationCreator, message)) {
+            return;
+        }
         Notification notification = new Notification(message, activity, notificationCreator, notificationType);
-        for (ActivityMembership membership: activity.getMembers()) {
-            notification.addRecipient(membership.getProfile());
+        boolean dispatched = dispatcher != null && dispatcher.isEnabled();
+        if (!dispatched) {
+            for (ActivityMembership membership: activity.getMembers()) {
+                notification.addRecipient(membership.getProfile());
+            }
         }
         activity.addNotification(notification);
-        notificationCreator.addNotification(notification);
         notificationRepo.save(notification);
+        if (dispatched) {
+            List<Long> recipientIds = membershipRepo.findProfileIdsByActivityId(activity.getId());
+            dispatcher.dispatch(notification.getId(), notification.getTimeStamp(), recipientIds);
+            publish(notification, recipientIds);
+        } else if (streamService != null && streamService.hasSubscribers()) {
+            List<Long> recipientIds = new ArrayList<>();
+            for (Profile recipient : notification.getRecipients()) {
+                recipientIds.add(recipient.getId());
+            }
+            publish(notification, recipientIds);
+        }
+    }
+
+    private void publish(Notification notification, List<Long> recipientIds) {
+        if (streamService != null) {
+            streamService.publish(notification, recipientIds);
+        }
     }
 
     /**
-     * Removes the activity from all the notifications connected to the given activity, required in order to delete the
-     * activity.
-     *
-     * @param activity contains a reference to all the notifications it is connected to.
+     * Merges a repeated event into the latest notification the editor created of the same type for the same activity,
+     * if there is one inside the coalescing window. The merged notification keeps its place in the feed and its
+     * recipients, and becomes unread again.
+     * @return true if the event was merged, false if a new notification is needed
      */
-    public void detachActivityFromNotifications(Activity activity) {
-        for (Notification notification: activity.getNotifications()) {
-            if (notification.getActivityId().equals(activity.getId())) {
-                notification.setActivity(null);
-                notificationRepo.save(notification);
-            }
+    private boolean coalesce(NotificationType notificationType, Activity activity, Profile editor, String message) {
+        if (coalesceWindowSeconds <= 0 || !COALESCED_TYPES.contains(notificationType) || editor.getId() == null) {
+            return false;
+        }
+        OffsetDateTime since = OffsetDateTime.now().minusSeconds(coalesceWindowSeconds);
+        List<Notification> latest = notificationRepo.findLatestSince(activity.getId(), editor.getId(), notificationType,
+                since, PageRequest.of(0, 1));
+        if (latest.isEmpty()) {
+            return false;
+        }
+        Notification notification = latest.get(0);
+        notification.setOccurrences(notification.getOccurrences() + 1);
+        notification.setMessage(COUNTED_TYPES.contains(notificationType)
+                ? getCoalescedMessage(message, notification.getOccurrences())
+                : message);
+        notificationRepo.save(notification);
+        if (inboxRepo != null) {
+            inboxRepo.markUnread(notification.getId());
         }
+        if (streamService != null && streamService.hasSubscribers() && membershipRepo != null) {
+            publish(notification, membershipRepo.findProfileIdsByActivityId(activity.getId()));
+        }
+        return true;
     }
 
-    public void detachProfileFromNotifications(Profile profile) {
-        for (Notification notification: profile.getNotifications()) {
-            if (notification.getEditorId().equals(profile.getId())) {
-                notification.setEditor(null);
-                notificationRepo.save(notification);
-            }
+    /**
+     * Adds the number of times an event happened to the first line of its message, so "X edited Y." becomes
+     * "X edited Y 4 times.".
+     * @param message the message of the latest event
+     * @param occurrences the number of times the event happened
+     * @return the message of the merged notification
+     */
+    public static String getCoalescedMessage(String message, int occurrences) {
+        int lineEnd = message.indexOf('\n');
+        String firstLine = lineEnd < 0 ? message : message.substring(0, lineEnd);
+        String rest = lineEnd < 0 ? "" : message.substring(lineEnd);
+        if (firstLine.endsWith(".")) {
+            return firstLine.substring(0, firstLine.length() - 1) + " " + occurrences + " times." + rest;
         }
+        return firstLine + " " + occurrences + " times" + rest;
     }
 
     /**
-     * Gets all notifications related to the user
+     * Returns the queue depth, throughput and lag of notification delivery.
+     * @return a snapshot of the notification dispatcher's metrics
+     */
+    public NotificationFanOutMetrics getFanOutMetrics() {
+        return dispatcher.getMetrics();
+    }
+
+    /**
+     * Removes the activities from all the notifications connected to them, required in order to delete the
+     * activities.
+     *
+     * @param activityIds the ids of the activities being deleted.
+     * @return the number of notifications changed
+     */
+    public int detachActivitiesFromNotifications(Collection<Long> activityIds) {
+        return notificationRepo.detachActivitiesFromNotifications(activityIds);
+    }
+
+    /**
+     * Removes the profile as the editor of the notifications it created and empties its inbox, required in order
+     * to delete the profile.
+     *
+     * @param profileId the id of the profile being deleted.
+     * @return the number of notification and inbox rows changed
+     */
+    public int detachProfileFromNotifications(long profileId) {
+        return notificationRepo.detachProfileFromNotifications(profileId)
+                + inboxRepo.deleteAllByRecipientId(profileId);
+    }
+
+    /**
+     * Gets a page of the notifications related to the user
      * @param profileId the users ID which is used to get the notifications
+     * @param count the number of notifications on the page
+     * @param startIndex the index of the first notification on the page
      * @return a list of notifications sorted by time (latest first, earliest last)
      */
     public List<Notification> getSortedNotifications(Long profileId, int count, int startIndex) {
-        Optional<Profile> result = profileRepository.findById(profileId);
-        if (result.isPresent()) {
-            Profile targetProfile = result.get();
-            Set<Notification> notificationSet = targetProfile.getNotifications();
-            List<Notification> notificationList = new ArrayList<>(notificationSet);
-            sortNotifications(notificationList);
-            return notificationList.subList(Math.min(notificationList.size(), startIndex), Math.min(notificationList.size(), count + startIndex));
+        if (profileRepository.existsById(profileId)) {
+            return inboxRepo.findNotificationsByRecipient(profileId, startIndex, count);
+        }
+        throw new IllegalArgumentException(ProfileErrorMessage.PROFILE_NOT_FOUND.getMessage());
+    }
+
+    /**
+     * Gets the page of notifications related to the user that follows the notification the cursor points to. Each
+     * page costs the same to fetch however far through the notifications it is.
+     * @param profileId the users ID which is used to get the notifications
+     * @param count the number of notifications on the page
+     * @param cursor the cursor of the last notification already seen, as returned by getCursor
+     * @return a list of notifications sorted by time (latest first, earliest last)
+     * @throws IllegalArgumentException if the profile does not exist
+     */
+    public List<Notification> getSortedNotificationsBefore(Long profileId, int count, String cursor) {
+        if (profileRepository.existsById(profileId)) {
+            return inboxRepo.findNotificationsByRecipientBefore(profileId, getCursorTimeStamp(cursor),
+                    getCursorId(cursor), PageRequest.of(0, count));
+        }
+        throw new IllegalArgumentException(ProfileErrorMessage.PROFILE_NOT_FOUND.getMessage());
+    }
+
+    /**
+     * Connects the user to the stream of their new notifications. A client reconnecting with the cursor of the last
+     * notification it received is first sent the notifications it missed.
+     * @param profileId the users ID
+     * @param lastEventId the cursor of the last notification the client received, or null when first connecting
+     * @return the emitter the notifications are sent through
+     * @throws IllegalArgumentException if the profile does not exist
+     */
+    public SseEmitter streamNotifications(Long profileId, String lastEventId) {
+        if (profileRepository.existsById(profileId)) {
+            if (lastEventId == null) {
+                return streamService.subscribe(profileId, null);
+            }
+            OffsetDateTime timeStamp = getCursorTimeStamp(lastEventId);
+            long id = getCursorId(lastEventId);
+            return streamService.subscribe(profileId, limit ->
+                    inboxRepo.findNotificationsByRecipientAfter(profileId, timeStamp, id, PageRequest.of(0, limit)));
+        }
+        throw new IllegalArgumentException(ProfileErrorMessage.PROFILE_NOT_FOUND.getMessage());
+    }
+
+    private static OffsetDateTime getCursorTimeStamp(String cursor) {
+        return OffsetDateTime.parse(cursor.substring(0, cursor.lastIndexOf(',')));
+    }
+
+    private static long getCursorId(String cursor) {
+        return Long.parseLong(cursor.substring(cursor.lastIndexOf(',') + 1));
+    }
+
+    /**
+     * Counts the notifications in the user's inbox that they have not read yet.
+     * @param profileId the users ID
+     * @return the number of unread notifications
+     * @throws IllegalArgumentException if the profile does not exist
+     */
+    public long getUnreadCount(Long profileId) {
+        if (profileRepository.existsById(profileId)) {
+            return inboxRepo.countUnreadByRecipient(profileId);
+        }
+        throw new IllegalArgumentException(ProfileErrorMessage.PROFILE_NOT_FOUND.getMessage());
+    }
+
+    /**
+     * Marks notifications in the user's inbox as read. Every notification is marked when no ids are given.
+     * @param profileId the users ID
+     * @param notificationIds the ids of the notifications to mark, or null or empty to mark all of them
+     * @return the number of notifications that were unread and are now read
+     * @throws IllegalArgumentException if the profile does not exist
+     */
+    public int markRead(Long profileId, List<Long> notificationIds) {
+        if (profileRepository.existsById(profileId)) {
+            if (notificationIds == null || notificationIds.isEmpty()) {
+                return inboxRepo.markAllRead(profileId);
+            }
+            return inboxRepo.markRead(profileId, notificationIds);
         }
         throw new IllegalArgumentException(ProfileErrorMessage.PROFILE_NOT_FOUND.getMessage());
     }
 
     /**
-     * Customer sorter which sorts a list of notifications by date (latest first, earliest last)
-     * @param notificationsList the list of notifications to be sorted
+     * Returns the cursor for the page of notifications after the given notification, in the form timestamp,id.
+     * @param notification the last notification on a page
+     * @return the cursor to pass to getSortedNotificationsBefore
      */
-    private void sortNotifications(List<Notification> notificationsList) {
-        Collections.sort(notificationsList, (o1, o2) -> o2.getTimeStamp().compareTo(o1.getTimeStamp()));
+    public static String getCursor(Notification notification) {
+        return notification.getTimeStamp() + "," + notification.getId();
+    }
+
+    /**
+     * Checks that a cursor passed back by a client is in the form produced by getCursor.
+     * @param cursor the cursor to check
+     * @return true if the cursor can be used to get a page of notifications
+     */
+    public static boolean isValidCursor(String cursor) {
+        int separator = cursor.lastIndexOf(',');
+        if (separator < 0) {
+            return false;
+        }
+        try {
+            OffsetDateTime.parse(cursor.substring(0, separator));
+            Long.parseLong(cursor.substring(separator + 1));
+            return true;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return false;
+        }
     }
 
     /**
@@ -124,6 +338,29 @@ public class NotificationService {
         return notificationType;
     }
 
+    /**
+     * Returns the notification type generated when activity memberships with the given role are removed.
+     * @param role The given role as an enum, which cannot be the creator.
+     * @return the notification type generated when activity memberships with the given role are removed.
+     */
+    public static NotificationType getTypeForRemovingRole(ActivityMembership.Role role) {
+        NotificationType notificationType;
+        switch (role) {
+            case FOLLOWER:
+                notificationType = NotificationType.ACTIVITY_FOLLOWER_REMOVED;
+                break;
+            case ORGANISER:
+                notificationType = NotificationType.ACTIVITY_ORGANISER_REMOVED;
+                break;
+            case PARTICIPANT:
+                notificationType = NotificationType.ACTIVITY_PARTICIPANT_REMOVED;
+                break;
+            default:
+                throw new IllegalArgumentException(ActivityMessage.INVALID_ROLE.getMessage());
+        }
+        return notificationType;
+    }
+
     /**
      * Returns the notification type generated when an activity membership is created with the given role.
      * @param roleName The name of the given role.
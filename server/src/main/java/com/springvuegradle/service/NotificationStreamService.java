@@ -0,0 +1,231 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.dto.responses.NotificationEvent;
+import com.springvuegradle.model.Notification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Pushes new notifications to the recipients that are connected to the notification stream, using server-sent events.
+ * A connection holds no thread while it is idle. Each connection has a bounded queue of events waiting to be sent;
+ * a connection that falls behind far enough to fill it is closed, and the client reconnects with the id of the last
+ * event it received to catch up from the database.
+ */
+@Service
+public class NotificationStreamService {
+
+    static final String NOTIFICATION_EVENT = "notification";
+    static final String RESET_EVENT = "reset";
+
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    private final int maxConnectionsPerProfile;
+    private final int replayLimit;
+    private final ExecutorService senders;
+    private final Map<Long, List<Connection>> connections = new ConcurrentHashMap<>();
+
+    /**
+     * A connected client and the events waiting to be sent to it. Only one sender drains a connection at a time so
+     * its events are sent in order.
+     */
+    private class Connection {
+        private final long profileId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Connection(long profileId) {
+            this.profileId = profileId;
+            this.emitter = new SseEmitter(timeoutMillis);
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void close() {
+            remove(this);
+            if (!closed) {
+                closed = true;
+                emitter.complete();
+            }
+        }
+    }
+
+    @Autowired
+    public NotificationStreamService(@Value("${notifications.stream.timeout-millis:1800000}") long timeoutMillis,
+                                     @Value("${notifications.stream.queue-capacity:100}") int queueCapacity,
+                                     @Value("${notifications.stream.max-connections-per-profile:5}") int maxConnectionsPerProfile,
+                                     @Value("${notifications.stream.replay-limit:100}") int replayLimit,
+                                     @Value("${notifications.stream.senders:2}") int senderCount) {
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+        this.maxConnectionsPerProfile = maxConnectionsPerProfile;
+        this.replayLimit = replayLimit;
+        AtomicInteger senderNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderCount, runnable -> {
+            Thread sender = new Thread(runnable, "notification-stream-sender-" + senderNumber.getAndIncrement());
+            sender.setDaemon(true);
+            return sender;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+        for (List<Connection> profileConnections : connections.values()) {
+            for (Connection connection : new ArrayList<>(profileConnections)) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Connects a client to the notifications of a profile. The oldest connection of the profile is closed if it
+     * already has the maximum number of connections.
+     * @param profileId the id of the profile receiving the notifications
+     * @param missed returns up to the given number of notifications the client missed while it was disconnected,
+     *               oldest first, or null if the client is connecting for the first time. If there are more than
+     *               the replay limit the client is sent a reset event, telling it to reload its notifications.
+     * @return the emitter to return from the request
+     */
+    public SseEmitter subscribe(long profileId, IntFunction<List<Notification>> missed) {
+        Connection connection = new Connection(profileId);
+        connection.emitter.onCompletion(() -> remove(connection));
+        connection.emitter.onTimeout(connection::close);
+        connection.emitter.onError(error -> connection.close());
+
+        List<Connection> profileConnections = connections.compute(profileId, (id, existing) -> {
+            List<Connection> updated = existing == null ? new CopyOnWriteArrayList<>() : existing;
+            updated.add(connection);
+            return updated;
+        });
+        while (profileConnections.size() > maxConnectionsPerProfile) {
+            profileConnections.get(0).close();
+        }
+
+        // replayed after connecting so nothing published in between is lost, clients ignore ids they have seen
+        if (missed != null) {
+            List<Notification> notifications = missed.apply(replayLimit + 1);
+            if (notifications.size() > replayLimit) {
+                connection.offer(SseEmitter.event().name(RESET_EVENT).data(""));
+            } else {
+                for (Notification notification : notifications) {
+                    connection.offer(toEvent(new NotificationEvent(notification)));
+                }
+            }
+        }
+        return connection.emitter;
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.profileId, (id, profileConnections) -> {
+            profileConnections.remove(connection);
+            return profileConnections.isEmpty() ? null : profileConnections;
+        });
+    }
+
+    /**
+     * Returns true if any client is connected, so callers can skip looking up recipients when nobody is listening.
+     * @return true if there is at least one connection
+     */
+    public boolean hasSubscribers() {
+        return !connections.isEmpty();
+    }
+
+    public int getConnectionCount() {
+        int count = 0;
+        for (List<Connection> profileConnections : connections.values()) {
+            count += profileConnections.size();
+        }
+        return count;
+    }
+
+    /**
+     * Pushes a notification to its connected recipients once the current transaction commits, or straight away if
+     * there is no transaction.
+     * @param notification the saved notification
+     * @param recipientIds the ids of the profiles receiving the notification
+     */
+    public void publish(Notification notification, Collection<Long> recipientIds) {
+        if (connections.isEmpty()) {
+            return;
+        }
+        NotificationEvent event = new NotificationEvent(notification);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    push(event, recipientIds);
+                }
+            });
+        } else {
+            push(event, recipientIds);
+        }
+    }
+
+    private void push(NotificationEvent event, Collection<Long> recipientIds) {
+        for (Long recipientId : recipientIds) {
+            List<Connection> profileConnections = connections.get(recipientId);
+            if (profileConnections != null) {
+                for (Connection connection : profileConnections) {
+                    connection.offer(toEvent(event));
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the event sent for a notification. Its id is the notification's cursor, in the same form as
+     * NotificationService.getCursor, which the client sends back as the Last-Event-ID header when it reconnects.
+     */
+    private static SseEmitter.SseEventBuilder toEvent(NotificationEvent event) {
+        return SseEmitter.event()
+                .id(event.getTimeStamp() + "," + event.getId())
+                .name(NOTIFICATION_EVENT)
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+}
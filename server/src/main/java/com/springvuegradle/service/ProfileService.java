@@ -13,7 +13,9 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -66,6 +68,9 @@ public class ProfileService {
     @Autowired
     private ActivityParticipationRepository participationRepo;
 
+    @Autowired
+    private ActivityTypeRegistry activityTypeRegistry;
+
     /**
      * Updates the location associated with a users profile
      * @param newLocation the new location for the users profile
@@ -154,7 +159,12 @@ public class ProfileService {
         }
 
         if (Boolean.FALSE.equals(FieldValidationHelper.isNullOrEmpty(criteria.getActivityTypes()))) {
-            spec = spec.and(ProfileSpecifications.activityTypesContains(criteria.getActivityTypes(), criteria.getSearchMethod()));
+            Long mask = activityTypeRegistry.getMask(Arrays.asList(criteria.getActivityTypes()));
+            if (mask != null) {
+                spec = spec.and(ProfileSpecifications.activityTypeMaskMatches(mask, criteria.getSearchMethod()));
+            } else {
+                spec = spec.and(ProfileSpecifications.activityTypesContains(criteria.getActivityTypes(), criteria.getSearchMethod()));
+            }
         }
         return profileRepository.findAll(spec, request);
     }
@@ -162,9 +172,12 @@ public class ProfileService {
     /**
      * Deletes a profile and related data from the repository given that it exists in the database.
      * Checks if the profile about to be deleted is the default admin and stops if it is the default admin.
+     * The activities the profile created are deleted with it. Each table referencing the profile is cleared with one
+     * bulk statement, all in one transaction, and the number of rows deleted is reported in the response.
      * @param id the id of the profile to be deleted
      * @return http response code and feedback message on the result of the delete operation
      */
+    @Transactional
     public ResponseEntity<String> deleteProfile(Long id) {
         Optional<Profile> result = repo.findById(id);
         if (Boolean.TRUE.equals(result.isPresent())) {
@@ -172,35 +185,26 @@ public class ProfileService {
             if (profileToDelete.getAuthLevel() == 0) {
                 return new ResponseEntity<>("Cannot delete default admin.", HttpStatus.FORBIDDEN);
             }
-            List<Activity> activitiesToDelete = membershipRepo.findAllActivitiesByProfileId(profileToDelete.getId(), ActivityMembership.Role.CREATOR);
-            for (Activity activity: activitiesToDelete) {
-                activityService.delete(activity.getId(), profileToDelete.getId());
-            }
-            deleteProfileLocation(id);
-
-            for (Email email: profileToDelete.retrieveEmails()) {
-                eRepo.delete(email);
+            ProfileLocation location = profileToDelete.getProfileLocation();
+
+            List<Long> activitiesToDelete = membershipRepo.findActivityIdsByProfileIdAndRole(id, ActivityMembership.Role.CREATOR);
+            int activityRows = activityService.deleteAll(activitiesToDelete, id);
+            int notificationRows = notificationService.detachProfileFromNotifications(id);
+            int participationRows = participationRepo.deleteAllByProfileId(id);
+            activityService.removeProfileFromRoleCounts(id);
+            int membershipRows = actMemRepo.deleteAllByProfileId(id);
+            int emailRows = eRepo.deleteAllByProfileId(id);
+            int linkRows = repo.deletePassportLinks(id) + repo.deleteActivityTypeLinks(id);
+            repo.deleteProfileById(id);
+            if (location != null) {
+                profileLocationRepository.deleteLocationById(location.getId());
             }
-            for (ActivityMembership membership: profileToDelete.getActivities()) {
-                actMemRepo.delete(membership);
-            }
-            for (ActivityParticipation participation: profileToDelete.getParticipations()) {
-                participationRepo.delete(participation);
-            }
-            notificationService.detachProfileFromNotifications(profileToDelete);
-            
-            for (Notification notification: profileToDelete.getNotifications()) {
-                notification.removeRecipient(profileToDelete);
-                notificationRepository.save(notification);
-            }
-
-            profileToDelete.setNotifications(null);
-            profileToDelete.setActivities(null);
-            profileToDelete.setPassports(null);
-            profileToDelete.setActivityTypes(null);
 
-            repo.delete(profileToDelete);
-            return new ResponseEntity<>("The Profile does exist in the database.", HttpStatus.OK);
+            String message = String.format("The Profile does exist in the database. Deleted %d activities (%d rows), " +
+                            "%d participations, %d memberships, %d emails, %d passport and activity type links and " +
+                            "updated %d notification rows.", activitiesToDelete.size(), activityRows, participationRows,
+                    membershipRows, emailRows, linkRows, notificationRows);
+            return new ResponseEntity<>(message, HttpStatus.OK);
         } else {
             return new ResponseEntity<>("The profile does not exist in the database.", HttpStatus.NOT_FOUND);
         }
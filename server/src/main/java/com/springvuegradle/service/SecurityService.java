@@ -1,5 +1,7 @@
 package com.springvuegradle.service;
 
+import com.springvuegradle.enums.AuthLevel;
+import com.springvuegradle.utilities.JwtPrincipal;
 import com.springvuegradle.utilities.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,22 @@ public class SecurityService {
      * @return true if the user can edit the profile, false otherwise
      */
     public boolean checkEditPermission(String token, Long id) {
-        return jwtUtil.validateToken(token) && (jwtUtil.extractPermission(token) == 0 || jwtUtil.extractPermission(token) == 1 || (jwtUtil.extractId(token).equals(id)));
+        return canEdit(jwtUtil.getPrincipal(token), id);
+    }
+
+    /**
+     * Checks if a notification stream token gives permission to read the profile's notification stream, under the
+     * same rules as checkEditPermission.
+     * @param streamToken the token from the notification stream's URL, issued by JwtUtil.generateStreamToken
+     * @param id the ID of the profile whose notifications are streamed
+     * @return true if the user can read the profile's notification stream, false otherwise
+     */
+    public boolean checkStreamPermission(String streamToken, Long id) {
+        return canEdit(jwtUtil.getPrincipal(streamToken, JwtUtil.NOTIFICATION_STREAM_SCOPE), id);
+    }
+
+    private boolean canEdit(JwtPrincipal principal, Long id) {
+        return principal != null && (principal.getAuthLevel() == AuthLevel.DEFAULT_ADMIN.getLevel()
+                || principal.getAuthLevel() == AuthLevel.ADMIN.getLevel() || principal.getId().equals(id));
     }
 }
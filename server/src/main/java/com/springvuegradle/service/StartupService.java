@@ -0,0 +1,269 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.dto.responses.ReadinessResponse;
+import com.springvuegradle.dto.responses.StartupTaskStatus;
+import com.springvuegradle.enums.StartupTaskState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks that seed and backfill the database when the server starts, in parallel on a small pool of threads
+ * instead of one after another before the server can be used. Critical tasks start straight away and the server
+ * reports itself ready once they are all done, while deferred tasks wait until the application has started and the
+ * critical tasks have finished so they do not hold up getting back into rotation.
+ *
+ * When startup.fast-start is false every task starts straight away and the caller is expected to wait for them with
+ * awaitAll, which the tests use as they rely on the seeded data being there.
+ */
+@Service
+public class StartupService {
+
+    /**
+     * A piece of startup work. Unlike a Runnable it can throw the checked exceptions of the helpers it calls.
+     */
+    @FunctionalInterface
+    public interface StartupAction {
+        void run() throws Exception;
+    }
+
+    private static class Task {
+        private final String name;
+        private final boolean critical;
+        private final StartupAction action;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile StartupTaskState state = StartupTaskState.PENDING;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile String error;
+
+        private Task(String name, boolean critical, StartupAction action) {
+            this.name = name;
+            this.critical = critical;
+            this.action = action;
+        }
+
+        private boolean isFinished() {
+            return state == StartupTaskState.DONE || state == StartupTaskState.FAILED;
+        }
+
+        private long getDurationMillis() {
+            if (state == StartupTaskState.PENDING) {
+                return 0;
+            }
+            long end = isFinished() ? finishedAt : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(end - startedAt);
+        }
+    }
+
+    private final boolean fastStart;
+    private final ExecutorService executor;
+    private final List<Task> tasks = new CopyOnWriteArrayList<>();
+    private final List<Task> deferred = new ArrayList<>();
+    private boolean applicationReady;
+    private boolean readyLogged;
+
+    @Autowired
+    public StartupService(@Value("${startup.fast-start:true}") boolean fastStart,
+                          @Value("${startup.threads:4}") int threads) {
+        this.fastStart = fastStart;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "startup-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean isFastStart() {
+        return fastStart;
+    }
+
+    /**
+     * Starts a task straight away.
+     * @param name the name of the task, shown by the readiness endpoint and in the logs
+     * @param critical whether the server is only ready once the task is done
+     * @param action the work to do
+     * @return completes when the task has finished, exceptionally if it failed
+     */
+    public CompletableFuture<Void> submit(String name, boolean critical, StartupAction action) {
+        return submitAfter(CompletableFuture.completedFuture(null), name, critical, action);
+    }
+
+    /**
+     * Starts a task once another one has finished, for tasks that rely on data seeded by another. If the task it
+     * waits on fails the task is marked as failed without being run.
+     * @param dependency completes when the task to wait on has finished
+     * @param name the name of the task, shown by the readiness endpoint and in the logs
+     * @param critical whether the server is only ready once the task is done
+     * @param action the work to do
+     * @return completes when the task has finished, exceptionally if it failed
+     */
+    public CompletableFuture<Void> submitAfter(CompletableFuture<?> dependency, String name, boolean critical,
+                                               StartupAction action) {
+        Task task = new Task(name, critical, action);
+        tasks.add(task);
+        dependency.whenComplete((result, error) -> {
+            if (error == null) {
+                executor.execute(() -> run(task));
+            } else {
+                task.startedAt = System.nanoTime();
+                finish(task, StartupTaskState.FAILED, "A task it relies on failed");
+            }
+        });
+        return task.completion;
+    }
+
+    /**
+     * Registers a task that is not needed to serve requests, which starts once the application has started and all of
+     * the critical tasks have finished.
+     * @param name the name of the task, shown by the readiness endpoint and in the logs
+     * @param action the work to do
+     * @return completes when the task has finished, exceptionally if it failed
+     */
+    public CompletableFuture<Void> defer(String name, StartupAction action) {
+        Task task = new Task(name, false, action);
+        tasks.add(task);
+        synchronized (this) {
+            deferred.add(task);
+        }
+        startDeferredTasks();
+        return task.completion;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        synchronized (this) {
+            applicationReady = true;
+        }
+        logIfReady();
+        startDeferredTasks();
+    }
+
+    /**
+     * Waits for every task registered so far to finish.
+     * @throws IllegalStateException if any of the tasks failed
+     */
+    public void awaitAll() {
+        for (Task task : tasks) {
+            try {
+                task.completion.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Startup task " + task.name + " failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The server is ready once the application has started and every critical task is done.
+     * @return whether the server is ready to serve requests
+     */
+    public synchronized boolean isReady() {
+        if (!applicationReady) {
+            return false;
+        }
+        for (Task task : tasks) {
+            if (task.critical && task.state != StartupTaskState.DONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the server is ready along with the progress of each startup task.
+     * @return the readiness of the server
+     */
+    public ReadinessResponse getReadiness() {
+        List<String> pending = new ArrayList<>();
+        List<StartupTaskStatus> statuses = new ArrayList<>();
+        for (Task task : tasks) {
+            if (!task.isFinished()) {
+                pending.add(task.name);
+            }
+            statuses.add(new StartupTaskStatus(task.name, task.critical, task.state, task.getDurationMillis(),
+                    task.error));
+        }
+        return new ReadinessResponse(isReady(), pending, statuses);
+    }
+
+    private void run(Task task) {
+        task.startedAt = System.nanoTime();
+        task.state = StartupTaskState.RUNNING;
+        System.out.println("-----Starting " + task.name + "-----");
+        try {
+            task.action.run();
+            finish(task, StartupTaskState.DONE, null);
+        } catch (Exception e) {
+            finish(task, StartupTaskState.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(Task task, StartupTaskState state, String error) {
+        task.finishedAt = System.nanoTime();
+        task.error = error;
+        task.state = state;
+        if (state == StartupTaskState.DONE) {
+            System.out.println("-----Finished " + task.name + " in " + task.getDurationMillis() + " ms-----");
+            task.completion.complete(null);
+        } else {
+            System.out.println("-----Failed " + task.name + " after " + task.getDurationMillis() + " ms: " + error + "-----");
+            task.completion.completeExceptionally(new IllegalStateException(error));
+        }
+        logIfReady();
+        startDeferredTasks();
+    }
+
+    private void logIfReady() {
+        synchronized (this) {
+            if (readyLogged || !isReady()) {
+                return;
+            }
+            readyLogged = true;
+        }
+        System.out.println("-----Ready to serve requests " + ManagementFactory.getRuntimeMXBean().getUptime() +
+                " ms after the JVM started-----");
+    }
+
+    private void startDeferredTasks() {
+        List<Task> starting;
+        synchronized (this) {
+            if (fastStart && !(applicationReady && criticalTasksFinished())) {
+                return;
+            }
+            starting = new ArrayList<>(deferred);
+            deferred.clear();
+        }
+        for (Task task : starting) {
+            executor.execute(() -> run(task));
+        }
+    }
+
+    private boolean criticalTasksFinished() {
+        for (Task task : tasks) {
+            if (task.critical && !task.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.ActivityMembership;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helper class for the role counters of activities. ActivityService keeps them up to date as members are added,
+ * removed and change roles, this derives them from the memberships. The counters of activities saved before they
+ * existed are null, and are filled in once on startup. An admin can rebuild all of them through ActivityService if
+ * members were added without going through the service.
+ */
+public class ActivityRoleCountHelper {
+
+    private static final String UNCOUNTED = " WHERE organiser_count IS NULL OR participant_count IS NULL " +
+            "OR follower_count IS NULL";
+
+    private ActivityRoleCountHelper() {
+        throw new IllegalStateException("Utility class should not be instantiated");
+    }
+
+    /**
+     * Recalculates the organiser, participant and follower counts of every activity. Must be called inside a
+     * transaction.
+     * @param jdbcTemplate used to count the memberships and update the activities.
+     * @return the number of activities with at least one organiser, participant or follower.
+     */
+    public static int rebuildRoleCounts(JdbcTemplate jdbcTemplate) {
+        return countRoles(jdbcTemplate, "");
+    }
+
+    /**
+     * Counts the roles of the activities whose counters have never been filled in, in one transaction. Once every
+     * activity has been counted this only checks there are none left, so it can run on every start.
+     * @param jdbcTemplate used to count the memberships and update the activities.
+     * @param transactionManager used to count and update the activities in one transaction.
+     * @return the number of activities counted with at least one organiser, participant or follower.
+     */
+    public static int fillMissingRoleCounts(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        Integer counted = new TransactionTemplate(transactionManager).execute(status ->
+                countRoles(jdbcTemplate, UNCOUNTED));
+        if (counted != null && counted > 0) {
+            System.out.println("-----Filled in the role counts of " + counted + " activities-----");
+        }
+        return counted == null ? 0 : counted;
+    }
+
+    /**
+     * Recalculates the role counts of the activities matching the where clause with one grouped count of their
+     * memberships, then writes them back in batches. The activities are locked before the memberships are counted, so
+     * role changes still being committed are counted once they have, and the ones that start during the count wait
+     * for it rather than being overwritten.
+     */
+    private static int countRoles(JdbcTemplate jdbcTemplate, String where) {
+        List<Long> activityIds = jdbcTemplate.queryForList("SELECT id FROM activity" + where + " FOR UPDATE",
+                Long.class);
+        if (activityIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, long[]> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT am.activity_fk, am.role, COUNT(*) FROM activity_membership am " +
+                        "JOIN activity a ON a.id = am.activity_fk" + where + " GROUP BY am.activity_fk, am.role",
+                resultSet -> {
+                    int index = counterIndex(ActivityMembership.Role.values()[resultSet.getInt(2)]);
+                    if (index >= 0) {
+                        counts.computeIfAbsent(resultSet.getLong(1), id -> new long[3])[index] = resultSet.getLong(3);
+                    }
+                });
+        List<Object[]> updates = new ArrayList<>(activityIds.size());
+        for (Long activityId : activityIds) {
+            long[] roles = counts.getOrDefault(activityId, new long[3]);
+            updates.add(new Object[]{roles[0], roles[1], roles[2], activityId});
+        }
+        jdbcTemplate.batchUpdate("UPDATE activity SET organiser_count = ?, participant_count = ?, follower_count = ? " +
+                "WHERE id = ?", updates);
+        return counts.size();
+    }
+
+    private static int counterIndex(ActivityMembership.Role role) {
+        switch (role) {
+            case ORGANISER:
+                return 0;
+            case PARTICIPANT:
+                return 1;
+            case FOLLOWER:
+                return 2;
+            default:
+                return -1;
+        }
+    }
+}
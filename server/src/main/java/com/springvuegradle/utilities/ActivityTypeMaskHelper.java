@@ -0,0 +1,63 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.ActivityType;
+import com.springvuegradle.repositories.ActivityTypeRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helper class for the activity type masks of profiles and activities. Each activity type has a mask bit, and each
+ * profile and activity stores the bits of its types in one column, so searching by activity type does not need a
+ * join for every type searched for.
+ */
+public class ActivityTypeMaskHelper {
+
+    private ActivityTypeMaskHelper() {
+        throw new IllegalStateException("Utility class should not be instantiated");
+    }
+
+    /**
+     * Gives every activity type without a mask bit one, e.g. types saved before the masks existed, and if any were
+     * given one rebuilds the masks of every profile and activity to match.
+     * @param activityTypeRepository the activity type repository to be updated.
+     * @param jdbcTemplate used to rebuild the masks in batches.
+     * @return the number of activity types given a mask bit.
+     */
+    public static int updateActivityTypeMasks(ActivityTypeRepository activityTypeRepository, JdbcTemplate jdbcTemplate) {
+        List<ActivityType> types = activityTypeRepository.findAllByMaskBitIsNullOrderByIdAsc();
+        if (types.isEmpty()) {
+            return 0;
+        }
+        activityTypeRepository.saveAll(types);
+        rebuildMasks(jdbcTemplate);
+        return types.size();
+    }
+
+    /**
+     * Recalculates the activity type mask of every profile and activity from the join tables.
+     * @param jdbcTemplate used to read the join tables and update the masks.
+     */
+    public static void rebuildMasks(JdbcTemplate jdbcTemplate) {
+        rebuildMasks(jdbcTemplate, "profile", "profile_activity_type", "profile_id");
+        rebuildMasks(jdbcTemplate, "activity", "activity_activity_type", "activity_id");
+    }
+
+    private static void rebuildMasks(JdbcTemplate jdbcTemplate, String table, String joinTable, String joinColumn) {
+        Map<Long, Long> masks = new HashMap<>();
+        jdbcTemplate.query("SELECT j." + joinColumn + ", t.mask_bit FROM " + joinTable + " j " +
+                        "JOIN activity_type t ON t.id = j.activity_type_id WHERE t.mask_bit < " + ActivityType.MAX_MASK_BITS,
+                resultSet -> {
+                    masks.merge(resultSet.getLong(1), 1L << resultSet.getInt(2), (a, b) -> a | b);
+                });
+        jdbcTemplate.update("UPDATE " + table + " SET activity_type_mask = 0 WHERE activity_type_mask <> 0");
+        List<Object[]> updates = new ArrayList<>(masks.size());
+        for (Map.Entry<Long, Long> mask : masks.entrySet()) {
+            updates.add(new Object[]{mask.getValue(), mask.getKey()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET activity_type_mask = ? WHERE id = ?", updates);
+    }
+}
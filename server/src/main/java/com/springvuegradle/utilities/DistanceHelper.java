@@ -0,0 +1,151 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.Activity;
+
+import java.util.List;
+
+/**
+ * Helper class for calculating great-circle distances with the haversine formula. Besides single distances it can
+ * score a whole batch of points against one search center, working on primitive arrays whose radians and cosines are
+ * calculated once per point, so no objects are allocated per point.
+ */
+public class DistanceHelper {
+
+    private static final double EARTH_RADIUS_METRES = LocationIndexHelper.EARTH_RADIUS_METRES;
+
+    private DistanceHelper() {
+        throw new IllegalStateException("Utility class should not be instantiated");
+    }
+
+    /**
+     * A batch of points stored as parallel arrays of latitude and longitude in radians, along with the cosine of each
+     * latitude. Points with a missing coordinate are stored as NaN and never match a search.
+     */
+    public static class Points {
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final double[] cosLatitudes;
+
+        /**
+         * Creates a batch of points from arrays of coordinates in degrees.
+         * @param latitudeDegrees the latitude of each point
+         * @param longitudeDegrees the longitude of each point, in the same order as the latitudes
+         */
+        public Points(double[] latitudeDegrees, double[] longitudeDegrees) {
+            if (latitudeDegrees.length != longitudeDegrees.length) {
+                throw new IllegalArgumentException("Every point must have both a latitude and a longitude");
+            }
+            int size = latitudeDegrees.length;
+            latitudes = new double[size];
+            longitudes = new double[size];
+            cosLatitudes = new double[size];
+            for (int i = 0; i < size; i++) {
+                latitudes[i] = Math.toRadians(latitudeDegrees[i]);
+                longitudes[i] = Math.toRadians(longitudeDegrees[i]);
+                cosLatitudes[i] = Math.cos(latitudes[i]);
+            }
+        }
+
+        /**
+         * Creates a batch of points from the coordinates of a list of activities, in the same order as the list.
+         * @param activities the activities whose locations are being stored
+         * @return the locations of the activities
+         */
+        public static Points of(List<Activity> activities) {
+            double[] latitudeDegrees = new double[activities.size()];
+            double[] longitudeDegrees = new double[activities.size()];
+            for (int i = 0; i < activities.size(); i++) {
+                Activity activity = activities.get(i);
+                boolean hasLocation = activity.getLatitude() != null && activity.getLongitude() != null;
+                latitudeDegrees[i] = hasLocation ? activity.getLatitude() : Double.NaN;
+                longitudeDegrees[i] = hasLocation ? activity.getLongitude() : Double.NaN;
+            }
+            return new Points(latitudeDegrees, longitudeDegrees);
+        }
+
+        public int size() {
+            return latitudes.length;
+        }
+    }
+
+    /**
+     * Calculates the distance between two points, without taking height into account.
+     * @param latitude1 the latitude of the first point in degrees
+     * @param longitude1 the longitude of the first point in degrees
+     * @param latitude2 the latitude of the second point in degrees
+     * @param longitude2 the longitude of the second point in degrees
+     * @return the distance between the points in metres
+     */
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double lat1 = Math.toRadians(latitude1);
+        double lat2 = Math.toRadians(latitude2);
+        double a = haversine(lat1, Math.cos(lat1), Math.toRadians(longitude1), lat2, Math.cos(lat2), Math.toRadians(longitude2));
+        return centralAngle(a) * EARTH_RADIUS_METRES;
+    }
+
+    /**
+     * Calculates the distance from a search center to every point in a batch that is strictly closer than the given
+     * distance. Points are first rejected if their latitude alone puts them out of range, then by comparing the
+     * haversine of their central angle against that of the search radius, so the inverse trigonometry is only done
+     * for points in range.
+     * @param points the points being searched
+     * @param latitude the latitude of the search center in degrees
+     * @param longitude the longitude of the search center in degrees
+     * @param maximumDistance the radius of the search in metres
+     * @param distances filled with the distance in metres of each point in range, or NaN for points out of range. Must
+     *                  be at least as long as the batch of points.
+     * @return the number of points in range
+     */
+    public static int distancesWithin(Points points, double latitude, double longitude, double maximumDistance, double[] distances) {
+        int size = points.size();
+        if (distances.length < size) {
+            throw new IllegalArgumentException("Distance array is smaller than the batch of points");
+        }
+        double centerLatitude = Math.toRadians(latitude);
+        double centerLongitude = Math.toRadians(longitude);
+        double cosCenterLatitude = Math.cos(centerLatitude);
+        double maximumAngle = maximumDistance / EARTH_RADIUS_METRES;
+        // a central angle of pi or more reaches every point on the globe, so no point can be rejected early
+        boolean bounded = maximumAngle < Math.PI;
+        double sinHalfMaximumAngle = Math.sin(maximumAngle / 2);
+        double maximumHaversine = sinHalfMaximumAngle * sinHalfMaximumAngle;
+
+        double[] latitudes = points.latitudes;
+        double[] longitudes = points.longitudes;
+        double[] cosLatitudes = points.cosLatitudes;
+        int matches = 0;
+        for (int i = 0; i < size; i++) {
+            distances[i] = Double.NaN;
+            if (bounded && !(Math.abs(latitudes[i] - centerLatitude) < maximumAngle)) {
+                // the distance along a meridian is a lower bound on the distance, this also rejects missing points
+                continue;
+            }
+            double a = haversine(centerLatitude, cosCenterLatitude, centerLongitude, latitudes[i], cosLatitudes[i], longitudes[i]);
+            if (bounded && !(a < maximumHaversine)) {
+                continue;
+            }
+            double pointDistance = centralAngle(a) * EARTH_RADIUS_METRES;
+            if (pointDistance < maximumDistance) {
+                distances[i] = pointDistance;
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Calculates the haversine of the central angle between two points given in radians.
+     */
+    private static double haversine(double lat1, double cosLat1, double lon1, double lat2, double cosLat2, double lon2) {
+        double sinHalfLatitude = Math.sin((lat2 - lat1) / 2);
+        double sinHalfLongitude = Math.sin((lon2 - lon1) / 2);
+        return sinHalfLatitude * sinHalfLatitude + cosLat1 * cosLat2 * sinHalfLongitude * sinHalfLongitude;
+    }
+
+    /**
+     * Converts the haversine of a central angle back into the angle in radians.
+     */
+    private static double centralAngle(double a) {
+        return 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
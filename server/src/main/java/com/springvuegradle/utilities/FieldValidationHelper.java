@@ -1,9 +1,9 @@
 package com.springvuegradle.utilities;
 
 import com.springvuegradle.model.*;
-import com.springvuegradle.repositories.ActivityTypeRepository;
 import com.springvuegradle.repositories.EmailRepository;
 import com.springvuegradle.repositories.PassportCountryRepository;
+import com.springvuegradle.service.ActivityTypeRegistry;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -49,12 +49,12 @@ public class FieldValidationHelper {
      * @param newProfile object we want to complete verification on
      * @param edit_mode  indicates whether the method is being called from the update profile method to skip email authentication
      * @param pcRepo     the passport country repository
-     * @param aRepo      the activity type repository
+     * @param activityTypeRegistry the activity type registry
      * @param eRepo      the email repository
      * @return a string containing all the errors in the form, if any, else it will return an empty string
      */
     public static String verifyProfile(Profile newProfile, boolean edit_mode, PassportCountryRepository pcRepo,
-                                       ActivityTypeRepository aRepo, EmailRepository eRepo) {
+                                       ActivityTypeRegistry activityTypeRegistry, EmailRepository eRepo) {
         StringBuilder errorBuilder = new StringBuilder();
         if (newProfile.retrievePrimaryEmail().getAddress().isBlank() ||
                 newProfile.retrievePrimaryEmail().getAddress() == null) {
@@ -87,7 +87,7 @@ public class FieldValidationHelper {
         }
         if (!newProfile.getActivityTypeObjects().isEmpty()) {
             for (ActivityType activityType : newProfile.getActivityTypeObjects()) {
-                if (!aRepo.existsByActivityTypeName(activityType.getActivityTypeName())) {
+                if (!activityTypeRegistry.exists(activityType.getActivityTypeName())) {
                     errorBuilder.append(String.format("ActivityType %s does not exist in the database.%n", activityType.getActivityTypeName()));
                 }
             }
@@ -0,0 +1,37 @@
+package com.springvuegradle.utilities;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Verifies the token in the authorization header once per request and stores the user it was issued to on the
+ * request as a JwtPrincipal. Requests without a valid token are passed on unchanged, as each endpoint decides
+ * whether it needs one.
+ */
+@Component
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtUtil jwtUtil;
+
+    @Autowired
+    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        JwtPrincipal principal = jwtUtil.getPrincipal(request.getHeader("authorization"));
+        if (principal != null) {
+            request.setAttribute(JwtPrincipal.REQUEST_ATTRIBUTE, principal);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
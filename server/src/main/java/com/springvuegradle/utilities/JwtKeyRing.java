@@ -0,0 +1,200 @@
+package com.springvuegradle.utilities;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The keys tokens are signed and verified with, loaded from a PKCS12 keystore so every server sharing the keystore
+ * accepts the tokens the others issue, and tokens survive restarts. Each token names the key it was signed with in
+ * its kid header, which is the key's alias in the keystore.
+ *
+ * Keys are rotated by adding a new key to the keystore, which becomes the signing key unless jwt.keystore.active-key
+ * names another, and removing the old key once the tokens it signed have expired. Servers pick up the changed
+ * keystore within jwt.keystore.refresh-seconds, or straight away when they see a token signed with a key they do not
+ * have yet. A key can be added with:
+ *
+ * keytool -genseckey -alias 2020-06 -keyalg HmacSHA256 -keysize 256 -storetype PKCS12 -keystore jwt-keys.p12
+ *
+ * Without a keystore a random key is generated, so tokens only work on this server until it restarts.
+ */
+@Component
+public class JwtKeyRing {
+
+    static final String LOCAL_KEY_ID = "local";
+
+    /**
+     * Unknown key ids trigger at most one reload of the keystore a second.
+     */
+    private static final long MIN_FORCED_RELOAD_MILLIS = 1000;
+
+    /**
+     * The keys loaded at one time, replaced as a whole when the keystore is reloaded.
+     */
+    private static class Snapshot {
+        private final Map<String, SecretKey> keys;
+        private final String activeKeyId;
+        private final long lastModified;
+
+        private Snapshot(Map<String, SecretKey> keys, String activeKeyId, long lastModified) {
+            this.keys = keys;
+            this.activeKeyId = activeKeyId;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final Path path;
+    private final char[] password;
+    private final String activeAlias;
+    private final long refreshMillis;
+    private final AtomicLong revision = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile long nextRefresh;
+    private volatile long lastForcedReload;
+
+    @Autowired
+    public JwtKeyRing(@Value("${jwt.keystore.path:}") String path,
+                      @Value("${jwt.keystore.password:}") String password,
+                      @Value("${jwt.keystore.active-key:}") String activeAlias,
+                      @Value("${jwt.keystore.refresh-seconds:60}") long refreshSeconds) {
+        this.path = path == null || path.isBlank() ? null : Paths.get(path);
+        this.password = password == null ? new char[0] : password.toCharArray();
+        this.activeAlias = activeAlias == null || activeAlias.isBlank() ? null : activeAlias;
+        this.refreshMillis = refreshSeconds * 1000;
+        if (this.path == null) {
+            snapshot = new Snapshot(Map.of(LOCAL_KEY_ID, Keys.secretKeyFor(SignatureAlgorithm.HS256)), LOCAL_KEY_ID, 0);
+        } else {
+            snapshot = load();
+            nextRefresh = System.currentTimeMillis() + refreshMillis;
+        }
+    }
+
+    /**
+     * Creates a key ring holding a single random key, for when there is no keystore.
+     * @return the key ring
+     */
+    public static JwtKeyRing inMemory() {
+        return new JwtKeyRing(null, null, null, 0);
+    }
+
+    /**
+     * Returns the id and key new tokens are signed with.
+     * @return the alias of the signing key and the key
+     */
+    public Map.Entry<String, SecretKey> getSigningKey() {
+        refreshIfDue();
+        Snapshot current = snapshot;
+        return new AbstractMap.SimpleImmutableEntry<>(current.activeKeyId, current.keys.get(current.activeKeyId));
+    }
+
+    /**
+     * Returns the key a token was signed with, reloading the keystore if the key is not known, as another server may
+     * have started signing with a newly added key.
+     * @param keyId the kid header of the token
+     * @return the key, or null if there is no key with the id
+     */
+    public SecretKey getVerificationKey(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        refreshIfDue();
+        SecretKey key = snapshot.keys.get(keyId);
+        long now = System.currentTimeMillis();
+        if (key == null && path != null && now - lastForcedReload >= MIN_FORCED_RELOAD_MILLIS) {
+            lastForcedReload = now;
+            reload(true);
+            key = snapshot.keys.get(keyId);
+        }
+        return key;
+    }
+
+    public Set<String> getKeyIds() {
+        return snapshot.keys.keySet();
+    }
+
+    /**
+     * Returns a number that changes whenever a key is removed, so tokens verified with the removed key can be
+     * forgotten. Reloads the keystore first if it is due to be checked.
+     * @return the revision of the key ring
+     */
+    public long getRevision() {
+        refreshIfDue();
+        return revision.get();
+    }
+
+    private void refreshIfDue() {
+        if (path != null && System.currentTimeMillis() >= nextRefresh) {
+            reload(false);
+        }
+    }
+
+    /**
+     * Loads the keystore again if it changed, keeping the current keys if it cannot be read.
+     * @param force true to load the keystore even if its modification time has not changed
+     */
+    private synchronized void reload(boolean force) {
+        nextRefresh = System.currentTimeMillis() + refreshMillis;
+        try {
+            if (!force && Files.getLastModifiedTime(path).toMillis() == snapshot.lastModified) {
+                return;
+            }
+            Snapshot loaded = load();
+            if (!loaded.keys.keySet().containsAll(snapshot.keys.keySet())) {
+                revision.incrementAndGet();
+            }
+            snapshot = loaded;
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("-----Could not reload the JWT keystore, keeping the current keys: " + e.getMessage() + "-----");
+        }
+    }
+
+    /**
+     * Reads every secret key in the keystore. The signing key is the one named by jwt.keystore.active-key, or else
+     * the newest key.
+     * @return the keys in the keystore
+     * @throws IllegalStateException if the keystore cannot be read or has no usable keys
+     */
+    private Snapshot load() {
+        try (InputStream in = Files.newInputStream(path)) {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+            Map<String, SecretKey> keys = new HashMap<>();
+            String newestAlias = null;
+            Date newestDate = null;
+            for (String alias : Collections.list(keyStore.aliases())) {
+                Key key = keyStore.getKey(alias, password);
+                if (key instanceof SecretKey) {
+                    keys.put(alias, Keys.hmacShaKeyFor(key.getEncoded()));
+                    Date created = keyStore.getCreationDate(alias);
+                    if (newestDate == null || (created != null && created.after(newestDate))) {
+                        newestAlias = alias;
+                        newestDate = created;
+                    }
+                }
+            }
+            String activeKeyId = activeAlias != null ? activeAlias : newestAlias;
+            if (activeKeyId == null || !keys.containsKey(activeKeyId)) {
+                throw new IllegalStateException("No signing key " + (activeKeyId == null ? "" : activeKeyId + " ") + "in " + path);
+            }
+            System.out.println("-----Loaded JWT keys " + keys.keySet() + ", signing with " + activeKeyId + "-----");
+            return new Snapshot(Collections.unmodifiableMap(keys), activeKeyId, lastModified);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load the JWT keystore " + path + ": " + e.getMessage(), e);
+        }
+    }
+}
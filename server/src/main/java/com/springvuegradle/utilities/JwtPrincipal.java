@@ -0,0 +1,52 @@
+package com.springvuegradle.utilities;
+
+import java.util.Date;
+
+/**
+ * The user a verified token was issued to. JwtAuthenticationFilter stores it on the request under
+ * REQUEST_ATTRIBUTE, so controllers can read it with @RequestAttribute instead of parsing the token again.
+ */
+public class JwtPrincipal {
+
+    public static final String REQUEST_ATTRIBUTE = "jwtPrincipal";
+
+    private final Long id;
+    private final int authLevel;
+    private final Date expiry;
+
+    /**
+     * What the token may be used for, null for a token issued at login which can be used for everything.
+     */
+    private final String scope;
+
+    public JwtPrincipal(Long id, int authLevel, Date expiry) {
+        this(id, authLevel, expiry, null);
+    }
+
+    public JwtPrincipal(Long id, int authLevel, Date expiry, String scope) {
+        this.id = id;
+        this.authLevel = authLevel;
+        this.expiry = expiry;
+        this.scope = scope;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getAuthLevel() {
+        return authLevel;
+    }
+
+    public Date getExpiry() {
+        return expiry;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public boolean isExpired() {
+        return expiry != null && expiry.before(new Date());
+    }
+}
@@ -1,17 +1,16 @@
 package com.springvuegradle.utilities;
 
 import com.springvuegradle.model.Profile;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 import java.util.function.Function;
 
 
@@ -23,19 +22,88 @@ public class JwtUtil {
 
     public static final String PERMISSION_KEY = "authLevel";
 
-    SecretKey secretKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    public static final String SCOPE_KEY = "scope";
+
+    /**
+     * The scope of the tokens put in the URL of the notification stream, as a browser's EventSource cannot send the
+     * authorization header.
+     */
+    public static final String NOTIFICATION_STREAM_SCOPE = "notification-stream";
+
+    /**
+     * How long a token issued at login is valid for.
+     */
+    static final long TOKEN_LIFETIME_MILLIS = 1000 * 60 * 60 * 10;
+
+    /**
+     * How long a notification stream token is valid for. It only needs to last until the stream is opened, and being
+     * short lived limits the use of one leaked through a URL in a log.
+     */
+    public static final long STREAM_TOKEN_LIFETIME_MILLIS = 1000 * 60;
+
+    /**
+     * The number of verified tokens remembered, the least recently used token is forgotten first.
+     */
+    static final int VERIFIED_TOKEN_CACHE_SIZE = 10000;
+
+    private final JwtKeyRing keyRing;
+
+    private final JwtParser parser;
+
+    /**
+     * The revision of the key ring when the verified tokens were verified, they are forgotten when it changes.
+     */
+    private long verifiedRevision;
+
+    /**
+     * The users verified tokens were issued to, keyed by a hash of the token, so a token used again is not parsed
+     * and its signature is not checked again until it expires.
+     */
+    private final Map<String, JwtPrincipal> verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+            return size() > VERIFIED_TOKEN_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Creates a JwtUtil signing with a random key, for use without a keystore.
+     */
+    public JwtUtil() {
+        this(JwtKeyRing.inMemory());
+    }
+
+    /**
+     * Creates a JwtUtil that signs tokens with the key ring's signing key and verifies them with the key named in
+     * their kid header.
+     * @param keyRing the keys to sign and verify tokens with
+     */
+    @Autowired
+    public JwtUtil(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.verifiedRevision = keyRing.getRevision();
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                SecretKey key = keyRing.getVerificationKey(header.getKeyId());
+                if (key == null) {
+                    throw new JwtException("Unknown signing key " + header.getKeyId());
+                }
+                return key;
+            }
+        }).build();
+    }
 
     public Long extractId(String token) {
-        return Long.parseLong(extractClaim(token, Claims::getSubject));
+        return authenticate(token, null).getId();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return authenticate(token, null).getExpiry();
     }
 
     public int extractPermission(String token) {
-        String permission = String.valueOf(extractAllClaims(token).get(PERMISSION_KEY));
-        return Integer.parseInt(permission);
+        return authenticate(token, null).getAuthLevel();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -43,7 +111,88 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
     private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Returns the user the token was issued to, verifying the token only if it has not been seen before.
+     * @param token the token from the authorization header
+     * @return the user the token was issued to, or null if the token is missing, invalid, expired or only issued for
+     * a single use such as the notification stream
+     */
+    public JwtPrincipal getPrincipal(String token) {
+        return getPrincipal(token, null);
+    }
+
+    /**
+     * Returns the user a token issued for the given scope was issued to.
+     * @param token the token to verify
+     * @param scope the scope the token must have been issued for, null for a token issued at login
+     * @return the user the token was issued to, or null if the token is missing, invalid, expired or has another scope
+     */
+    public JwtPrincipal getPrincipal(String token, String scope) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            return authenticate(token, scope);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the user the token was issued to, checking it was issued for the given scope.
+     * @param token the token to verify
+     * @param scope the scope the token must have been issued for, null for a token issued at login
+     * @return the user the token was issued to
+     * @throws JwtException if the token is invalid, expired or has another scope
+     */
+    private JwtPrincipal authenticate(String token, String scope) {
+        JwtPrincipal principal = verify(token);
+        if (!Objects.equals(principal.getScope(), scope)) {
+            throw new JwtException("Token was not issued for this use");
+        }
+        return principal;
+    }
+
+    /**
+     * Returns the user the token was issued to from the verified tokens, or verifies the token and remembers it,
+     * whatever its scope.
+     */
+    private JwtPrincipal verify(String token) {
+        String key = hash(token);
+        JwtPrincipal principal;
+        synchronized (verifiedTokens) {
+            if (verifiedRevision != keyRing.getRevision()) {
+                verifiedTokens.clear();
+                verifiedRevision = keyRing.getRevision();
+            }
+            principal = verifiedTokens.get(key);
+        }
+        if (principal != null && !principal.isExpired()) {
+            return principal;
+        }
+        Claims claims = extractAllClaims(token);
+        principal = new JwtPrincipal(Long.parseLong(claims.getSubject()),
+                Integer.parseInt(String.valueOf(claims.get(PERMISSION_KEY))), claims.getExpiration(),
+                claims.get(SCOPE_KEY, String.class));
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(key, principal);
+        }
+        return principal;
+    }
+
+    /**
+     * Hashes a token so the verified tokens themselves are not kept in memory.
+     */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public Boolean isTokenExpired(String token) {
@@ -58,20 +207,35 @@ public class JwtUtil {
     public String generateToken(Profile profile) {
         Map<String, Object> claims = new HashMap<>();
         claims.put(PERMISSION_KEY, profile.getAuthLevel());
-        return createToken(claims, Long.toString(profile.getId()));
+        return createToken(claims, Long.toString(profile.getId()), TOKEN_LIFETIME_MILLIS);
+    }
+
+    /**
+     * Creates a short lived token that can only be used to open the notification stream, for clients that cannot send
+     * the authorization header with the request.
+     * @param principal the user the token is issued to
+     * @return a JWT with the notification stream scope
+     */
+    public String generateStreamToken(JwtPrincipal principal) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(PERMISSION_KEY, principal.getAuthLevel());
+        claims.put(SCOPE_KEY, NOTIFICATION_STREAM_SCOPE);
+        return createToken(claims, Long.toString(principal.getId()), STREAM_TOKEN_LIFETIME_MILLIS);
     }
 
     /**
      * Calls JWT API to build a JWT from the person
      * @param claims a list of claims on the token
      * @param userId the user that is being authenticated
+     * @param lifetimeMillis how long the token is valid for
      * @return a string showing the JWT
      */
-    private String createToken(Map<String, Object> claims, String userId) {
-
-        return Jwts.builder().setClaims(claims).setSubject(userId).setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
-                .signWith(SignatureAlgorithm.HS256, secretKey).compact();
+    private String createToken(Map<String, Object> claims, String userId, long lifetimeMillis) {
+        Map.Entry<String, SecretKey> signingKey = keyRing.getSigningKey();
+        return Jwts.builder().setHeaderParam(JwsHeader.KEY_ID, signingKey.getKey())
+                .setClaims(claims).setSubject(userId).setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + lifetimeMillis))
+                .signWith(signingKey.getValue(), SignatureAlgorithm.HS256).compact();
     }
 
     /**
@@ -80,11 +244,6 @@ public class JwtUtil {
      * @return Whether the token is valid
      */
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException e){
-            return false;
-        }
+        return getPrincipal(token) != null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.springvuegradle.utilities;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helper class for the spatial index used by activity distance searches. The globe is split into a fixed grid of
+ * CELL_SIZE_DEGREES by CELL_SIZE_DEGREES cells, numbered row by row starting from the south-west corner. Each activity
+ * stores the number of the cell its coordinates fall into, so a distance search only needs to read the activities in
+ * the cells its search circle touches.
+ */
+public class LocationIndexHelper {
+
+    public static final double CELL_SIZE_DEGREES = 0.5;
+    public static final int ROWS = (int) (180 / CELL_SIZE_DEGREES);
+    public static final int COLUMNS = (int) (360 / CELL_SIZE_DEGREES);
+
+    /**
+     * Mean radius of the earth in metres, matching the radius used by ActivitySearchService.distance.
+     */
+    public static final double EARTH_RADIUS_METRES = 6371000;
+
+    /**
+     * Above this many cell ranges the ranges are merged into a single one, to keep the generated query small.
+     */
+    static final int MAX_CELL_RANGES = 64;
+
+    private LocationIndexHelper() {
+        throw new IllegalStateException("Utility class should not be instantiated");
+    }
+
+    /**
+     * A latitude/longitude bounding box. If the box crosses the antimeridian, minLongitude is greater than
+     * maxLongitude.
+     */
+    public static class BoundingBox {
+        private final double minLatitude;
+        private final double maxLatitude;
+        private final double minLongitude;
+        private final double maxLongitude;
+
+        public BoundingBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+            this.minLatitude = minLatitude;
+            this.maxLatitude = maxLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLongitude = maxLongitude;
+        }
+
+        public double getMinLatitude() {
+            return minLatitude;
+        }
+
+        public double getMaxLatitude() {
+            return maxLatitude;
+        }
+
+        public double getMinLongitude() {
+            return minLongitude;
+        }
+
+        public double getMaxLongitude() {
+            return maxLongitude;
+        }
+
+        public boolean crossesAntimeridian() {
+            return minLongitude > maxLongitude;
+        }
+
+        public boolean coversAllLongitudes() {
+            return minLongitude == -180 && maxLongitude == 180;
+        }
+
+        public boolean coversWholeGlobe() {
+            return coversAllLongitudes() && minLatitude == -90 && maxLatitude == 90;
+        }
+    }
+
+    /**
+     * An inclusive range of consecutive cell numbers.
+     */
+    public static class CellRange {
+        private final long from;
+        private final long to;
+
+        public CellRange(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getTo() {
+            return to;
+        }
+    }
+
+    /**
+     * Returns the number of the grid cell containing the given coordinates. Coordinates outside of the valid range are
+     * clamped to the edge of the grid.
+     * @param latitude the latitude of the point
+     * @param longitude the longitude of the point
+     * @return the cell number, or null if either coordinate is missing
+     */
+    public static Long cellOf(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        return (long) rowOf(latitude) * COLUMNS + columnOf(longitude);
+    }
+
+    /**
+     * Calculates the smallest bounding box containing every point within the given distance of the given point, using
+     * the same spherical earth model as the haversine distance.
+     * @param latitude the latitude of the center of the search
+     * @param longitude the longitude of the center of the search
+     * @param distance the search radius in metres
+     * @return the bounding box of the search circle
+     */
+    public static BoundingBox boundingBox(double latitude, double longitude, double distance) {
+        double angularDistance = distance / EARTH_RADIUS_METRES;
+        double angularDegrees = Math.toDegrees(angularDistance);
+        double minLatitude = latitude - angularDegrees;
+        double maxLatitude = latitude + angularDegrees;
+        if (minLatitude <= -90 || maxLatitude >= 90) {
+            // the circle contains a pole, so every longitude is reachable
+            return new BoundingBox(Math.max(minLatitude, -90), Math.min(maxLatitude, 90), -180, 180);
+        }
+        double ratio = Math.sin(angularDistance) / Math.cos(Math.toRadians(latitude));
+        if (ratio >= 1) {
+            return new BoundingBox(minLatitude, maxLatitude, -180, 180);
+        }
+        double longitudeDelta = Math.toDegrees(Math.asin(ratio));
+        double minLongitude = longitude - longitudeDelta;
+        double maxLongitude = longitude + longitudeDelta;
+        if (minLongitude < -180) {
+            minLongitude += 360;
+        }
+        if (maxLongitude > 180) {
+            maxLongitude -= 360;
+        }
+        return new BoundingBox(minLatitude, maxLatitude, minLongitude, maxLongitude);
+    }
+
+    /**
+     * Returns the ranges of cell numbers overlapping the given bounding box.
+     * @param box the bounding box being searched
+     * @return the ranges of cells to search, or null if the box covers the whole globe and no restriction is needed
+     */
+    public static List<CellRange> cellRanges(BoundingBox box) {
+        if (box.coversWholeGlobe()) {
+            return null;
+        }
+        int firstRow = rowOf(box.getMinLatitude());
+        int lastRow = rowOf(box.getMaxLatitude());
+        List<CellRange> ranges = new ArrayList<>();
+        if (box.coversAllLongitudes()) {
+            ranges.add(new CellRange((long) firstRow * COLUMNS, (long) lastRow * COLUMNS + COLUMNS - 1));
+            return ranges;
+        }
+        int firstColumn = columnOf(box.getMinLongitude());
+        int lastColumn = columnOf(box.getMaxLongitude());
+        for (int row = firstRow; row <= lastRow; row++) {
+            long rowStart = (long) row * COLUMNS;
+            if (box.crossesAntimeridian()) {
+                ranges.add(new CellRange(rowStart, rowStart + lastColumn));
+                ranges.add(new CellRange(rowStart + firstColumn, rowStart + COLUMNS - 1));
+            } else {
+                ranges.add(new CellRange(rowStart + firstColumn, rowStart + lastColumn));
+            }
+        }
+        if (ranges.size() > MAX_CELL_RANGES) {
+            // cells are numbered row by row, so one range spanning the first and last cells covers every candidate
+            CellRange first = ranges.get(0);
+            CellRange last = ranges.get(ranges.size() - 1);
+            ranges = new ArrayList<>();
+            ranges.add(new CellRange(Math.min(first.getFrom(), last.getFrom()), Math.max(first.getTo(), last.getTo())));
+        }
+        return ranges;
+    }
+
+    /**
+     * Fills in the location cell of every activity that has coordinates but no cell, e.g. activities saved before the
+     * location index existed. Only the cell column is written, and only while it is still empty, so it can run
+     * alongside the other startup tasks and user edits without writing back stale copies of their columns.
+     * @param jdbcTemplate used to read the coordinates and update the cells.
+     * @return the number of activities updated.
+     */
+    public static int updateActivityLocationCells(JdbcTemplate jdbcTemplate) {
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, latitude, longitude FROM activity " +
+                        "WHERE location_cell IS NULL AND latitude IS NOT NULL AND longitude IS NOT NULL",
+                resultSet -> {
+                    Long cell = cellOf(resultSet.getDouble(2), resultSet.getDouble(3));
+                    updates.add(new Object[]{cell, resultSet.getLong(1)});
+                });
+        jdbcTemplate.batchUpdate("UPDATE activity SET location_cell = ? WHERE id = ? AND location_cell IS NULL",
+                updates);
+        return updates.size();
+    }
+
+    private static int rowOf(double latitude) {
+        int row = (int) Math.floor((latitude + 90) / CELL_SIZE_DEGREES);
+        return Math.max(0, Math.min(ROWS - 1, row));
+    }
+
+    private static int columnOf(double longitude) {
+        int column = (int) Math.floor((longitude + 180) / CELL_SIZE_DEGREES);
+        return Math.max(0, Math.min(COLUMNS - 1, column));
+    }
+}
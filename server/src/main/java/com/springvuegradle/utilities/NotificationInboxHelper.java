@@ -0,0 +1,69 @@
+package com.springvuegradle.utilities;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * Helper class for moving the recipients of notifications out of the profile_notification join table that held them
+ * before the per-user inbox existed.
+ */
+public class NotificationInboxHelper {
+
+    /**
+     * The old join table had its columns the wrong way round, profile_id holds the id of the notification and
+     * notification_id the id of the recipient. Recipients and notifications that no longer exist are left out.
+     */
+    private static final String COPY_PROFILE_NOTIFICATIONS =
+            "INSERT INTO notification_inbox (recipient_id, notification_id, created_at, is_read) " +
+            "SELECT pn.notification_id, pn.profile_id, n.time_stamp, true FROM profile_notification pn " +
+            "JOIN notification n ON n.id = pn.profile_id JOIN profile p ON p.id = pn.notification_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM notification_inbox i " +
+            "WHERE i.recipient_id = pn.notification_id AND i.notification_id = pn.profile_id)";
+
+    private NotificationInboxHelper() {
+        throw new IllegalStateException("Utility class should not be instantiated");
+    }
+
+    /**
+     * Copies the recipients in profile_notification into notification_inbox as read notifications, ordered by the time
+     * stamp of the notification, then empties profile_notification, all in one transaction. Running it again copies
+     * nothing, and databases created after the inbox existed have no profile_notification table to copy from.
+     * @param jdbcTemplate used to copy the rows.
+     * @param transactionManager used to copy and empty the old table in one transaction.
+     * @return the number of inbox rows added.
+     */
+    public static int migrateProfileNotifications(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        if (!tableExists(jdbcTemplate, "profile_notification")) {
+            return 0;
+        }
+        Integer copied = new TransactionTemplate(transactionManager).execute(status -> {
+            int rows = jdbcTemplate.update(COPY_PROFILE_NOTIFICATIONS);
+            jdbcTemplate.update("DELETE FROM profile_notification");
+            return rows;
+        });
+        if (copied != null && copied > 0) {
+            System.out.println("-----Copied " + copied + " notifications from profile_notification into the inboxes-----");
+        }
+        return copied == null ? 0 : copied;
+    }
+
+    private static boolean tableExists(JdbcTemplate jdbcTemplate, String table) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,405 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.controller.Profile_Controller;
+import com.springvuegradle.enums.NotificationType;
+import com.springvuegradle.model.*;
+import com.springvuegradle.repositories.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Generates large synthetic datasets for capacity planning, benchmarks and load tests. Builds on InitialDataHelper,
+ * which only creates the default profiles and activity types, by adding parameterised numbers of profiles with emails
+ * and passports, activities spread around a set of cities, memberships with a mix of roles, participations and
+ * notifications sent to every member of an activity.
+ *
+ * Rows are written in batches. Each batch is saved with saveAll in its own transaction so Hibernate can group the
+ * inserts into JDBC batches (see hibernate.jdbc.batch_size in application.properties), then the persistence context is
+ * cleared so memory use does not grow with the size of the dataset. Notification recipients are inserted with a JDBC
+ * batch directly, as going through Notification.recipients would load every recipient profile.
+ */
+@Service
+public class SyntheticDataGenerator {
+
+    /**
+     * The cities activities are generated around, as latitude, longitude and relative number of activities.
+     */
+    private static final double[][] CITIES = {
+            {-36.85, 174.76, 8},  // Auckland
+            {-41.29, 174.78, 4},  // Wellington
+            {-43.53, 172.64, 4},  // Christchurch
+            {-37.79, 175.28, 2},  // Hamilton
+            {-45.88, 170.50, 2},  // Dunedin
+            {-45.03, 168.66, 1},  // Queenstown
+            {-33.87, 151.21, 3},  // Sydney
+            {-37.81, 144.96, 3},  // Melbourne
+            {51.51, -0.13, 2},    // London
+            {40.71, -74.01, 2},   // New York
+            {35.68, 139.69, 2},   // Tokyo
+            {-17.71, 178.07, 1}}; // Suva, close to the antimeridian
+
+    private static final double CITY_SPREAD_DEGREES = 0.3;
+
+    private static final ActivityMembership.Role[] MEMBER_ROLES = {ActivityMembership.Role.ORGANISER,
+            ActivityMembership.Role.PARTICIPANT, ActivityMembership.Role.FOLLOWER};
+
+    private final ProfileRepository profileRepository;
+    private final EmailRepository emailRepository;
+    private final PassportCountryRepository passportCountryRepository;
+    private final ActivityTypeRepository activityTypeRepository;
+    private final ActivityRepository activityRepository;
+    private final ActivityMembershipRepository membershipRepository;
+    private final ActivityParticipationRepository participationRepository;
+    private final NotificationRepository notificationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public SyntheticDataGenerator(ProfileRepository profileRepository, EmailRepository emailRepository,
+                                  PassportCountryRepository passportCountryRepository, ActivityTypeRepository activityTypeRepository,
+                                  ActivityRepository activityRepository, ActivityMembershipRepository membershipRepository,
+                                  ActivityParticipationRepository participationRepository, NotificationRepository notificationRepository,
+                                  JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.profileRepository = profileRepository;
+        this.emailRepository = emailRepository;
+        this.passportCountryRepository = passportCountryRepository;
+        this.activityTypeRepository = activityTypeRepository;
+        this.activityRepository = activityRepository;
+        this.membershipRepository = membershipRepository;
+        this.participationRepository = participationRepository;
+        this.notificationRepository = notificationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The parameters of a generated dataset. Every count is a total or an average per parent entity, and the same
+     * options and seed always generate the same dataset.
+     */
+    public static class Options {
+        private int profiles = 1000;
+        private int activities = 1000;
+        private int additionalEmailsPerProfile = 1;
+        private int passportsPerProfile = 1;
+        private int activityTypesPerProfile = 2;
+        private int activityTypesPerActivity = 2;
+        private int membersPerActivity = 5;
+        private double organiserShare = 0.1;
+        private double participantShare = 0.4;
+        private int participationsPerActivity = 1;
+        private int notificationsPerActivity = 2;
+        private int batchSize = 500;
+        private long seed = 302;
+        private String emailPrefix = "synthetic";
+        private String password = "SyntheticPassword1";
+
+        public int getProfiles() { return profiles; }
+        public void setProfiles(int profiles) { this.profiles = profiles; }
+
+        public int getActivities() { return activities; }
+        public void setActivities(int activities) { this.activities = activities; }
+
+        public int getAdditionalEmailsPerProfile() { return additionalEmailsPerProfile; }
+        public void setAdditionalEmailsPerProfile(int additionalEmailsPerProfile) { this.additionalEmailsPerProfile = additionalEmailsPerProfile; }
+
+        public int getPassportsPerProfile() { return passportsPerProfile; }
+        public void setPassportsPerProfile(int passportsPerProfile) { this.passportsPerProfile = passportsPerProfile; }
+
+        public int getActivityTypesPerProfile() { return activityTypesPerProfile; }
+        public void setActivityTypesPerProfile(int activityTypesPerProfile) { this.activityTypesPerProfile = activityTypesPerProfile; }
+
+        public int getActivityTypesPerActivity() { return activityTypesPerActivity; }
+        public void setActivityTypesPerActivity(int activityTypesPerActivity) { this.activityTypesPerActivity = activityTypesPerActivity; }
+
+        public int getMembersPerActivity() { return membersPerActivity; }
+        public void setMembersPerActivity(int membersPerActivity) { this.membersPerActivity = membersPerActivity; }
+
+        public double getOrganiserShare() { return organiserShare; }
+        public void setOrganiserShare(double organiserShare) { this.organiserShare = organiserShare; }
+
+        public double getParticipantShare() { return participantShare; }
+        public void setParticipantShare(double participantShare) { this.participantShare = participantShare; }
+
+        public int getParticipationsPerActivity() { return participationsPerActivity; }
+        public void setParticipationsPerActivity(int participationsPerActivity) { this.participationsPerActivity = participationsPerActivity; }
+
+        public int getNotificationsPerActivity() { return notificationsPerActivity; }
+        public void setNotificationsPerActivity(int notificationsPerActivity) { this.notificationsPerActivity = notificationsPerActivity; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+
+        public String getEmailPrefix() { return emailPrefix; }
+        public void setEmailPrefix(String emailPrefix) { this.emailPrefix = emailPrefix; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        /**
+         * Returns the primary email of the profile with the given index, e.g. for logging in as that profile.
+         * @param profileIndex the index of the profile in the generated dataset
+         * @return the primary email address of the profile
+         */
+        public String primaryEmailOf(int profileIndex) {
+            return emailPrefix + profileIndex + "@example.com";
+        }
+    }
+
+    /**
+     * The ids of the generated profiles and activities, in the order they were generated.
+     */
+    public static class Result {
+        private final long[] profileIds;
+        private final long[] activityIds;
+
+        Result(long[] profileIds, long[] activityIds) {
+            this.profileIds = profileIds;
+            this.activityIds = activityIds;
+        }
+
+        public long[] getProfileIds() {
+            return profileIds;
+        }
+
+        public long[] getActivityIds() {
+            return activityIds;
+        }
+    }
+
+    /**
+     * Generates a dataset with the given options. The activity types are loaded first if they are missing.
+     * @param options the parameters of the dataset
+     * @return the ids of the generated profiles and activities
+     */
+    public Result generate(Options options) {
+        if (options.getProfiles() <= 0 || options.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("At least one profile is needed, in batches of at least one");
+        }
+        Random random = new Random(options.getSeed());
+        InitialDataHelper.updateActivityTypeRepository(activityTypeRepository);
+
+        long start = System.currentTimeMillis();
+        long[] profileIds = generateProfiles(options, random);
+        System.out.println("-----Generated " + profileIds.length + " profiles in " + (System.currentTimeMillis() - start) + " ms-----");
+
+        start = System.currentTimeMillis();
+        long[] activityIds = generateActivities(options, random, profileIds);
+        transactionTemplate.execute(status -> ActivityRoleCountHelper.rebuildRoleCounts(jdbcTemplate));
+        System.out.println("-----Generated " + activityIds.length + " activities with members, participations and notifications in "
+                + (System.currentTimeMillis() - start) + " ms-----");
+        return new Result(profileIds, activityIds);
+    }
+
+    private long[] generateProfiles(Options options, Random random) {
+        String hashedPassword = Profile_Controller.hashPassword(options.getPassword());
+        long[] profileIds = new long[options.getProfiles()];
+        for (int batchStart = 0; batchStart < profileIds.length; batchStart += options.getBatchSize()) {
+            int first = batchStart;
+            int last = Math.min(profileIds.length, batchStart + options.getBatchSize());
+            transactionTemplate.execute(status -> {
+                List<ActivityType> types = activityTypeRepository.findAll();
+                List<PassportCountry> countries = passportCountryRepository.findAll();
+                List<Profile> profiles = new ArrayList<>();
+                List<Email> emails = new ArrayList<>();
+                for (int i = first; i < last; i++) {
+                    Profile profile = buildProfile(i, options, random, hashedPassword);
+                    profile.setActivityTypes(pick(types, options.getActivityTypesPerProfile(), random));
+                    profile.setPassports(pick(countries, options.getPassportsPerProfile(), random));
+                    for (Email email : profile.retrieveEmails()) {
+                        email.setProfile(profile);
+                        emails.add(email);
+                    }
+                    profiles.add(profile);
+                }
+                profileRepository.saveAll(profiles);
+                emailRepository.saveAll(emails);
+                for (int i = first; i < last; i++) {
+                    profileIds[i] = profiles.get(i - first).getId();
+                }
+                flushAndClear();
+                return null;
+            });
+        }
+        return profileIds;
+    }
+
+    private long[] generateActivities(Options options, Random random, long[] profileIds) {
+        long[] activityIds = new long[options.getActivities()];
+        for (int batchStart = 0; batchStart < activityIds.length; batchStart += options.getBatchSize()) {
+            int first = batchStart;
+            int last = Math.min(activityIds.length, batchStart + options.getBatchSize());
+            transactionTemplate.execute(status -> {
+                List<ActivityType> types = activityTypeRepository.findAll();
+                List<Activity> activities = new ArrayList<>();
+                for (int i = first; i < last; i++) {
+                    Activity activity = buildActivity(i, random);
+                    activity.setActivityTypes(pick(types, options.getActivityTypesPerActivity(), random));
+                    activities.add(activity);
+                }
+                activityRepository.saveAll(activities);
+
+                List<ActivityMembership> memberships = new ArrayList<>();
+                List<ActivityParticipation> participations = new ArrayList<>();
+                List<Notification> notifications = new ArrayList<>();
+                List<long[]> recipientRows = new ArrayList<>();
+                for (Activity activity : activities) {
+                    long creatorId = profileIds[random.nextInt(profileIds.length)];
+                    Set<Long> memberIds = new LinkedHashSet<>();
+                    memberIds.add(creatorId);
+                    memberships.add(new ActivityMembership(activity, profileRepository.getOne(creatorId), ActivityMembership.Role.CREATOR));
+                    int extraMembers = Math.min(profileIds.length - 1, options.getMembersPerActivity());
+                    while (memberIds.size() <= extraMembers) {
+                        long memberId = profileIds[random.nextInt(profileIds.length)];
+                        if (memberIds.add(memberId)) {
+                            memberships.add(new ActivityMembership(activity, profileRepository.getOne(memberId), memberRole(options, random)));
+                        }
+                    }
+                    Long[] members = memberIds.toArray(new Long[0]);
+                    for (int j = 0; j < options.getParticipationsPerActivity(); j++) {
+                        Profile participant = profileRepository.getOne(members[random.nextInt(members.length)]);
+                        participations.add(new ActivityParticipation("Synthetic participation", "Finished",
+                                activity.getStartTime(), activity.getEndTime(), participant, activity));
+                    }
+                    for (int j = 0; j < options.getNotificationsPerActivity(); j++) {
+                        Notification notification = new Notification("Activity " + activity.getActivityName() + " was edited.",
+                                activity, profileRepository.getOne(creatorId), NotificationType.ACTIVITY_EDITED);
+                        notifications.add(notification);
+                        for (Long memberId : members) {
+                            recipientRows.add(new long[]{notifications.size() - 1, memberId});
+                        }
+                    }
+                }
+                membershipRepository.saveAll(memberships);
+                participationRepository.saveAll(participations);
+                notificationRepository.saveAll(notifications);
+                flushAndClear();
+                insertRecipients(notifications, recipientRows);
+
+                for (int i = first; i < last; i++) {
+                    activityIds[i] = activities.get(i - first).getId();
+                }
+                return null;
+            });
+        }
+        return activityIds;
+    }
+
+    /**
+     * Puts the notifications in the inboxes of their recipients.
+     * @param notifications the saved notifications
+     * @param recipientRows pairs of an index into notifications and the id of a recipient
+     */
+    private void insertRecipients(List<Notification> notifications, List<long[]> recipientRows) {
+        jdbcTemplate.batchUpdate("INSERT INTO notification_inbox (recipient_id, notification_id, created_at, is_read) " +
+                        "VALUES (?, ?, ?, false)",
+                recipientRows, 1000, (statement, row) -> {
+                    Notification notification = notifications.get((int) row[0]);
+                    statement.setLong(1, row[1]);
+                    statement.setLong(2, notification.getId());
+                    statement.setTimestamp(3, Timestamp.from(notification.getTimeStamp().toInstant()));
+                });
+    }
+
+    /**
+     * Builds a profile with a primary email derived from its index, additional emails, no passports and no activity
+     * types.
+     * @param index the index of the profile in the dataset
+     * @param options the parameters of the dataset
+     * @param random the source of randomness for the dataset
+     * @param hashedPassword the password of the profile, already hashed
+     * @return the profile, not yet saved
+     */
+    public static Profile buildProfile(int index, Options options, Random random, String hashedPassword) {
+        String[] additionalEmails = new String[Math.min(4, options.getAdditionalEmailsPerProfile())];
+        for (int i = 0; i < additionalEmails.length; i++) {
+            additionalEmails[i] = options.getEmailPrefix() + index + "." + i + "@example.org";
+        }
+        return new Profile(null, "First" + index, "Last" + index, random.nextBoolean() ? "Middle" + index : null,
+                "Nick" + index, options.primaryEmailOf(index), additionalEmails, hashedPassword,
+                "A synthetic profile", new GregorianCalendar(1950 + random.nextInt(55), random.nextInt(12), 1 + random.nextInt(28)),
+                random.nextBoolean() ? "female" : "male", random.nextInt(5), new String[]{}, new String[]{});
+    }
+
+    /**
+     * Builds an activity around one of the cities, weighted by the size of the city. Two thirds of the activities are
+     * continuous, and the privacy levels are spread evenly.
+     * @param index the index of the activity in the dataset
+     * @param random the source of randomness for the dataset
+     * @return the activity, not yet saved and with no activity types
+     */
+    public static Activity buildActivity(int index, Random random) {
+        double[] city = pickCity(random);
+        double latitude = Math.max(-90, Math.min(90, city[0] + random.nextGaussian() * CITY_SPREAD_DEGREES));
+        double longitude = city[1] + random.nextGaussian() * CITY_SPREAD_DEGREES;
+        if (longitude > 180) {
+            longitude -= 360;
+        } else if (longitude < -180) {
+            longitude += 360;
+        }
+        boolean continuous = random.nextInt(3) != 0;
+        Activity activity = new Activity("Synthetic activity " + index, "A synthetic activity", new String[]{}, true,
+                null, null, "Synthetic location " + index, latitude, longitude);
+        if (!continuous) {
+            OffsetDateTime start = OffsetDateTime.parse("2020-01-01T08:00:00+13:00").plusHours(random.nextInt(24 * 365));
+            activity.setContinuous(false);
+            activity.setStartTime(start);
+            activity.setEndTime(start.plusHours(1 + random.nextInt(48)));
+        }
+        activity.setPrivacyLevel(random.nextInt(3));
+        return activity;
+    }
+
+    private static double[] pickCity(Random random) {
+        double totalWeight = 0;
+        for (double[] city : CITIES) {
+            totalWeight += city[2];
+        }
+        double target = random.nextDouble() * totalWeight;
+        for (double[] city : CITIES) {
+            target -= city[2];
+            if (target < 0) {
+                return city;
+            }
+        }
+        return CITIES[CITIES.length - 1];
+    }
+
+    private static ActivityMembership.Role memberRole(Options options, Random random) {
+        double roll = random.nextDouble();
+        if (roll < options.getOrganiserShare()) {
+            return MEMBER_ROLES[0];
+        } else if (roll < options.getOrganiserShare() + options.getParticipantShare()) {
+            return MEMBER_ROLES[1];
+        }
+        return MEMBER_ROLES[2];
+    }
+
+    private static <T> Set<T> pick(List<T> values, int count, Random random) {
+        Set<T> picked = new HashSet<>();
+        int target = Math.min(count, values.size());
+        while (picked.size() < target) {
+            picked.add(values.get(random.nextInt(values.size())));
+        }
+        return picked;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
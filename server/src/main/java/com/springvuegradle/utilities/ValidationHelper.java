@@ -1,16 +1,21 @@
 package com.springvuegradle.utilities;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.springvuegradle.model.PassportCountry;
-import com.springvuegradle.model.Profile;
 import com.springvuegradle.repositories.PassportCountryRepository;
-import com.springvuegradle.repositories.ProfileRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class ValidationHelper {
@@ -20,27 +25,54 @@ public class ValidationHelper {
     }
 
     /**
-     * Connects to RESTcountries API and retrieves countries as a JSON file before converting them into a set of
-     * PassportCountry objects.
-     *
-     * @returns a set of countries provided by the API converted into PassportCountry objects.
-     * @throws IOException (URL Type needs IOException for whatever reason)
-     * @author Matthew Wong
-     * @author Alan Wang
-     * @author Hamesh Ravji
+     * Location of the bundled passport countries on the classpath, taken from the REST Countries API. Bump the version in
+     * the file whenever the countries are changed.
+     */
+    public static final String COUNTRY_DATASET = "/countries/passport-countries.json";
+
+    /**
+     * The first and last of the ISO 3166-1 numeric codes free for user assignment, given to countries without one.
+     */
+    private static final int FIRST_ASSIGNED_CODE = 900;
+    private static final int LAST_ASSIGNED_CODE = 999;
+
+    /**
+     * The bundled passport countries and the version of the file they were read from.
      */
-    public static Set<PassportCountry> GetRESTCountries() throws IOException {
-        URL restCountries = new URL("https://restcountries.eu/rest/v2/all?fields=name;numericCode");
-        HttpURLConnection connection = (HttpURLConnection) restCountries.openConnection();
-        connection.setRequestMethod("GET");
-        Set<PassportCountry> countries = new HashSet<>();
-        ObjectMapper mapper = new ObjectMapper();
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CountryDataset {
+        private final String version;
+        private final List<PassportCountry> countries;
+
+        @JsonCreator
+        public CountryDataset(@JsonProperty("version") String version,
+                              @JsonProperty("countries") List<PassportCountry> countries) {
+            this.version = version;
+            this.countries = countries;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public List<PassportCountry> getCountries() {
+            return countries;
+        }
+    }
 
-        try (java.io.InputStream in = new java.net.URL("https://restcountries.eu/rest/v2/all?fields=name;numericCode").openStream()) {
-            String data = new String(in.readAllBytes());
-            countries.addAll(Arrays.asList(mapper.readValue(data, PassportCountry[].class)));
+    /**
+     * Reads the passport countries bundled with the server, so starting up does not depend on the REST Countries API.
+     *
+     * @return the bundled countries and their version.
+     * @throws IOException if the file is missing or cannot be read.
+     */
+    public static CountryDataset getBundledCountries() throws IOException {
+        try (InputStream in = ValidationHelper.class.getResourceAsStream(COUNTRY_DATASET)) {
+            if (in == null) {
+                throw new IOException("Passport country dataset " + COUNTRY_DATASET + " is missing");
+            }
+            return new ObjectMapper().readValue(in, CountryDataset.class);
         }
-        return countries;
     }
 
     /**
@@ -61,57 +93,84 @@ public class ValidationHelper {
     }
 
     /**
-     * This method updates both the Profile repository as well as the Passport Country repository by checking against the
-     * countries imported by the REST Countries API. If the country is no longer in the API, it is removed. New countries
-     * are added to the Passport Country repository.
+     * Brings the Passport Country repository in line with the bundled countries. Countries are matched by numeric code,
+     * or by name for those without one (only the Republic of Kosovo at the time of writing), which are given a free code
+     * from the user-assigned block 900-999 of ISO 3166-1. New countries are added and renamed ones updated in place.
+     * Countries no longer in the dataset are removed from every profile holding them and then deleted, with one bulk
+     * delete each, so the time taken does not grow with the number of profiles.
      *
-     * Note that some countries that do not have an ISO 3166-1 numeric code (only the Republic of Kosovo at the time of
-     * writing) cannot be included in
-     * @param pcRepository the passport country repository to be saved to.
-     * @param repository the profile repository to be saved to.
-     * @throws IOException if there is an error retrieving from the RESTcountries API.
+     * @param pcRepository the passport country repository to be updated.
+     * @param transactionManager used to apply all of the changes in one transaction.
+     * @throws IOException if the bundled countries cannot be read.
      */
-    public static void updatePassportCountryRepository(PassportCountryRepository pcRepository, ProfileRepository repository) throws IOException {
+    public static void updatePassportCountryRepository(PassportCountryRepository pcRepository,
+                                                       PlatformTransactionManager transactionManager) throws IOException {
+        CountryDataset dataset = getBundledCountries();
+        int[] changes = new TransactionTemplate(transactionManager).execute(status ->
+                updatePassportCountryRepository(pcRepository, dataset.getCountries()));
+        System.out.println("-----Passport countries at version " + dataset.getVersion() + ": " + changes[0] +
+                " added, " + changes[1] + " renamed, " + changes[2] + " removed-----");
+    }
 
-        // adding new countries to the passport country repository if they do not already exist in the repository.
-        Set<PassportCountry> updatedAPICountries = GetRESTCountries();
-        int assignedCodeCounter = 900;
-        for (PassportCountry country: updatedAPICountries) {
-            //if country has no numeric code, assign a free code from 900-999 (free block in ISO 3166-1)
-            if (country.getNumericCode() == null){
-                if (pcRepository.existsByCountryName(country.getCountryName())) {
-                    continue;
-                } else {
-                    while (assignedCodeCounter < 1000 && pcRepository.existsByNumericCode(Integer.toString(assignedCodeCounter))){
-                        assignedCodeCounter++;
+    /**
+     * Applies the difference between the given countries and the Passport Country repository, see
+     * {@link #updatePassportCountryRepository(PassportCountryRepository, PlatformTransactionManager)}.
+     *
+     * @param pcRepository the passport country repository to be updated.
+     * @param countries the countries the repository should hold.
+     * @return the number of countries added, renamed and removed.
+     */
+    public static int[] updatePassportCountryRepository(PassportCountryRepository pcRepository,
+                                                        List<PassportCountry> countries) {
+        Map<String, PassportCountry> byCode = new HashMap<>();
+        Map<String, PassportCountry> byName = new HashMap<>();
+        for (PassportCountry country : pcRepository.findAll()) {
+            byCode.put(country.getNumericCode(), country);
+            byName.putIfAbsent(country.getCountryName(), country);
+        }
+        Set<PassportCountry> kept = new HashSet<>();
+        List<PassportCountry> changed = new ArrayList<>();
+        int added = 0;
+        int renamed = 0;
+        int assignedCode = FIRST_ASSIGNED_CODE;
+        for (PassportCountry country : countries) {
+            PassportCountry entry = country.getNumericCode() == null
+                    ? byName.get(country.getCountryName())
+                    : byCode.get(country.getNumericCode());
+            if (entry == null) {
+                String code = country.getNumericCode();
+                if (code == null) {
+                    while (assignedCode <= LAST_ASSIGNED_CODE && byCode.containsKey(Integer.toString(assignedCode))) {
+                        assignedCode++;
                     }
-                    if (assignedCodeCounter < 1000){
-                        country.setNumericCode(Integer.toString(assignedCodeCounter));
-                    } else {
-                        throw new IOException("Database error: No available user-assigned codes remaining");
+                    if (assignedCode > LAST_ASSIGNED_CODE) {
+                        throw new IllegalStateException("Database error: No available user-assigned codes remaining");
                     }
+                    code = Integer.toString(assignedCode);
                 }
-            }
-            List<PassportCountry> result = pcRepository.findByNumericCode(country.getNumericCode());
-            if (pcRepository.findByNumericCode(country.getNumericCode()).isEmpty()) {
-                pcRepository.save(country);
-            } else {
-                PassportCountry entry = result.get(0);
+                entry = new PassportCountry(country.getCountryName(), code);
+                byCode.put(code, entry);
+                changed.add(entry);
+                added++;
+            } else if (!entry.getCountryName().equals(country.getCountryName())) {
                 entry.setCountryName(country.getCountryName());
-                pcRepository.save(entry);
+                changed.add(entry);
+                renamed++;
             }
+            kept.add(entry);
         }
-        // removing all the passport countries not part of the API from each user if they are not in the passport country repository
-        List<Profile> allProfiles = repository.findAll();
-        for (Profile profile: allProfiles) {
-            profile.getPassportObjects().removeIf(country -> !updatedAPICountries.contains(country));
-            repository.save(profile);
-        }
-        // removing all the passport countries which are in the repository but not in the API
-        for (PassportCountry passportCountry: pcRepository.findAll()) {
-            if (!updatedAPICountries.contains(passportCountry) && !passportCountry.getCountryName().equals("Republic of Kosovo")) {
-                pcRepository.delete(passportCountry);
+        pcRepository.saveAll(changed);
+
+        List<Long> removed = new ArrayList<>();
+        for (PassportCountry country : byCode.values()) {
+            if (!kept.contains(country)) {
+                removed.add(country.getId());
             }
         }
+        if (!removed.isEmpty()) {
+            pcRepository.deleteProfilePassportsByCountryIdIn(removed);
+            pcRepository.deleteAllByIdIn(removed);
+        }
+        return new int[]{added, renamed, removed.size()};
     }
-}
\ No newline at end of file
+}
@@ -586,4 +586,30 @@ class ActivityControllerMockedTest {
     }
 
 
+    /**
+     * Tests only admins can rebuild the activity role counts.
+     */
+    @Test
+    void rebuildActivityRoleCountsAsUserIsForbiddenTest() {
+        String mockToken = "mockToken";
+        Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(true);
+        Mockito.when(mockJwt.extractPermission(mockToken)).thenReturn(5);
+        assertEquals(HttpStatus.FORBIDDEN, activityController.rebuildActivityRoleCounts(mockToken).getStatusCode());
+        Mockito.verify(mockService, Mockito.never()).rebuildRoleCounts();
+    }
+
+    /**
+     * Tests an admin rebuilding the activity role counts gets back the number of activities with members.
+     */
+    @Test
+    void rebuildActivityRoleCountsAsAdminTest() {
+        String mockToken = "mockToken";
+        Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(true);
+        Mockito.when(mockJwt.extractPermission(mockToken)).thenReturn(1);
+        Mockito.when(mockService.rebuildRoleCounts()).thenReturn(3);
+        ResponseEntity<Integer> response = activityController.rebuildActivityRoleCounts(mockToken);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody());
+    }
+
 }
\ No newline at end of file
@@ -2,18 +2,21 @@ package com.springvuegradle.controller;
 
 import com.springvuegradle.dto.requests.EditAuthLevelRequest;
 import com.springvuegradle.dto.responses.NotificationsResponse;
+import com.springvuegradle.enums.AuthLevel;
 import com.springvuegradle.enums.ProfileErrorMessage;
 import com.springvuegradle.model.Profile;
 import com.springvuegradle.model.ProfileSearchCriteria;
 import com.springvuegradle.utilities.ProfileTestUtils;
 import com.springvuegradle.repositories.*;
 import com.springvuegradle.service.NotificationService;
+import com.springvuegradle.utilities.JwtPrincipal;
 import com.springvuegradle.utilities.JwtUtil;
 import com.springvuegradle.config.MockServiceConfig;
 import com.springvuegradle.dto.responses.ProfileSearchResponse;
 import com.springvuegradle.dto.responses.ProfileSummary;
 import com.springvuegradle.enums.AuthenticationErrorMessage;
 import com.springvuegradle.service.ProfileService;
+import com.springvuegradle.service.SecurityService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
@@ -30,6 +33,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -53,6 +57,8 @@ class ProfileControllerMockedTest {
     ProfileRepository mockProfileRepo;
     @Autowired
     NotificationService notificationService;
+    @Autowired
+    SecurityService mockSecurityService;
 
     Profile jimmy, jimmyAlternate, maurice;
 
@@ -67,7 +73,7 @@ class ProfileControllerMockedTest {
     private void tearDown() {
         jimmy = null;
         maurice = null;
-        Mockito.reset(mockService, mockJwt);
+        Mockito.reset(mockService, mockJwt, mockSecurityService, notificationService);
     }
 
     @Test
@@ -204,7 +210,7 @@ class ProfileControllerMockedTest {
         String mockToken = "babababa";
         Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(true);
         Mockito.when(notificationService.getSortedNotifications(mockId, mockCount, mockStartIndex)).thenReturn(null);
-        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex);
+        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex, null);
         assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
     }
 
@@ -215,10 +221,22 @@ class ProfileControllerMockedTest {
         int mockStartIndex = 0;
         String mockToken = "babababa";
         Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(true);
-        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex);
+        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex, null);
         assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
     }
 
+    @Test
+    void getNotificationsNegativeStartIndexTest() {
+        long mockId = 10;
+        int mockCount = 10;
+        int mockStartIndex = -1;
+        String mockToken = "babababa";
+        Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(true);
+        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex, null);
+        assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
+        Mockito.verify(notificationService, Mockito.never()).getSortedNotifications(mockId, mockCount, mockStartIndex);
+    }
+
     @Test
     void getNotificationsInvalidTokenTest() {
         long mockId = 10;
@@ -226,7 +244,7 @@ class ProfileControllerMockedTest {
         int mockStartIndex = 0;
         String mockToken = "invalud";
         Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(false);
-        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex);
+        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex, null);
         assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
     }
 
@@ -237,7 +255,79 @@ class ProfileControllerMockedTest {
         int mockStartIndex = 0;
         String mockToken = "";
         Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(true);
-        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex);
+        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, mockStartIndex, null);
         assertEquals(HttpStatus.UNAUTHORIZED, actualResponse.getStatusCode());
     }
+
+    @Test
+    void getNotificationsInvalidCursorTest() {
+        long mockId = 10;
+        int mockCount = 10;
+        String mockToken = "babababa";
+        Mockito.when(mockJwt.validateToken(mockToken)).thenReturn(true);
+        ResponseEntity<NotificationsResponse> actualResponse = profileController.getNotifications(mockToken, mockId, mockCount, 0, "yesterday");
+        assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
+    }
+
+    @Test
+    void getUnreadNotificationCountTest() {
+        long mockId = 10;
+        String mockToken = "babababa";
+        Mockito.when(mockSecurityService.checkEditPermission(mockToken, mockId)).thenReturn(true);
+        Mockito.when(notificationService.getUnreadCount(mockId)).thenReturn(4L);
+        ResponseEntity<Long> actualResponse = profileController.getUnreadNotificationCount(mockToken, mockId);
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(4L, actualResponse.getBody());
+    }
+
+    @Test
+    void getUnreadNotificationCountOfOtherProfileForbiddenTest() {
+        long mockId = 10;
+        String mockToken = "babababa";
+        Mockito.when(mockSecurityService.checkEditPermission(mockToken, mockId)).thenReturn(false);
+        ResponseEntity<Long> actualResponse = profileController.getUnreadNotificationCount(mockToken, mockId);
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+    }
+
+    @Test
+    void streamNotificationsOfOtherProfileForbiddenTest() {
+        long mockId = 10;
+        String mockToken = "babababa";
+        Mockito.when(mockSecurityService.checkEditPermission(mockToken, mockId)).thenReturn(false);
+        assertEquals(HttpStatus.FORBIDDEN, profileController.streamNotifications(mockToken, null, mockId, null, null).getStatusCode());
+    }
+
+    @Test
+    void streamNotificationsWithStreamTokenTest() {
+        long mockId = 10;
+        String streamToken = "stream";
+        SseEmitter emitter = new SseEmitter();
+        Mockito.when(mockSecurityService.checkStreamPermission(streamToken, mockId)).thenReturn(true);
+        Mockito.when(notificationService.streamNotifications(mockId, "2020-05-01T10:00:00Z,6")).thenReturn(emitter);
+        ResponseEntity<SseEmitter> response = profileController.streamNotifications(null, streamToken, mockId, null, "2020-05-01T10:00:00Z,6");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(emitter, response.getBody());
+    }
+
+    @Test
+    void createNotificationStreamTokenForOtherProfileForbiddenTest() {
+        JwtPrincipal user = new JwtPrincipal(10L, AuthLevel.USER.getLevel(), null);
+        assertEquals(HttpStatus.UNAUTHORIZED, profileController.createNotificationStreamToken(null, 10L).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, profileController.createNotificationStreamToken(user, 11L).getStatusCode());
+    }
+
+    @Test
+    void streamNotificationsInvalidLastEventIdTest() {
+        long mockId = 10;
+        String mockToken = "babababa";
+        Mockito.when(mockSecurityService.checkEditPermission(mockToken, mockId)).thenReturn(true);
+        assertEquals(HttpStatus.BAD_REQUEST, profileController.streamNotifications(mockToken, null, mockId, "yesterday", null).getStatusCode());
+    }
+
+    @Test
+    void getNotificationMetricsRequiresAdminTest() {
+        assertEquals(HttpStatus.UNAUTHORIZED, profileController.getNotificationMetrics(null).getStatusCode());
+        JwtPrincipal user = new JwtPrincipal(10L, AuthLevel.USER.getLevel(), null);
+        assertEquals(HttpStatus.FORBIDDEN, profileController.getNotificationMetrics(user).getStatusCode());
+    }
 }
@@ -0,0 +1,97 @@
+package com.springvuegradle.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of request latencies. Latencies are recorded in microseconds into buckets whose width
+ * doubles every SUB_BUCKETS buckets, so every recorded value is accurate to within 1 / SUB_BUCKETS of itself while the
+ * histogram stays a fixed size.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKETS = 16;
+    private static final int MAGNITUDES = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS * MAGNITUDES);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * Records the latency of one request.
+     * @param micros the latency of the request in microseconds
+     * @param successful false if the request failed or returned an error status
+     */
+    public void record(long micros, boolean successful) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.incrementAndGet();
+        if (!successful) {
+            errorCount.incrementAndGet();
+        }
+        maximum.accumulateAndGet(value, Math::max);
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getMaximum() {
+        return maximum.get();
+    }
+
+    /**
+     * Returns the latency that the given percentage of requests were at or below.
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket containing the percentile in microseconds, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), maximum.get());
+            }
+        }
+        return maximum.get();
+    }
+
+    /**
+     * Returns the number of requests recorded in the given bucket.
+     */
+    long countOf(int bucket) {
+        return counts.get(bucket);
+    }
+
+    int bucketCount() {
+        return counts.length();
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros) - 4;
+        int subBucket = (int) (micros >> magnitude) - SUB_BUCKETS;
+        return Math.min((magnitude + 1) * SUB_BUCKETS + subBucket, SUB_BUCKETS * MAGNITUDES - 1);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
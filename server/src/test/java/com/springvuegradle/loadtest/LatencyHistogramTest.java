@@ -0,0 +1,35 @@
+package com.springvuegradle.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramPercentileIsZeroTest() {
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+
+    @Test
+    void bucketUpperBoundContainsValueTest() {
+        for (long micros : new long[]{0, 15, 16, 33, 1000, 123456, 99999999}) {
+            long upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(micros));
+            assertTrue(upperBound >= micros);
+            assertTrue(upperBound - micros <= micros / LatencyHistogram.SUB_BUCKETS + 1);
+        }
+    }
+
+    @Test
+    void percentilesAreWithinBucketPrecisionTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 10L, i % 100 != 0);
+        }
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(10, histogram.getErrorCount());
+        assertEquals(10000, histogram.getMaximum());
+        assertEquals(5000, histogram.percentile(50), 5000 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(10000, histogram.percentile(100));
+    }
+}
@@ -0,0 +1,244 @@
+package com.springvuegradle.loadtest;
+
+import com.springvuegradle.Application;
+import com.springvuegradle.repositories.ActivityTypeRepository;
+import com.springvuegradle.repositories.EmailRepository;
+import com.springvuegradle.repositories.ProfileRepository;
+import com.springvuegradle.utilities.InitialDataHelper;
+import com.springvuegradle.utilities.SyntheticDataGenerator;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test harness for the server. Boots the application against the in-memory H2 database configured in the test
+ * application.properties, seeds it with synthetic data, then drives concurrent HTTP traffic at the main read endpoints
+ * and login. Writes a latency histogram report for each endpoint.
+ *
+ * Run with the gradle loadTest task, which passes the options below as -D system properties:
+ * <br>loadtest.profiles:      number of profiles to seed (default 1000)
+ * <br>loadtest.activities:    number of activities to seed (default 5000)
+ * <br>loadtest.members:       members added to each activity besides its creator (default 5)
+ * <br>loadtest.notifications: notifications sent to the members of each activity (default 2)
+ * <br>loadtest.threads:       number of concurrent clients (default 16)
+ * <br>loadtest.duration:      seconds of measured traffic (default 60)
+ * <br>loadtest.warmup:        seconds of unmeasured traffic before measuring (default 10)
+ * <br>loadtest.report:        directory the report is written to (default build/reports/loadtest)
+ */
+public class LoadTest {
+
+    static final String PASSWORD = "LoadTestPassword1";
+    private static final String EMAIL_PREFIX = "loadtest";
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private static final double CENTER_LATITUDE = -41.0;
+    private static final double CENTER_LONGITUDE = 173.0;
+
+    private final int profileCount = Integer.getInteger("loadtest.profiles", 1000);
+    private final int activityCount = Integer.getInteger("loadtest.activities", 5000);
+    private final int membersPerActivity = Integer.getInteger("loadtest.members", 5);
+    private final int notificationsPerActivity = Integer.getInteger("loadtest.notifications", 2);
+    private final int threads = Integer.getInteger("loadtest.threads", 16);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration", 60);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+    private final String reportDirectory = System.getProperty("loadtest.report", "build/reports/loadtest");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final List<Long> profileIds = new ArrayList<>();
+
+    private SyntheticDataGenerator.Options seedOptions;
+    private String baseUrl;
+
+    /**
+     * Replaces the startup runner of the application during a load test. It loads the same activity types and default
+     * profiles, but skips the passport countries and index backfills which the load test does not use.
+     */
+    public static class LoadTestConfiguration {
+        @Bean
+        CommandLineRunner init(ActivityTypeRepository atRepo, ProfileRepository pRepo, EmailRepository eRepo) {
+            return args -> InitialDataHelper.init(atRepo, pRepo, eRepo);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run(args);
+    }
+
+    private void run(String[] args) throws Exception {
+        SpringApplication application = new SpringApplication(Application.class, LoadTestConfiguration.class);
+        application.setAllowBeanDefinitionOverriding(true);
+        // passed as command line arguments so they take precedence over the test application.properties, which
+        // fixes the port and delivers notifications synchronously
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0", "--spring.jpa.show-sql=false",
+                "--notifications.async.enabled=true"));
+        arguments.addAll(List.of(args));
+
+        try (ConfigurableApplicationContext context = application.run(arguments.toArray(new String[0]))) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+
+            long seedStart = System.nanoTime();
+            seed(context);
+            System.out.printf("-----Seeded %d profiles and %d activities in %d ms-----%n", profileCount, activityCount,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+            for (String endpoint : List.of("GET /profiles", "GET /activitiesSearch", "GET /activities/distance",
+                    "GET /profiles/{id}/notifications", "POST /login")) {
+                histograms.put(endpoint, new LatencyHistogram());
+            }
+            drive(warmupSeconds, false);
+            drive(durationSeconds, true);
+            writeReport();
+        }
+    }
+
+    /**
+     * Seeds the database with the synthetic data generator. Each activity gets a creator and a number of other members,
+     * and every member receives the activity's notifications.
+     */
+    private void seed(ConfigurableApplicationContext context) {
+        SyntheticDataGenerator.Options options = new SyntheticDataGenerator.Options();
+        options.setProfiles(profileCount);
+        options.setActivities(activityCount);
+        options.setMembersPerActivity(membersPerActivity);
+        options.setNotificationsPerActivity(notificationsPerActivity);
+        options.setEmailPrefix(EMAIL_PREFIX);
+        options.setPassword(PASSWORD);
+        seedOptions = options;
+        for (long profileId : context.getBean(SyntheticDataGenerator.class).generate(options).getProfileIds()) {
+            profileIds.add(profileId);
+        }
+    }
+
+    /**
+     * Sends requests from every client thread for the given number of seconds.
+     * @param seconds how long to send requests for
+     * @param measured false to discard the latencies, e.g. while the JVM warms up
+     */
+    private void drive(int seconds, boolean measured) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Void>> clients = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int clientIndex = i;
+            clients.add(executor.submit(() -> runClient(clientIndex, deadline, measured)));
+        }
+        executor.shutdown();
+        for (Future<Void> client : clients) {
+            client.get();
+        }
+    }
+
+    /**
+     * Runs one simulated client. The client logs in as its own profile, then repeatedly calls each endpoint in turn.
+     */
+    private Void runClient(int clientIndex, long deadline, boolean measured) throws IOException, InterruptedException {
+        Random clientRandom = new Random(clientIndex);
+        int profileIndex = clientIndex % profileIds.size();
+        Long profileId = profileIds.get(profileIndex);
+        String token = login(profileIndex, measured);
+        while (System.nanoTime() < deadline) {
+            double latitude = CENTER_LATITUDE + clientRandom.nextGaussian() * 2;
+            double longitude = CENTER_LONGITUDE + clientRandom.nextGaussian() * 2;
+            send("GET /profiles", get("/profiles?fullname=First" + clientRandom.nextInt(profileIds.size())
+                    + "&count=20&startIndex=0", token), measured);
+            send("GET /activitiesSearch", get("/activitiesSearch?name=Activity%20" + clientRandom.nextInt(100)
+                    + "&method=any&count=20&startIndex=0", token), measured);
+            send("GET /activities/distance", get(String.format("/activities/distance?distance=50000&latitude=%.4f&longitude=%.4f&count=20",
+                    latitude, longitude), token), measured);
+            send("GET /profiles/{id}/notifications", get("/profiles/" + profileId + "/notifications?count=20&startIndex=0",
+                    token), measured);
+            token = login(profileIndex, measured);
+        }
+        return null;
+    }
+
+    private String login(int profileIndex, boolean measured) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + seedOptions.primaryEmailOf(profileIndex) + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        HttpResponse<String> response = send("POST /login", request, measured);
+        Matcher matcher = TOKEN_PATTERN.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        return matcher.group(1);
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("authorization", token).GET().build();
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request, boolean measured) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        if (measured) {
+            histograms.get(endpoint).record(micros, response.statusCode() < 400);
+        }
+        return response;
+    }
+
+    /**
+     * Writes the throughput, percentiles and latency histogram of each endpoint to the console and a report file.
+     */
+    private void writeReport() throws IOException {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.printf("Load test: %d profiles, %d activities, %d members and %d notifications per activity%n",
+                profileCount, activityCount, membersPerActivity, notificationsPerActivity);
+        out.printf("%d clients for %d s after %d s warmup%n%n", threads, durationSeconds, warmupSeconds);
+        out.printf("%-34s %9s %7s %9s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.printf("%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), histogram.getTotalCount(),
+                    histogram.getErrorCount(), (double) histogram.getTotalCount() / durationSeconds,
+                    histogram.percentile(50) / 1000.0, histogram.percentile(90) / 1000.0,
+                    histogram.percentile(99) / 1000.0, histogram.percentile(99.9) / 1000.0, histogram.getMaximum() / 1000.0);
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.printf("%n%s latency histogram%n%12s %9s %9s%n", entry.getKey(), "<= ms", "count", "cumul %");
+            long cumulative = 0;
+            for (int bucket = 0; bucket < histogram.bucketCount(); bucket++) {
+                long count = histogram.countOf(bucket);
+                if (count > 0) {
+                    cumulative += count;
+                    out.printf("%12.3f %9d %9.3f%n", LatencyHistogram.upperBoundOf(bucket) / 1000.0, count,
+                            100.0 * cumulative / histogram.getTotalCount());
+                }
+            }
+        }
+        out.flush();
+        System.out.print(buffer);
+
+        Path directory = Paths.get(reportDirectory);
+        Files.createDirectories(directory);
+        Path report = directory.resolve("loadtest-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+        Files.writeString(report, buffer.toString());
+        System.out.println("-----Report written to " + report.toAbsolutePath() + "-----");
+    }
+}
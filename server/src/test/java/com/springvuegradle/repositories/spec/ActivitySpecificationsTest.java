@@ -2,11 +2,14 @@ package com.springvuegradle.repositories.spec;
 
 import com.springvuegradle.model.Activity;
 import com.springvuegradle.model.ActivityMembership;
+import com.springvuegradle.model.ActivityType;
 import com.springvuegradle.model.Profile;
 import com.springvuegradle.repositories.ActivityMembershipRepository;
 import com.springvuegradle.repositories.ActivityRepository;
+import com.springvuegradle.repositories.ActivityTypeRepository;
 import com.springvuegradle.repositories.ProfileRepository;
 import com.springvuegradle.utilities.ActivityTestUtils;
+import com.springvuegradle.utilities.LocationIndexHelper;
 import com.springvuegradle.utilities.ProfileTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +37,8 @@ class ActivitySpecificationsTest {
     ActivityMembershipRepository membershipRepository;
     @Autowired
     ProfileRepository profileRepository;
+    @Autowired
+    ActivityTypeRepository typeRepository;
 
     @BeforeEach
     private void setUp() {
@@ -188,4 +193,51 @@ class ActivitySpecificationsTest {
         Set<Activity> actualActivities = new HashSet<>(result);
         assertEquals(expectedActivities, actualActivities);
     }
-}
\ No newline at end of file
+
+    @Test
+    void hasActivityTypesWithAllMethodReturnsActivitiesWithEveryTypeTest() {
+        ActivityType xbox = typeRepository.save(new ActivityType("xbox"));
+        ActivityType playstation = typeRepository.save(new ActivityType("playstation"));
+        publicRace.addActivityType(xbox);
+        publicRace.addActivityType(playstation);
+        publicBlazerTag.addActivityType(xbox);
+        publicRace = activityRepository.save(publicRace);
+        activityRepository.save(publicBlazerTag);
+        activityRepository.save(privateCycle);
+
+        Specification<Activity> spec = ActivitySpecifications.hasActivityTypes(List.of(xbox, playstation), "all");
+        List<Activity> result = activityRepository.findAll(spec);
+        assertEquals(List.of(publicRace), result);
+    }
+
+    @Test
+    void hasActivityTypesWithAnyMethodReturnsActivitiesWithAtLeastOneTypeTest() {
+        ActivityType xbox = typeRepository.save(new ActivityType("xbox"));
+        ActivityType playstation = typeRepository.save(new ActivityType("playstation"));
+        publicRace.addActivityType(xbox);
+        publicRace.addActivityType(playstation);
+        publicBlazerTag.addActivityType(xbox);
+        publicRace = activityRepository.save(publicRace);
+        publicBlazerTag = activityRepository.save(publicBlazerTag);
+        activityRepository.save(privateCycle);
+
+        Set<Activity> expectedActivities = new HashSet<>(Arrays.asList(publicRace, publicBlazerTag));
+
+        Specification<Activity> spec = ActivitySpecifications.hasActivityTypes(List.of(xbox, playstation), "any");
+        Set<Activity> actualActivities = new HashSet<>(activityRepository.findAll(spec));
+        assertEquals(expectedActivities, actualActivities);
+    }
+
+    @Test
+    void withinBoundingBoxAcrossAntimeridianReturnsActivitiesOnBothSidesTest() {
+        Activity fijiWest = activityRepository.save(ActivityTestUtils.createActivity("Fiji west", -17.0, 179.9));
+        Activity fijiEast = activityRepository.save(ActivityTestUtils.createActivity("Fiji east", -17.0, -179.9));
+        activityRepository.save(ActivityTestUtils.createActivity("Samoa", -13.8, -171.8));
+
+        Set<Activity> expectedActivities = new HashSet<>(Arrays.asList(fijiWest, fijiEast));
+
+        Specification<Activity> spec = ActivitySpecifications.withinBoundingBox(LocationIndexHelper.boundingBox(-17.0, 179.9, 50000));
+        Set<Activity> actualActivities = new HashSet<>(activityRepository.findAll(spec));
+        assertEquals(expectedActivities, actualActivities);
+    }
+}
@@ -3,9 +3,11 @@ package com.springvuegradle.service;
 import com.springvuegradle.dto.responses.ActivityLocationResponse;
 import com.springvuegradle.model.Activity;
 import com.springvuegradle.model.ActivityMembership;
+import com.springvuegradle.model.ActivityType;
 import com.springvuegradle.model.Profile;
 import com.springvuegradle.repositories.ActivityMembershipRepository;
 import com.springvuegradle.repositories.ActivityRepository;
+import com.springvuegradle.repositories.ActivityTypeRepository;
 import com.springvuegradle.repositories.ProfileRepository;
 import com.springvuegradle.utilities.ActivityTestUtils;
 import com.springvuegradle.utilities.ProfileTestUtils;
@@ -40,6 +42,9 @@ class ActivitySearchServiceTest {
     @Autowired
     ActivityMembershipRepository activityMembershipRepository;
 
+    @Autowired
+    ActivityTypeRepository activityTypeRepository;
+
     @Autowired
     ActivityService activityService;
 
@@ -239,6 +244,58 @@ class ActivitySearchServiceTest {
                 new HashSet(expected).equals(new HashSet(actual)));
     }
 
+    @Test
+    void getVisibleActivitiesNearOnlyReturnsActivitiesInNearbyCellsTest() {
+        Set<Activity> expected = Set.of(publicActivityChristchurch, membersActivityChristchurch, privateActivityChristchurch);
+        List<Activity> actual = activitySearchService.getVisibleActivitiesNear(creator.getId(), true, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, 1000);
+        assertEquals(expected, new HashSet<>(actual));
+    }
+
+    @Test
+    void getVisibleActivitiesNearOnlyReturnsVisibleActivitiesTest() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        profileRepository.save(profile);
+        List<Activity> actual = activitySearchService.getVisibleActivitiesNear(profile.getId(), false, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, 1000);
+        assertEquals(List.of(publicActivityChristchurch), actual);
+    }
+
+    @Test
+    void userCanSearchPublicActivitiesInNewZealandByActivityType() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        profileRepository.save(profile);
+        ActivityType kayaking = activityTypeRepository.save(new ActivityType("Kayaking race"));
+        publicActivityWellington.addActivityType(kayaking);
+        privateActivityChristchurch.addActivityType(kayaking);
+        activityRepository.save(publicActivityWellington);
+        activityRepository.save(privateActivityChristchurch);
+
+        List<ActivityLocationResponse> expected = activityService.createActivityLocationResponse(List.of(publicActivityWellington));
+        List<ActivityLocationResponse> actual = activitySearchService.getActivitiesByRangeAndActivityTypes(profile.getId(), false, 500000, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, new String[] {"Kayaking race"}, "all");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void adminCanPageThroughNearestActivitiesWithinNewZealand() {
+        List<ActivityLocationResponse> expected = activityService.createActivityLocationResponse(List.of(
+                privateActivityChristchurch,
+                publicActivityChristchurch
+        ));
+        List<ActivityLocationResponse> actual = activitySearchService.getActivitiesByRangeAndActivityTypes(1L, true, 450000, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, noActivityTypes, null, 1, 2);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void startIndexPastLastActivityReturnsEmptyList() {
+        List<ActivityLocationResponse> actual = activitySearchService.getActivitiesByRangeAndActivityTypes(1L, true, 450000, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, noActivityTypes, null, 4, 2);
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    void findNearestActivitiesWithInvalidCountThrowsException() {
+        List<Activity> activities = List.of(publicActivityChristchurch);
+        assertThrows(IllegalArgumentException.class, () -> activitySearchService.findNearestActivities(activities, CHRISTCHURCH_LATITUDE, CHRISTCHURCH_LONGITUDE, 1000, 0, 0));
+    }
+
     @Test
     void inRangeSucceedsWithValidNumbersTest() {
         assertTrue(activitySearchService.isInRange(7D, 5, 10));
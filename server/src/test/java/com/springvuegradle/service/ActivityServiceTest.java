@@ -2,6 +2,7 @@ package com.springvuegradle.service;
 
 import com.springvuegradle.controller.ActivityController;
 import com.springvuegradle.dto.ActivityRoleCountResponse;
+import com.springvuegradle.dto.MembersRequest;
 import com.springvuegradle.dto.responses.ActivityMemberProfileResponse;
 import com.springvuegradle.enums.ActivityMessage;
 import com.springvuegradle.enums.ActivityPrivacy;
@@ -9,6 +10,7 @@ import com.springvuegradle.enums.ActivityResponseMessage;
 import com.springvuegradle.enums.NotificationType;
 import com.springvuegradle.model.*;
 import com.springvuegradle.repositories.*;
+import com.springvuegradle.utilities.ActivityRoleCountHelper;
 import com.springvuegradle.utilities.ActivityTestUtils;
 import com.springvuegradle.utilities.FormatHelper;
 import com.springvuegradle.utilities.InitialDataHelper;
@@ -22,7 +24,9 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.util.StringUtils;
 
 import java.security.AccessControlException;
@@ -55,6 +59,10 @@ class ActivityServiceTest {
     NotificationRepository notificationRepository;
     @Autowired
     PassportCountryRepository passportCountryRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
 
     /**
      * Needs to be run before each test to create new test profiles and repositories.
@@ -324,6 +332,30 @@ class ActivityServiceTest {
         assertEquals(0, activityRepository.count());
     }
 
+    /**
+     * Test that deleting an activity removes its memberships and participations but leaves other activities alone
+     **/
+    @Test
+    void deleteActivityRemovesMembershipsAndParticipationsTest() {
+        Profile profile = profileRepository.save(createNormalProfileBen());
+        Profile member = profileRepository.save(createNormalProfileJohnny());
+        Activity activity = activityRepository.save(createNormalActivityKaikoura());
+        Activity otherActivity = activityRepository.save(createNormalActivityKaikoura());
+        activityMembershipRepository.save(new ActivityMembership(activity, profile, ActivityMembership.Role.CREATOR));
+        activityMembershipRepository.save(new ActivityMembership(activity, member, ActivityMembership.Role.PARTICIPANT));
+        activityMembershipRepository.save(new ActivityMembership(otherActivity, member, ActivityMembership.Role.CREATOR));
+        service.createParticipation(activity.getId(), member.getId(), ActivityTestUtils.createNormalParticipation());
+        service.createParticipation(otherActivity.getId(), member.getId(), ActivityTestUtils.createNormalParticipation());
+
+        assertTrue(service.delete(activity.getId(), profile.getId()));
+
+        assertFalse(activityRepository.existsById(activity.getId()));
+        assertTrue(activityMembershipRepository.findActivityMembershipsByActivity_Id(activity.getId()).isEmpty());
+        assertTrue(activityParticipationRepository.findAllByActivityId(activity.getId()).isEmpty());
+        assertEquals(1, activityMembershipRepository.findActivityMembershipsByActivity_Id(otherActivity.getId()).size());
+        assertEquals(1, activityParticipationRepository.findAllByActivityId(otherActivity.getId()).size());
+    }
+
     /**
      * Test to remove a profiles membership from an activity they have membership with
      **/
@@ -805,6 +837,68 @@ class ActivityServiceTest {
         assertEquals(1, list.size());
     }
 
+    /**
+     * Tests that the activities a user can modify are the ones they created at any privacy level, and the ones they
+     * organise unless private, returned a page at a time in the order they were created.
+     */
+    @Test
+    void getActivitiesUserCanModifyPagesByIdTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        Profile johnny = profileRepository.save(createNormalProfileJohnny());
+        Activity organisedPrivate = createNormalActivity();
+        organisedPrivate.setPrivacyLevel(0);
+        controller.createActivity(benny.getId(), organisedPrivate, null, true);
+        service.addActivityRole(organisedPrivate.getId(), johnny.getId(), "organiser");
+        Activity organisedPublic = createNormalActivity();
+        organisedPublic.setPrivacyLevel(2);
+        controller.createActivity(benny.getId(), organisedPublic, null, true);
+        service.addActivityRole(organisedPublic.getId(), johnny.getId(), "organiser");
+        Activity created = createNormalActivity();
+        created.setPrivacyLevel(0);
+        controller.createActivity(johnny.getId(), created, null, true);
+
+        List<Activity> list = service.getActivitiesUserCanModify(johnny.getId(), 0, 5, johnny.getAuthLevel());
+        assertEquals(2, list.size());
+        assertEquals(organisedPublic.getId(), list.get(0).getId());
+        assertEquals(created.getId(), list.get(1).getId());
+
+        assertEquals(3, service.getActivitiesUserCanModify(johnny.getId(), 0, 5, 1).size());
+        list = service.getActivitiesUserCanModify(johnny.getId(), 2, 1, 1);
+        assertEquals(1, list.size());
+        assertEquals(created.getId(), list.get(0).getId());
+    }
+
+    /**
+     * Tests that discovering activities skips the ones the user has a role in, and private or restricted activities
+     * unless the user is an admin.
+     */
+    @Test
+    void getNewActivitiesExcludesMembershipsAndNonPublicTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        Profile johnny = profileRepository.save(createNormalProfileJohnny());
+        Activity joined = createNormalActivity();
+        joined.setPrivacyLevel(2);
+        controller.createActivity(benny.getId(), joined, null, true);
+        service.addActivityRole(joined.getId(), johnny.getId(), "participant");
+        Activity open = createNormalActivity();
+        open.setPrivacyLevel(2);
+        controller.createActivity(benny.getId(), open, null, true);
+        Activity hidden = createNormalActivity();
+        hidden.setPrivacyLevel(1);
+        controller.createActivity(benny.getId(), hidden, null, true);
+
+        List<Activity> list = service.getNewActivities(johnny.getId(), 0, 5, johnny.getAuthLevel());
+        assertEquals(1, list.size());
+        assertEquals(open.getId(), list.get(0).getId());
+
+        list = service.getNewActivities(johnny.getId(), 0, 5, 1);
+        assertEquals(2, list.size());
+        list = service.getNewActivities(johnny.getId(), 1, 1, 1);
+        assertEquals(1, list.size());
+        assertEquals(hidden.getId(), list.get(0).getId());
+        assertTrue(service.getNewActivities(benny.getId(), 0, 5, 1).isEmpty());
+    }
+
     /**
      * Test getting all public activities.
      */
@@ -889,7 +983,8 @@ class ActivityServiceTest {
     }
 
     /**
-     * Ensures an activity with multiple roles returns the correct number
+     * Ensures an activity with multiple roles saved straight to the repository returns the correct number once the
+     * role counts are rebuilt
      */
     @Test
     void getActivityRoleCountWithMultipleRolesTest() {
@@ -900,9 +995,114 @@ class ActivityServiceTest {
         activityMembershipRepository.save(new ActivityMembership(activity, creator, ActivityMembership.Role.ORGANISER));
         activityMembershipRepository.save(new ActivityMembership(activity, participant, ActivityMembership.Role.PARTICIPANT));
         activityMembershipRepository.save(new ActivityMembership(activity, follower, ActivityMembership.Role.FOLLOWER));
+        activityMembershipRepository.flush();
+        assertTrue(service.rebuildRoleCounts() >= 1);
         assertEquals(new ActivityRoleCountResponse(1, 1, 1), service.getRoleCounts(activity.getId()));
     }
 
+    /**
+     * Ensures the role counts of an activity saved before the counters existed are filled in once, leaving activities
+     * already counted alone
+     */
+    @Test
+    void fillMissingRoleCountsOnlyCountsUncountedActivitiesTest() {
+        Activity counted = activityRepository.save(createNormalActivityKaikoura());
+        Activity uncounted = activityRepository.save(createNormalActivityKaikoura());
+        Profile organiser = profileRepository.save(createNormalProfileBen());
+        Profile follower = profileRepository.save(createNormalProfileJohnny());
+        activityMembershipRepository.save(new ActivityMembership(counted, organiser, ActivityMembership.Role.PARTICIPANT));
+        activityMembershipRepository.save(new ActivityMembership(uncounted, organiser, ActivityMembership.Role.ORGANISER));
+        activityMembershipRepository.save(new ActivityMembership(uncounted, follower, ActivityMembership.Role.FOLLOWER));
+        activityMembershipRepository.flush();
+        jdbcTemplate.update("UPDATE activity SET organiser_count = NULL, participant_count = NULL, " +
+                "follower_count = NULL WHERE id = ?", uncounted.getId());
+        assertEquals(new ActivityRoleCountResponse(0, 0, 0), service.getRoleCounts(uncounted.getId()));
+
+        assertEquals(1, ActivityRoleCountHelper.fillMissingRoleCounts(jdbcTemplate, transactionManager));
+        assertEquals(new ActivityRoleCountResponse(1, 0, 1), service.getRoleCounts(uncounted.getId()));
+        assertEquals(new ActivityRoleCountResponse(0, 0, 0), service.getRoleCounts(counted.getId()));
+        assertEquals(0, ActivityRoleCountHelper.fillMissingRoleCounts(jdbcTemplate, transactionManager));
+    }
+
+    /**
+     * Ensures the role counts follow members being added, changing role and leaving through the service
+     */
+    @Test
+    void getActivityRoleCountFollowsMembershipChangesTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        Profile johnny = profileRepository.save(createNormalProfileJohnny());
+        Activity activity = createNormalActivity();
+        controller.createActivity(benny.getId(), activity, null, true);
+
+        service.addActivityRole(activity.getId(), johnny.getId(), "participant");
+        assertEquals(new ActivityRoleCountResponse(0, 1, 0), service.getRoleCounts(activity.getId()));
+        service.setProfileRole(johnny.getId(), benny.getId(), activity.getId(), ActivityMembership.Role.FOLLOWER);
+        assertEquals(new ActivityRoleCountResponse(0, 0, 1), service.getRoleCounts(activity.getId()));
+        service.addActivityRole(activity.getId(), johnny.getId(), "organiser");
+        assertEquals(new ActivityRoleCountResponse(1, 0, 0), service.getRoleCounts(activity.getId()));
+        assertTrue(service.removeMembership(johnny.getId(), activity.getId()));
+        assertEquals(new ActivityRoleCountResponse(0, 0, 0), service.getRoleCounts(activity.getId()));
+    }
+
+    /**
+     * Ensures addMembers adds new members, changes the role of existing ones and keeps the role counts up to date
+     */
+    @Test
+    void addMembersAddsAndUpdatesMembershipsTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        Profile johnny = profileRepository.save(createNormalProfileJohnny());
+        Profile mim = profileRepository.save(createNormalProfileMim());
+        Activity activity = createNormalActivity();
+        controller.createActivity(benny.getId(), activity, null, true);
+
+        service.addMembers(List.of(new MembersRequest("jimjam@hotmail.com", "participant"),
+                new MembersRequest("jacky@google.com", "follower")), activity.getId());
+        assertEquals(new ActivityRoleCountResponse(0, 1, 1), service.getRoleCounts(activity.getId()));
+
+        service.addMembers(List.of(new MembersRequest("jimjam@hotmail.com", "organiser"),
+                new MembersRequest("jacky@google.com", "follower")), activity.getId());
+        assertEquals(new ActivityRoleCountResponse(1, 0, 1), service.getRoleCounts(activity.getId()));
+        assertEquals(ActivityMembership.Role.ORGANISER, activityMembershipRepository
+                .findByActivity_IdAndProfile_Id(activity.getId(), johnny.getId()).get().getRole());
+        assertEquals(ActivityMembership.Role.FOLLOWER, activityMembershipRepository
+                .findByActivity_IdAndProfile_Id(activity.getId(), mim.getId()).get().getRole());
+        assertEquals(ActivityMembership.Role.CREATOR, activityMembershipRepository
+                .findByActivity_IdAndProfile_Id(activity.getId(), benny.getId()).get().getRole());
+    }
+
+    /**
+     * Ensures addMembers finds a member whose primary email was stored in mixed case
+     */
+    @Test
+    void addMembersWithMixedCaseAddressTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        Profile mixedCase = profileRepository.save(createNormalProfileBen("Ben@Example.com"));
+        Activity activity = createNormalActivity();
+        controller.createActivity(benny.getId(), activity, null, true);
+
+        service.addMembers(List.of(new MembersRequest("Ben@Example.com", "participant")), activity.getId());
+        assertEquals(new ActivityRoleCountResponse(0, 1, 0), service.getRoleCounts(activity.getId()));
+        assertEquals(ActivityMembership.Role.PARTICIPANT, activityMembershipRepository
+                .findByActivity_IdAndProfile_Id(activity.getId(), mixedCase.getId()).get().getRole());
+    }
+
+    /**
+     * Ensures addMembers adds nobody when one of the emails is not the primary email of a profile
+     */
+    @Test
+    void addMembersWithUnknownEmailTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        profileRepository.save(createNormalProfileJohnny());
+        Activity activity = createNormalActivity();
+        controller.createActivity(benny.getId(), activity, null, true);
+        List<MembersRequest> members = List.of(new MembersRequest("jimjam@hotmail.com", "participant"),
+                new MembersRequest("nobody@hotmail.com", "participant"));
+        long activityId = activity.getId();
+
+        assertThrows(IllegalArgumentException.class, () -> service.addMembers(members, activityId));
+        assertEquals(1, activityMembershipRepository.findActivityMembershipsByActivity_Id(activityId).size());
+    }
+
     /**
      * Test that a FOLLOWER cannot change the role to an ORGANISER.
      * Throws an exception error
@@ -1205,6 +1405,47 @@ class ActivityServiceTest {
         assertThrows(IllegalArgumentException.class, () -> service.clearActivityRoleList(1l, 915730971L, "FOLLOWER"));
     }
 
+    /**
+     * Ensures clearing a role removes only the members with that role and sends one notification about all of them
+     */
+    @Test
+    void clearActivityRoleListRemovesRoleWithOneNotificationTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        profileRepository.save(createNormalProfileJohnny());
+        profileRepository.save(createNormalProfileMim());
+        Activity activity = createNormalActivity();
+        controller.createActivity(benny.getId(), activity, null, true);
+        long activityId = activity.getId();
+        service.addMembers(List.of(new MembersRequest("jimjam@hotmail.com", "follower"),
+                new MembersRequest("jacky@google.com", "follower")), activityId);
+        long notificationCount = notificationRepository.count();
+
+        service.clearActivityRoleList(benny.getId(), activityId, "FOLLOWER");
+        assertEquals(new ActivityRoleCountResponse(0, 0, 0), service.getRoleCounts(activityId));
+        assertEquals(1, activityMembershipRepository.findActivityMembershipsByActivity_Id(activityId).size());
+        assertEquals(notificationCount + 1, notificationRepository.count());
+        Notification notification = notificationRepository.findById(notificationRepository.getLastInsertedId()).get();
+        assertEquals(NotificationType.ACTIVITY_FOLLOWER_REMOVED, notification.getNotificationType());
+        assertEquals(String.format("%s removed 2 followers from the activity %s", benny.getFirstAndLastName(),
+                activity.getActivityName()), notification.getMessage());
+    }
+
+    /**
+     * Ensures a member who is not an organiser or creator cannot clear a role
+     */
+    @Test
+    void clearActivityRoleListAsFollowerThrowsExceptionTest() {
+        Profile benny = profileRepository.save(createNormalProfileBen());
+        Profile johnny = profileRepository.save(createNormalProfileJohnny());
+        Activity activity = createNormalActivity();
+        controller.createActivity(benny.getId(), activity, null, true);
+        long activityId = activity.getId();
+        service.addActivityRole(activityId, johnny.getId(), "follower");
+
+        assertThrows(AccessControlException.class, () -> service.clearActivityRoleList(johnny.getId(), activityId, "FOLLOWER"));
+        assertEquals(new ActivityRoleCountResponse(0, 0, 1), service.getRoleCounts(activityId));
+    }
+
     /**
      * Tests you can get an participation object that exists in the database using the readParticipation method.
      */
@@ -1290,6 +1531,18 @@ class ActivityServiceTest {
         assertEquals(service.filterActivitiesByActivityTypes(List.of(activityOne, activityTwo, activityThree), requiredActivityTypes, "any"), List.of(activityOne, activityTwo));
     }
 
+    @Test
+    void filterByActivityTypesWithoutMaskBitsTest() {
+        Activity activityOne = activityRepository.save(createNormalActivity());
+        Activity activityTwo = activityRepository.save(createNormalActivity());
+        ActivityType xbox = typeRepository.save(new ActivityType("xbox"));
+        activityOne.addActivityType(xbox);
+        activityRepository.save(activityOne);
+        // an unsaved type has no mask bit, so the types of each activity are compared instead
+        List<ActivityType> requiredActivityTypes = List.of(new ActivityType("xbox"));
+        assertEquals(List.of(activityOne), service.filterActivitiesByActivityTypes(List.of(activityOne, activityTwo), requiredActivityTypes, "any"));
+    }
+
     /**
      * Tests the readParticipation method that it throws an error when a participation with the given id does not exist
      * in the database.
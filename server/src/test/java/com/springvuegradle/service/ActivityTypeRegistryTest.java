@@ -0,0 +1,80 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.model.ActivityType;
+import com.springvuegradle.repositories.ActivityTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+class ActivityTypeRegistryTest {
+
+    @Autowired
+    ActivityTypeRepository typeRepository;
+
+    @Autowired
+    ActivityTypeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        typeRepository.deleteAll();
+        typeRepository.save(new ActivityType("Hiking"));
+        typeRepository.save(new ActivityType("Tennis"));
+        typeRepository.save(new ActivityType("Yoga"));
+    }
+
+    @Test
+    void ordinalsFollowTheOrderTypesWereAdded() {
+        assertEquals(3, registry.size());
+        assertEquals(0, registry.getOrdinal("Hiking"));
+        assertEquals(2, registry.getOrdinal("Yoga"));
+        assertEquals("Tennis", registry.getName(1));
+        assertEquals(-1, registry.getOrdinal("Curling"));
+    }
+
+    @Test
+    void savedTypeIsFoundStraightAway() {
+        assertFalse(registry.exists("Curling"));
+        typeRepository.save(new ActivityType("Curling"));
+        assertTrue(registry.exists("Curling"));
+        assertEquals(3, registry.getOrdinal("Curling"));
+    }
+
+    @Test
+    void deletedTypeIsForgotten() {
+        typeRepository.delete(typeRepository.getByActivityTypeName("Tennis"));
+        assertFalse(registry.exists("Tennis"));
+        assertEquals(1, registry.getOrdinal("Yoga"));
+    }
+
+    @Test
+    void savedTypesAreGivenMaskBits() {
+        ActivityType curling = typeRepository.save(new ActivityType("Curling"));
+        assertNotNull(curling.getMaskBit());
+        assertEquals(1L << curling.getMaskBit(), registry.getMask(List.of("Curling")));
+        assertEquals(registry.getMask(List.of("Hiking")) | registry.getMask(List.of("Yoga")),
+                registry.getMask(List.of("Hiking", "Yoga")));
+        assertNull(registry.getMask(List.of("Hiking", "Sumo")));
+    }
+
+    @Test
+    void getActivityTypesReturnsStoredTypesInOrder() {
+        List<ActivityType> types = registry.getActivityTypes(List.of("Yoga", "Hiking", "Yoga"));
+        assertEquals(2, types.size());
+        assertSame(typeRepository.getByActivityTypeName("Yoga"), types.get(0));
+        assertSame(typeRepository.getByActivityTypeName("Hiking"), types.get(1));
+    }
+
+    @Test
+    void getActivityTypesWithUnknownTypeThrows() {
+        assertThrows(IllegalArgumentException.class, () -> registry.getActivityTypes(List.of("Hiking", "Curling")));
+    }
+}
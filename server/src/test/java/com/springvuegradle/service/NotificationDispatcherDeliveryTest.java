@@ -0,0 +1,114 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.dto.responses.NotificationFanOutMetrics;
+import com.springvuegradle.model.Activity;
+import com.springvuegradle.model.Notification;
+import com.springvuegradle.model.Profile;
+import com.springvuegradle.repositories.NotificationRepository;
+import com.springvuegradle.repositories.ProfileRepository;
+import com.springvuegradle.utilities.ActivityTestUtils;
+import com.springvuegradle.utilities.ProfileTestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Delivers notifications on the dispatcher's worker threads against the database. The tests run outside of a test
+ * transaction, as notifications are only queued once the transaction creating them commits, so they clean up the rows
+ * they create themselves.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "notifications.async.enabled=true")
+class NotificationDispatcherDeliveryTest {
+
+    @Autowired
+    NotificationDispatcher dispatcher;
+    @Autowired
+    NotificationService notificationService;
+    @Autowired
+    ActivityService activityService;
+    @Autowired
+    ProfileService profileService;
+    @Autowired
+    ProfileRepository profileRepository;
+    @Autowired
+    NotificationRepository notificationRepository;
+
+    private final List<Long> profileIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        awaitDelivery();
+        for (Long profileId : profileIds) {
+            if (profileRepository.existsById(profileId)) {
+                profileService.deleteProfile(profileId);
+            }
+        }
+        notificationRepository.deleteAll();
+    }
+
+    private Profile saveProfile(Profile profile) {
+        Profile saved = profileRepository.save(profile);
+        profileIds.add(saved.getId());
+        return saved;
+    }
+
+    private NotificationFanOutMetrics awaitDelivery() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        NotificationFanOutMetrics metrics = dispatcher.getMetrics();
+        while (metrics.getTasksCompleted() + metrics.getTasksFailed() < metrics.getTasksQueued()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            metrics = dispatcher.getMetrics();
+        }
+        return metrics;
+    }
+
+    @Test
+    void deletingCreatorStillNotifiesRemainingMembersTest() throws InterruptedException {
+        Profile creator = saveProfile(ProfileTestUtils.createProfileNoPassportCountry());
+        Profile member = saveProfile(ProfileTestUtils.createNormalProfileMaurice());
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityService.create(activity, creator.getId());
+        activityService.addActivityRole(activity.getId(), member.getId(), "follower");
+        long failedBefore = awaitDelivery().getTasksFailed();
+
+        profileService.deleteProfile(creator.getId());
+
+        NotificationFanOutMetrics metrics = awaitDelivery();
+        assertEquals(failedBefore, metrics.getTasksFailed());
+        List<Notification> feed = notificationService.getSortedNotifications(member.getId(), 10, 0);
+        assertTrue(feed.stream().anyMatch(notification ->
+                notification.getMessage().contains("deleted an activity called " + activity.getActivityName())));
+    }
+
+    @Test
+    void deliveryToDeletedRecipientSkipsThemTest() throws InterruptedException {
+        Profile deleted = saveProfile(ProfileTestUtils.createProfileNoPassportCountry());
+        Profile member = saveProfile(ProfileTestUtils.createNormalProfileMaurice());
+        Notification notification = notificationRepository.save(ProfileTestUtils.createNormalNotificationWithTypeBeing0());
+        long failedBefore = awaitDelivery().getTasksFailed();
+        profileService.deleteProfile(deleted.getId());
+
+        dispatcher.dispatch(notification.getId(), notification.getTimeStamp(), List.of(deleted.getId(), member.getId()));
+
+        assertEquals(failedBefore, awaitDelivery().getTasksFailed());
+        assertEquals(List.of(notification.getId()),
+                notificationService.getSortedNotifications(member.getId(), 10, 0).stream()
+                        .map(Notification::getId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.dto.responses.NotificationFanOutMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDispatcherTest {
+
+    private final JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyRecipientsInserted(List<Long> recipientIds) {
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(anyString(), eq(recipientIds), eq(500),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void dispatchInsertsRecipientsOnWorkerTest() {
+        dispatcher = new NotificationDispatcher(jdbcTemplate, transactionManager, true, 1, 10, 500);
+        dispatcher.start();
+
+        dispatcher.dispatch(1L, OffsetDateTime.now(), List.of(2L, 3L, 4L));
+
+        verifyRecipientsInserted(List.of(2L, 3L, 4L));
+        NotificationFanOutMetrics metrics = dispatcher.getMetrics();
+        assertEquals(1, metrics.getTasksQueued());
+        assertEquals(0, metrics.getTasksRunByCaller());
+        assertEquals(10, metrics.getQueueCapacity());
+        assertEquals(1, metrics.getWorkers());
+    }
+
+    @Test
+    void disabledDispatcherInsertsRecipientsOnCallerTest() {
+        dispatcher = new NotificationDispatcher(jdbcTemplate, transactionManager, false, 1, 10, 500);
+        dispatcher.start();
+
+        dispatcher.dispatch(1L, OffsetDateTime.now(), List.of(2L));
+
+        verifyRecipientsInserted(List.of(2L));
+        NotificationFanOutMetrics metrics = dispatcher.getMetrics();
+        assertEquals(1, metrics.getTasksRunByCaller());
+        assertEquals(1, metrics.getTasksCompleted());
+        assertEquals(1, metrics.getRecipientsInserted());
+    }
+
+    @Test
+    void dispatchWithoutRecipientsDoesNothingTest() {
+        dispatcher = new NotificationDispatcher(jdbcTemplate, transactionManager, false, 1, 10, 500);
+
+        dispatcher.dispatch(1L, OffsetDateTime.now(), List.of());
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(0, dispatcher.getMetrics().getTasksQueued());
+    }
+
+    @Test
+    void failedDeliveryIsCountedTest() {
+        dispatcher = new NotificationDispatcher(jdbcTemplate, transactionManager, false, 1, 10, 500);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("Database unavailable"));
+
+        dispatcher.dispatch(1L, OffsetDateTime.now(), List.of(2L));
+
+        assertEquals(1, dispatcher.getMetrics().getTasksFailed());
+        assertEquals(0, dispatcher.getMetrics().getTasksCompleted());
+    }
+}
@@ -44,6 +44,9 @@ public class NotificationServiceTest {
     @Autowired
     private ProfileLocationRepository profileLocationRepository;
 
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
     @BeforeEach
     void setUp() {
         profileLocationRepository.deleteAll();
@@ -108,12 +111,15 @@ public class NotificationServiceTest {
 
     void saveNotifications(Profile profile, Activity activity) {
         Notification notification1 = new Notification("activity created", activity, profile, NotificationType.ACTIVITY_CREATED);
+        notification1.addRecipient(profile);
         notificationRepository.save(notification1);
         profile.addNotification(notification1);
         Notification notification2 = new Notification("activity has new follower", activity, profile, NotificationType.ACTIVITY_FOLLOWER_ADDED);
+        notification2.addRecipient(profile);
         notificationRepository.save(notification2);
         profile.addNotification(notification2);
         Notification notification3 = new Notification("activity has removed a follower", activity, profile, NotificationType.NOTIFICATION_TYPE);
+        notification3.addRecipient(profile);
         notificationRepository.save(notification3);
         profile.addNotification(notification3);
     }
@@ -171,6 +177,174 @@ public class NotificationServiceTest {
         assertEquals(1, notificationsList.size());
     }
 
+    @Test
+    void getNotificationsWithUnalignedStartIndexStartsAtThatNotificationTest() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.save(profile);
+        saveNotifications(profile, activity);
+
+        long profileId = profile.getId();
+        List<Notification> allNotifications = notificationService.getSortedNotifications(profileId, 3, 0);
+        List<Notification> notificationsList = notificationService.getSortedNotifications(profileId, 2, 1);
+        assertEquals(allNotifications.subList(1, 3), notificationsList);
+    }
+
+    @Test
+    void getNotificationsOnlyReturnsNotificationsProfileReceivedTest() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Profile otherProfile = ProfileTestUtils.createProfileWithMinimalFields();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.saveAll(List.of(profile, otherProfile));
+        saveNotifications(profile, activity);
+        saveNotifications(otherProfile, activity);
+
+        List<Notification> notificationsList = notificationService.getSortedNotifications(profile.getId(), 10, 0);
+        assertEquals(3, notificationsList.size());
+        for (Notification notification : notificationsList) {
+            assertTrue(notification.getRecipients().stream().anyMatch(recipient -> recipient.getId().equals(profile.getId())));
+        }
+    }
+
+    @Test
+    void getNotificationsBeforeCursorReturnsFollowingPageTest() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.save(profile);
+        saveNotifications(profile, activity);
+        saveNotifications(profile, activity);
+
+        List<Notification> allNotifications = notificationService.getSortedNotifications(profile.getId(), 6, 0);
+        List<Notification> firstPage = notificationService.getSortedNotifications(profile.getId(), 4, 0);
+        String cursor = NotificationService.getCursor(firstPage.get(3));
+        List<Notification> secondPage = notificationService.getSortedNotificationsBefore(profile.getId(), 4, cursor);
+
+        assertEquals(allNotifications.subList(0, 4), firstPage);
+        assertEquals(allNotifications.subList(4, 6), secondPage);
+    }
+
+    @Test
+    void newNotificationsAreUnreadTest() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.save(profile);
+        saveNotifications(profile, activity);
+
+        assertEquals(3, notificationService.getUnreadCount(profile.getId()));
+    }
+
+    @Test
+    void markReadOnlyMarksGivenNotificationsTest() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.save(profile);
+        saveNotifications(profile, activity);
+        List<Notification> notifications = notificationService.getSortedNotifications(profile.getId(), 3, 0);
+
+        assertEquals(2, notificationService.markRead(profile.getId(),
+                List.of(notifications.get(0).getId(), notifications.get(1).getId())));
+        assertEquals(1, notificationService.getUnreadCount(profile.getId()));
+        assertEquals(0, notificationService.markRead(profile.getId(), List.of(notifications.get(0).getId())));
+    }
+
+    @Test
+    void markReadWithoutIdsMarksAllNotificationsTest() {
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Profile otherProfile = ProfileTestUtils.createProfileWithMinimalFields();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.saveAll(List.of(profile, otherProfile));
+        saveNotifications(profile, activity);
+        saveNotifications(otherProfile, activity);
+
+        assertEquals(3, notificationService.markRead(profile.getId(), List.of()));
+        assertEquals(0, notificationService.getUnreadCount(profile.getId()));
+        assertEquals(3, notificationService.getUnreadCount(otherProfile.getId()));
+    }
+
+    @Test
+    void getUnreadCountInvalidProfileErrorTest() {
+        assertThrows(IllegalArgumentException.class, () -> notificationService.getUnreadCount(420L));
+    }
+
+    @Test
+    void repeatedEditsInsideWindowAreCoalescedTest() {
+        NotificationService coalescingService = new NotificationService(notificationRepository, inboxEntryRepository,
+                profileRepository, activityMembershipRepository, null, null, 60);
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.save(profile);
+        activity.addMember(new ActivityMembership(activity, profile, ActivityMembership.Role.CREATOR));
+
+        for (int i = 0; i < 4; i++) {
+            coalescingService.createNotification(NotificationType.ACTIVITY_EDITED, activity, profile,
+                    "Jimmy edited an activity called Run.");
+        }
+
+        assertEquals(1, notificationRepository.count());
+        Notification notification = notificationRepository.findAll().get(0);
+        assertEquals(4, notification.getOccurrences());
+        assertEquals("Jimmy edited an activity called Run 4 times.", notification.getMessage());
+    }
+
+    @Test
+    void differentTypesAreNotCoalescedTest() {
+        NotificationService coalescingService = new NotificationService(notificationRepository, inboxEntryRepository,
+                profileRepository, activityMembershipRepository, null, null, 60);
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.save(profile);
+
+        coalescingService.createNotification(NotificationType.ACTIVITY_EDITED, activity, profile, "edited");
+        coalescingService.createNotification(NotificationType.ACTIVITY_PRIVACY_CHANGED, activity, profile, "public");
+        coalescingService.createNotification(NotificationType.ACTIVITY_PRIVACY_CHANGED, activity, profile, "private");
+
+        assertEquals(2, notificationRepository.count());
+        assertTrue(notificationRepository.findAll().stream().anyMatch(notification ->
+                notification.getMessage().equals("private") && notification.getOccurrences() == 2));
+    }
+
+    @Test
+    void coalescedNotificationIsUnreadAgainTest() {
+        NotificationService coalescingService = new NotificationService(notificationRepository, inboxEntryRepository,
+                profileRepository, activityMembershipRepository, null, null, 60);
+        Profile profile = ProfileTestUtils.createProfileJimmyAlternate();
+        Activity activity = ActivityTestUtils.createNormalActivity();
+        activityRepository.save(activity);
+        profileRepository.save(profile);
+        activity.addMember(new ActivityMembership(activity, profile, ActivityMembership.Role.CREATOR));
+
+        coalescingService.createNotification(NotificationType.ACTIVITY_EDITED, activity, profile, "edited.");
+        coalescingService.markRead(profile.getId(), null);
+        assertEquals(0, coalescingService.getUnreadCount(profile.getId()));
+        coalescingService.createNotification(NotificationType.ACTIVITY_EDITED, activity, profile, "edited.");
+
+        assertEquals(1, coalescingService.getUnreadCount(profile.getId()));
+    }
+
+    @Test
+    void coalescedMessageCountsOccurrencesTest() {
+        assertEquals("Jimmy edited an activity called Run 3 times.",
+                NotificationService.getCoalescedMessage("Jimmy edited an activity called Run.", 3));
+        assertEquals("Jimmy edited participation results of activity called Run 2 times.\nOutcome: Finished",
+                NotificationService.getCoalescedMessage("Jimmy edited participation results of activity called Run.\nOutcome: Finished", 2));
+    }
+
+    @Test
+    void cursorValidationTest() {
+        assertTrue(NotificationService.isValidCursor("2020-05-01T10:15:30.123+12:00,42"));
+        assertFalse(NotificationService.isValidCursor("2020-05-01T10:15:30.123+12:00"));
+        assertFalse(NotificationService.isValidCursor("yesterday,42"));
+        assertFalse(NotificationService.isValidCursor("2020-05-01T10:15:30.123+12:00,latest"));
+    }
+
     /**
      * Helper function to compare two notifications based on their activity, message and notificationType
      * @param notificationOne
@@ -207,12 +381,15 @@ public class NotificationServiceTest {
         profileRepository.save(profile);
 
         Notification notification1 = new Notification("activity created", activity, profile, NotificationType.ACTIVITY_CREATED);
+        notification1.addRecipient(profile);
         notificationRepository.save(notification1);
         profile.addNotification(notification1);
         Notification notification2 = new Notification("activity has new follower", activity, profile, NotificationType.ACTIVITY_FOLLOWER_ADDED);
+        notification2.addRecipient(profile);
         notificationRepository.save(notification2);
         profile.addNotification(notification2);
         Notification notification3 = new Notification("activity has removed a follower", activity, profile, NotificationType.NOTIFICATION_TYPE);
+        notification3.addRecipient(profile);
         notificationRepository.save(notification3);
         profile.addNotification(notification3);
 
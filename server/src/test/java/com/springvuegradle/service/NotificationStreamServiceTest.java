@@ -0,0 +1,59 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.enums.NotificationType;
+import com.springvuegradle.model.Notification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationStreamServiceTest {
+
+    private final NotificationStreamService streamService = new NotificationStreamService(60000, 10, 2, 5, 1);
+
+    @AfterEach
+    void tearDown() {
+        streamService.stop();
+    }
+
+    @Test
+    void noSubscribersBeforeConnectingTest() {
+        assertFalse(streamService.hasSubscribers());
+        assertEquals(0, streamService.getConnectionCount());
+    }
+
+    @Test
+    void subscribeBeyondMaxConnectionsClosesOldestTest() {
+        streamService.subscribe(1L, null);
+        streamService.subscribe(1L, null);
+        streamService.subscribe(1L, null);
+        streamService.subscribe(2L, null);
+
+        assertTrue(streamService.hasSubscribers());
+        assertEquals(3, streamService.getConnectionCount());
+    }
+
+    @Test
+    void reconnectingAsksForOneMoreThanReplayLimitTest() {
+        List<Integer> requestedLimits = new ArrayList<>();
+        streamService.subscribe(1L, limit -> {
+            requestedLimits.add(limit);
+            return List.of();
+        });
+
+        assertEquals(List.of(6), requestedLimits);
+    }
+
+    @Test
+    void publishToOtherProfilesKeepsConnectionOpenTest() {
+        streamService.subscribe(1L, null);
+        Notification notification = new Notification("Activity edited", null, null, NotificationType.ACTIVITY_EDITED);
+
+        streamService.publish(notification, List.of(2L, 3L));
+
+        assertEquals(1, streamService.getConnectionCount());
+    }
+}
@@ -2,11 +2,17 @@ package com.springvuegradle.service;
 
 import com.springvuegradle.controller.Profile_Controller;
 import com.springvuegradle.enums.AuthLevel;
+import com.springvuegradle.enums.NotificationType;
 import com.springvuegradle.enums.ProfileErrorMessage;
+import com.springvuegradle.model.Activity;
+import com.springvuegradle.model.ActivityMembership;
+import com.springvuegradle.model.ActivityType;
 import com.springvuegradle.model.Email;
+import com.springvuegradle.model.Notification;
 import com.springvuegradle.model.Profile;
 import com.springvuegradle.model.ProfileLocation;
 import com.springvuegradle.model.ProfileSearchCriteria;
+import com.springvuegradle.utilities.ActivityTestUtils;
 import com.springvuegradle.utilities.ProfileTestUtils;
 import com.springvuegradle.repositories.EmailRepository;
 import com.springvuegradle.repositories.ProfileRepository;
@@ -53,6 +59,15 @@ class ProfileServiceTest {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private ActivityMembershipRepository membershipRepository;
+
+    @Autowired
+    private ActivityTypeRepository activityTypeRepository;
+
     @AfterEach
     void tearDown() {
         profileLocationRepository.deleteAll();
@@ -259,6 +274,49 @@ class ProfileServiceTest {
         assertEquals(expectedProfiles.size(), actualProfiles.getTotalElements(), "Check page is of the right size.");
     }
 
+    @Test
+    void getUsersWithAllActivityTypesTest() {
+        ActivityType xbox = activityTypeRepository.save(new ActivityType("xbox"));
+        ActivityType playstation = activityTypeRepository.save(new ActivityType("playstation"));
+        jimmyOne.setActivityTypes(new HashSet<>(List.of(xbox, playstation)));
+        maurice.setActivityTypes(new HashSet<>(List.of(xbox)));
+        jimmyOne = profileRepository.save(jimmyOne);
+        maurice = profileRepository.save(maurice);
+        steven = profileRepository.save(steven);
+
+        ProfileSearchCriteria criteria = new ProfileSearchCriteria();
+        criteria.setActivityTypes(new String[]{"xbox", "playstation"});
+        criteria.setSearchMethod("all");
+        Page<Profile> actualProfiles = testService.getUsers(criteria, PageRequest.of(0, 10));
+        assertEquals(List.of(jimmyOne), actualProfiles.getContent());
+    }
+
+    @Test
+    void getUsersWithAnyActivityTypeTest() {
+        ActivityType xbox = activityTypeRepository.save(new ActivityType("xbox"));
+        ActivityType playstation = activityTypeRepository.save(new ActivityType("playstation"));
+        jimmyOne.setActivityTypes(new HashSet<>(List.of(playstation)));
+        maurice.setActivityTypes(new HashSet<>(List.of(xbox)));
+        jimmyOne = profileRepository.save(jimmyOne);
+        maurice = profileRepository.save(maurice);
+        steven = profileRepository.save(steven);
+
+        ProfileSearchCriteria criteria = new ProfileSearchCriteria();
+        criteria.setActivityTypes(new String[]{"xbox", "playstation"});
+        criteria.setSearchMethod("any");
+        Page<Profile> actualProfiles = testService.getUsers(criteria, PageRequest.of(0, 10));
+        assertEquals(Set.of(jimmyOne, maurice), new HashSet<>(actualProfiles.getContent()));
+    }
+
+    @Test
+    void getUsersWithUnknownActivityTypeReturnsNothingTest() {
+        profileRepository.save(jimmyOne);
+        ProfileSearchCriteria criteria = new ProfileSearchCriteria();
+        criteria.setActivityTypes(new String[]{"curling"});
+        criteria.setSearchMethod("any");
+        assertTrue(testService.getUsers(criteria, PageRequest.of(0, 10)).isEmpty());
+    }
+
     /**
      * Test to ensure HTTP Ok response returned when successfully adding a location to a profile.
      **/
@@ -424,6 +482,38 @@ class ProfileServiceTest {
         profileService.deleteProfile(steven.getId());
     }
 
+    @Test
+    void deleteProfileRemovesCreatedActivitiesAndMembershipsTest() {
+        saveWithEmails(steven);
+        saveWithEmails(maurice);
+        Activity stevensActivity = activityRepository.save(ActivityTestUtils.createActivity("Steven's run", -43.5, 172.6));
+        Activity mauricesActivity = activityRepository.save(ActivityTestUtils.createActivity("Maurice's ride", -41.3, 174.8));
+        addMember(stevensActivity, steven, ActivityMembership.Role.CREATOR);
+        addMember(stevensActivity, maurice, ActivityMembership.Role.FOLLOWER);
+        addMember(mauricesActivity, maurice, ActivityMembership.Role.CREATOR);
+        addMember(mauricesActivity, steven, ActivityMembership.Role.PARTICIPANT);
+        notificationService.createNotification(NotificationType.ACTIVITY_EDITED, mauricesActivity, maurice, "Maurice edited a ride.");
+
+        ResponseEntity<String> response = profileService.deleteProfile(steven.getId());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("Deleted 1 activities"));
+        assertFalse(profileRepository.existsById(steven.getId()));
+        assertFalse(activityRepository.existsById(stevensActivity.getId()));
+        assertTrue(emailRepository.findAllByAddress(steven.getPrimary_email()).isEmpty());
+        List<ActivityMembership> remainingMemberships = membershipRepository.findActivityMembershipsByActivity_Id(mauricesActivity.getId());
+        assertEquals(1, remainingMemberships.size());
+        assertEquals(maurice.getId(), remainingMemberships.get(0).getProfile().getId());
+        for (Notification notification : notificationRepository.findAll()) {
+            assertTrue(notification.getRecipients().stream().noneMatch(recipient -> recipient.getId().equals(steven.getId())));
+        }
+    }
+
+    private void addMember(Activity activity, Profile profile, ActivityMembership.Role role) {
+        ActivityMembership membership = membershipRepository.save(new ActivityMembership(activity, profile, role));
+        activity.addMember(membership);
+    }
+
     /**
      * Example test profile to use in tests
      **/
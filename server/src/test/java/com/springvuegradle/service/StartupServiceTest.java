@@ -0,0 +1,89 @@
+package com.springvuegradle.service;
+
+import com.springvuegradle.dto.responses.ReadinessResponse;
+import com.springvuegradle.enums.StartupTaskState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupServiceTest {
+
+    private StartupService startupService;
+
+    @AfterEach
+    void tearDown() {
+        startupService.stop();
+    }
+
+    @Test
+    void notReadyUntilApplicationHasStartedTest() {
+        startupService = new StartupService(true, 2);
+        assertFalse(startupService.isReady());
+        startupService.onApplicationReady();
+        assertTrue(startupService.isReady());
+    }
+
+    @Test
+    void readyOnceCriticalTasksAreDoneTest() throws Exception {
+        startupService = new StartupService(true, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> critical = startupService.submit("seed", true, release::await);
+        startupService.onApplicationReady();
+
+        ReadinessResponse readiness = startupService.getReadiness();
+        assertFalse(readiness.isReady());
+        assertEquals(List.of("seed"), readiness.getPending());
+
+        release.countDown();
+        critical.get(5, TimeUnit.SECONDS);
+        readiness = startupService.getReadiness();
+        assertTrue(readiness.isReady());
+        assertTrue(readiness.getPending().isEmpty());
+        assertEquals(StartupTaskState.DONE, readiness.getTasks().get(0).getState());
+    }
+
+    @Test
+    void deferredTasksWaitForCriticalTasksTest() throws Exception {
+        startupService = new StartupService(true, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean deferredRan = new AtomicBoolean();
+        startupService.submit("seed", true, release::await);
+        CompletableFuture<Void> deferred = startupService.defer("backfill", () -> deferredRan.set(true));
+        startupService.onApplicationReady();
+
+        assertEquals(StartupTaskState.PENDING, startupService.getReadiness().getTasks().get(1).getState());
+        assertFalse(deferredRan.get());
+
+        release.countDown();
+        deferred.get(5, TimeUnit.SECONDS);
+        assertTrue(deferredRan.get());
+    }
+
+    @Test
+    void taskWaitingOnFailedTaskFailsTest() {
+        startupService = new StartupService(false, 2);
+        AtomicBoolean dependentRan = new AtomicBoolean();
+        CompletableFuture<Void> failing = startupService.submit("seed", true, () -> {
+            throw new IOException("no database");
+        });
+        CompletableFuture<Void> dependent = startupService.submitAfter(failing, "masks", true, () -> dependentRan.set(true));
+
+        assertThrows(IllegalStateException.class, () -> startupService.awaitAll());
+        assertThrows(CompletionException.class, dependent::join);
+        startupService.onApplicationReady();
+        ReadinessResponse readiness = startupService.getReadiness();
+        assertFalse(readiness.isReady());
+        assertEquals("no database", readiness.getTasks().get(0).getError());
+        assertEquals(StartupTaskState.FAILED, readiness.getTasks().get(1).getState());
+        assertFalse(dependentRan.get());
+    }
+}
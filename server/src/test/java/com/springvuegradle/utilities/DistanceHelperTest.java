@@ -0,0 +1,48 @@
+package com.springvuegradle.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceHelperTest {
+
+    private final DistanceHelper.Points points = new DistanceHelper.Points(
+            new double[]{-43.5, -41.3, 38.9, Double.NaN},
+            new double[]{172.6, 174.8, -75.5, 172.6});
+
+    @Test
+    void distanceBetweenSameLocationsIsZeroTest() {
+        assertEquals(0, DistanceHelper.distance(-43.5, 172.6, -43.5, 172.6));
+    }
+
+    @Test
+    void distancesWithinMatchesSingleDistanceTest() {
+        double[] distances = new double[points.size()];
+        int matches = DistanceHelper.distancesWithin(points, -43.5, 172.6, 500000, distances);
+        assertEquals(2, matches);
+        assertEquals(0, distances[0]);
+        assertEquals(DistanceHelper.distance(-43.5, 172.6, -41.3, 174.8), distances[1]);
+        assertTrue(Double.isNaN(distances[2]));
+    }
+
+    @Test
+    void distancesWithinSkipsMissingCoordinatesTest() {
+        double[] distances = new double[points.size()];
+        DistanceHelper.distancesWithin(points, -43.5, 172.6, 100000000, distances);
+        assertTrue(Double.isNaN(distances[3]));
+    }
+
+    @Test
+    void distancesWithinWholeGlobeMatchesEveryLocationTest() {
+        double[] distances = new double[points.size()];
+        int matches = DistanceHelper.distancesWithin(points, -43.5, 172.6, 100000000, distances);
+        assertEquals(3, matches);
+        assertEquals(DistanceHelper.distance(-43.5, 172.6, 38.9, -75.5), distances[2]);
+    }
+
+    @Test
+    void distancesWithinSmallDistanceArrayThrowsExceptionTest() {
+        double[] distances = new double[1];
+        assertThrows(IllegalArgumentException.class, () -> DistanceHelper.distancesWithin(points, -43.5, 172.6, 1000, distances));
+    }
+}
@@ -5,6 +5,7 @@ import com.springvuegradle.repositories.ActivityTypeRepository;
 import com.springvuegradle.repositories.EmailRepository;
 import com.springvuegradle.repositories.PassportCountryRepository;
 import com.springvuegradle.repositories.ProfileRepository;
+import com.springvuegradle.service.ActivityTypeRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,6 +31,8 @@ class InitialDataHelperTest {
     PassportCountryRepository passportCountryRepository;
     @Autowired
     ActivityTypeRepository activityTypeRepository;
+    @Autowired
+    ActivityTypeRegistry activityTypeRegistry;
 
     /**
      * Needs to be run before each test to reset the repositories
@@ -68,10 +71,10 @@ class InitialDataHelperTest {
         addExampleProfiles(profileRepository, emailRepository);
         List<Profile> profiles = profileRepository.findAll();
         String result = verifyProfile(profiles.get(0), true, passportCountryRepository,
-                activityTypeRepository, emailRepository);
+                activityTypeRegistry, emailRepository);
         assertEquals("", result);
         result = verifyProfile(profiles.get(1), true, passportCountryRepository,
-                activityTypeRepository, emailRepository);
+                activityTypeRegistry, emailRepository);
         assertEquals("", result);
     }
 }
\ No newline at end of file
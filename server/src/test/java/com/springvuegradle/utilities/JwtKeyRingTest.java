@@ -0,0 +1,131 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.Profile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    private static final String PASSWORD = "changeit";
+
+    @TempDir
+    Path directory;
+
+    private Path keystorePath;
+    private KeyStore keyStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keystorePath = directory.resolve("jwt-keys.p12");
+        keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        addKey("2020-05");
+    }
+
+    private void addKey(String alias) throws Exception {
+        keyStore.setEntry(alias, new KeyStore.SecretKeyEntry(KeyGenerator.getInstance("HmacSHA256").generateKey()),
+                new KeyStore.PasswordProtection(PASSWORD.toCharArray()));
+        save();
+    }
+
+    private void removeKey(String alias) throws Exception {
+        keyStore.deleteEntry(alias);
+        save();
+    }
+
+    private void save() throws Exception {
+        FileTime previous = Files.exists(keystorePath) ? Files.getLastModifiedTime(keystorePath) : null;
+        try (OutputStream out = Files.newOutputStream(keystorePath)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+        // make sure the change is noticed even if the file system only keeps whole seconds
+        if (previous != null) {
+            Files.setLastModifiedTime(keystorePath, FileTime.fromMillis(previous.toMillis() + 1000));
+        }
+    }
+
+    private JwtKeyRing loadKeyRing(String activeKey, long refreshSeconds) {
+        return new JwtKeyRing(keystorePath.toString(), PASSWORD, activeKey, refreshSeconds);
+    }
+
+    private static Profile createProfile() {
+        Profile profile = new Profile();
+        profile.setId(7L);
+        profile.setAuthLevel(5);
+        return profile;
+    }
+
+    @Test
+    void tokenIsVerifiedByAnotherServerSharingTheKeystore() {
+        JwtUtil issuer = new JwtUtil(loadKeyRing("", 60));
+        JwtUtil verifier = new JwtUtil(loadKeyRing("", 60));
+        String token = issuer.generateToken(createProfile());
+        assertEquals(Long.valueOf(7L), verifier.extractId(token));
+    }
+
+    @Test
+    void tokenFromAnotherKeyIsRejected() {
+        JwtUtil verifier = new JwtUtil(loadKeyRing("", 60));
+        String token = new JwtUtil().generateToken(createProfile());
+        assertNull(verifier.getPrincipal(token));
+    }
+
+    @Test
+    void activeKeySignsNewTokens() throws Exception {
+        addKey("2020-06");
+        assertEquals("2020-06", loadKeyRing("2020-06", 60).getSigningKey().getKey());
+        assertEquals("2020-05", loadKeyRing("2020-05", 60).getSigningKey().getKey());
+    }
+
+    @Test
+    void missingActiveKeyFailsToLoad() {
+        assertThrows(IllegalStateException.class, () -> loadKeyRing("2019-01", 60));
+    }
+
+    @Test
+    void oldKeyStillVerifiesAfterRotation() throws Exception {
+        JwtUtil oldServer = new JwtUtil(loadKeyRing("2020-05", 60));
+        String oldToken = oldServer.generateToken(createProfile());
+        addKey("2020-06");
+        JwtUtil newServer = new JwtUtil(loadKeyRing("2020-06", 60));
+        String newToken = newServer.generateToken(createProfile());
+
+        assertNotNull(newServer.getPrincipal(oldToken));
+        assertNotNull(newServer.getPrincipal(newToken));
+    }
+
+    /**
+     * A server that has not reloaded the keystore yet should still accept tokens signed with a key added since
+     */
+    @Test
+    void unknownKeyReloadsKeystore() throws Exception {
+        JwtKeyRing staleKeyRing = loadKeyRing("", 3600);
+        JwtUtil staleServer = new JwtUtil(staleKeyRing);
+        addKey("2020-06");
+        String token = new JwtUtil(loadKeyRing("2020-06", 3600)).generateToken(createProfile());
+
+        assertNotNull(staleServer.getPrincipal(token));
+        assertTrue(staleKeyRing.getKeyIds().contains("2020-06"));
+    }
+
+    @Test
+    void removedKeyNoLongerVerifies() throws Exception {
+        addKey("2020-06");
+        JwtUtil server = new JwtUtil(loadKeyRing("2020-06", 0));
+        String oldToken = new JwtUtil(loadKeyRing("2020-05", 0)).generateToken(createProfile());
+        assertNotNull(server.getPrincipal(oldToken));
+
+        removeKey("2020-05");
+        assertNull(server.getPrincipal(oldToken));
+    }
+}
@@ -1,6 +1,7 @@
 package com.springvuegradle.utilities;
 
 import com.springvuegradle.model.Profile;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,6 +60,46 @@ public class JwtUtilTest {
         assertEquals(authLevel, jwtUtil.extractPermission(token));
     }
 
+    @Test
+    void getPrincipalFromToken() {
+        Profile profile = createNormalProfileMaurice();
+        String token = jwtUtil.generateToken(profile);
+        JwtPrincipal principal = jwtUtil.getPrincipal(token);
+        assertEquals(profile.getId(), principal.getId());
+        assertEquals(profile.getAuthLevel(), principal.getAuthLevel());
+        assertFalse(principal.isExpired());
+    }
+
+    @Test
+    void getPrincipalFromInvalidTokenIsNull() {
+        assertNull(jwtUtil.getPrincipal("thisisnotavalidjwt"));
+        assertNull(jwtUtil.getPrincipal(null));
+    }
+
+    /**
+     * A notification stream token should only open the notification stream, not be accepted as a login token
+     */
+    @Test
+    void streamTokenOnlyValidForItsScope() {
+        JwtPrincipal user = jwtUtil.getPrincipal(jwtUtil.generateToken(createNormalProfileMaurice()));
+        String streamToken = jwtUtil.generateStreamToken(user);
+        JwtPrincipal principal = jwtUtil.getPrincipal(streamToken, JwtUtil.NOTIFICATION_STREAM_SCOPE);
+        assertEquals(user.getId(), principal.getId());
+        assertEquals(JwtUtil.NOTIFICATION_STREAM_SCOPE, principal.getScope());
+        assertNull(jwtUtil.getPrincipal(streamToken));
+        assertFalse(jwtUtil.validateToken(streamToken));
+        assertThrows(JwtException.class, () -> jwtUtil.extractId(streamToken));
+    }
+
+    /**
+     * A token used again should be read from the verified tokens instead of being parsed again
+     */
+    @Test
+    void verifiedTokenIsRemembered() {
+        String token = jwtUtil.generateToken(createNormalProfileMaurice());
+        assertSame(jwtUtil.getPrincipal(token), jwtUtil.getPrincipal(token));
+    }
+
     /**
      * @return a valid profile object.
      */
@@ -0,0 +1,84 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.Activity;
+import com.springvuegradle.model.ActivityType;
+import com.springvuegradle.repositories.ActivityRepository;
+import com.springvuegradle.repositories.ActivityTypeRepository;
+import com.springvuegradle.service.StartupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the location cell backfill alongside the activity type mask rebuild, as they are on startup. The tests run
+ * outside of a test transaction so the startup threads can see the seeded activities, and clean up after themselves.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LocationIndexBackfillTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ActivityRepository activityRepository;
+    @Autowired
+    ActivityTypeRepository activityTypeRepository;
+
+    private final List<Activity> activities = new ArrayList<>();
+    private ActivityType kayaking;
+
+    @AfterEach
+    void tearDown() {
+        activityRepository.deleteAll(activities);
+        if (kayaking != null) {
+            activityTypeRepository.delete(kayaking);
+        }
+    }
+
+    @Test
+    void backfillAlongsideMaskRebuildKeepsBothTest() {
+        kayaking = activityTypeRepository.save(new ActivityType("Backfill kayaking"));
+        for (int i = 0; i < 50; i++) {
+            Activity activity = ActivityTestUtils.createActivity("Backfill " + i, -43.5 + i * 0.1, 172.6);
+            activity.addActivityType(kayaking);
+            activities.add(activityRepository.save(activity));
+        }
+        // as they were saved before the location index and the activity type masks existed
+        for (Activity activity : activities) {
+            jdbcTemplate.update("UPDATE activity SET location_cell = NULL, activity_type_mask = 0 WHERE id = ?",
+                    activity.getId());
+        }
+
+        StartupService startupService = new StartupService(false, 2);
+        try {
+            startupService.submit("activity type masks", true, () -> ActivityTypeMaskHelper.rebuildMasks(jdbcTemplate));
+            startupService.submit("activity location index", true, () ->
+                    LocationIndexHelper.updateActivityLocationCells(jdbcTemplate));
+            startupService.awaitAll();
+        } finally {
+            startupService.stop();
+        }
+
+        long mask = 1L << activityTypeRepository.findById(kayaking.getId()).get().getMaskBit();
+        for (Activity activity : activities) {
+            Map<String, Object> row = jdbcTemplate.queryForMap("SELECT location_cell, activity_type_mask FROM activity " +
+                    "WHERE id = ?", activity.getId());
+            assertEquals(LocationIndexHelper.cellOf(activity.getLatitude(), activity.getLongitude()),
+                    ((Number) row.get("location_cell")).longValue());
+            assertEquals(mask, ((Number) row.get("activity_type_mask")).longValue());
+        }
+    }
+}
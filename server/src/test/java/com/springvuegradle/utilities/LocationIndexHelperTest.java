@@ -0,0 +1,64 @@
+package com.springvuegradle.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationIndexHelperTest {
+
+    private boolean rangesContain(List<LocationIndexHelper.CellRange> ranges, long cell) {
+        for (LocationIndexHelper.CellRange range : ranges) {
+            if (range.getFrom() <= cell && cell <= range.getTo()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void cellOfMissingCoordinateIsNullTest() {
+        assertNull(LocationIndexHelper.cellOf(null, 172.6));
+        assertNull(LocationIndexHelper.cellOf(-43.5, null));
+    }
+
+    @Test
+    void cellOfOutOfRangeCoordinatesIsClampedTest() {
+        long maxCell = (long) LocationIndexHelper.ROWS * LocationIndexHelper.COLUMNS - 1;
+        assertEquals(maxCell, LocationIndexHelper.cellOf(500.0, 1000.0));
+        assertEquals(0L, LocationIndexHelper.cellOf(-500.0, -1000.0));
+    }
+
+    @Test
+    void cellRangesContainCenterAndNearbyPointTest() {
+        LocationIndexHelper.BoundingBox box = LocationIndexHelper.boundingBox(-43.5, 172.6, 100000);
+        List<LocationIndexHelper.CellRange> ranges = LocationIndexHelper.cellRanges(box);
+        assertTrue(rangesContain(ranges, LocationIndexHelper.cellOf(-43.5, 172.6)));
+        assertTrue(rangesContain(ranges, LocationIndexHelper.cellOf(-43.4, 173.5)));
+        assertFalse(rangesContain(ranges, LocationIndexHelper.cellOf(-41.3, 174.8)));
+    }
+
+    @Test
+    void cellRangesWrapAroundAntimeridianTest() {
+        LocationIndexHelper.BoundingBox box = LocationIndexHelper.boundingBox(-17.0, 179.9, 50000);
+        assertTrue(box.crossesAntimeridian());
+        List<LocationIndexHelper.CellRange> ranges = LocationIndexHelper.cellRanges(box);
+        assertTrue(rangesContain(ranges, LocationIndexHelper.cellOf(-17.0, 179.9)));
+        assertTrue(rangesContain(ranges, LocationIndexHelper.cellOf(-17.0, -179.9)));
+    }
+
+    @Test
+    void cellRangesForWholeGlobeIsNullTest() {
+        LocationIndexHelper.BoundingBox box = LocationIndexHelper.boundingBox(-41.3, 174.8, 100000000);
+        assertTrue(box.coversWholeGlobe());
+        assertNull(LocationIndexHelper.cellRanges(box));
+    }
+
+    @Test
+    void boundingBoxNearPoleCoversAllLongitudesTest() {
+        LocationIndexHelper.BoundingBox box = LocationIndexHelper.boundingBox(-89.0, 0.0, 200000);
+        assertTrue(box.coversAllLongitudes());
+        assertEquals(-90.0, box.getMinLatitude());
+    }
+}
@@ -0,0 +1,60 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.Notification;
+import com.springvuegradle.model.Profile;
+import com.springvuegradle.repositories.NotificationRepository;
+import com.springvuegradle.repositories.ProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+class NotificationInboxHelperTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ProfileRepository profileRepository;
+    @Autowired
+    NotificationRepository notificationRepository;
+
+    @BeforeEach
+    void setUp() {
+        // the table the recipients were kept in before the inbox, with its columns the wrong way round
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS profile_notification (profile_id BIGINT NOT NULL, " +
+                "notification_id BIGINT NOT NULL)");
+    }
+
+    @Test
+    void migrateCopiesRecipientsAsReadNotificationsOnceTest() {
+        Profile profile = profileRepository.save(ProfileTestUtils.createProfileNoPassportCountry());
+        Notification notification = notificationRepository.save(ProfileTestUtils.createNormalNotificationWithTypeBeing0());
+        notificationRepository.flush();
+        jdbcTemplate.update("INSERT INTO profile_notification (profile_id, notification_id) VALUES (?, ?)",
+                notification.getId(), profile.getId());
+        jdbcTemplate.update("INSERT INTO profile_notification (profile_id, notification_id) VALUES (?, ?)",
+                notification.getId(), -1L);
+
+        assertEquals(1, NotificationInboxHelper.migrateProfileNotifications(jdbcTemplate, transactionManager));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT created_at, is_read FROM notification_inbox " +
+                "WHERE recipient_id = ? AND notification_id = ?", profile.getId(), notification.getId());
+        assertEquals(Boolean.TRUE, row.get("is_read"));
+        assertEquals(notification.getTimeStamp().toInstant(), ((Timestamp) row.get("created_at")).toInstant());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM profile_notification", Integer.class));
+        assertEquals(0, NotificationInboxHelper.migrateProfileNotifications(jdbcTemplate, transactionManager));
+    }
+}
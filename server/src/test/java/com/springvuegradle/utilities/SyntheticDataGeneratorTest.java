@@ -0,0 +1,110 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.Activity;
+import com.springvuegradle.model.ActivityMembership;
+import com.springvuegradle.model.Profile;
+import com.springvuegradle.repositories.ActivityMembershipRepository;
+import com.springvuegradle.repositories.ActivityRepository;
+import com.springvuegradle.repositories.EmailRepository;
+import com.springvuegradle.repositories.ProfileRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    SyntheticDataGenerator generator;
+
+    @Autowired
+    ProfileRepository profileRepository;
+
+    @Autowired
+    ActivityRepository activityRepository;
+
+    @Autowired
+    ActivityMembershipRepository membershipRepository;
+
+    @Autowired
+    EmailRepository emailRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private SyntheticDataGenerator.Options smallOptions() {
+        SyntheticDataGenerator.Options options = new SyntheticDataGenerator.Options();
+        options.setProfiles(20);
+        options.setActivities(30);
+        options.setMembersPerActivity(3);
+        options.setNotificationsPerActivity(2);
+        options.setBatchSize(7);
+        options.setEmailPrefix("generatortest");
+        return options;
+    }
+
+    @Test
+    void generateCreatesRequestedProfilesAndActivitiesTest() {
+        SyntheticDataGenerator.Result result = generator.generate(smallOptions());
+
+        assertEquals(20, result.getProfileIds().length);
+        assertEquals(30, result.getActivityIds().length);
+        Profile profile = profileRepository.findById(result.getProfileIds()[4]).orElseThrow();
+        assertEquals("generatortest4@example.com", profile.retrievePrimaryEmail().getAddress());
+        assertEquals(1, emailRepository.findAllByAddress("generatortest4@example.com").size());
+        for (long activityId : result.getActivityIds()) {
+            Activity activity = activityRepository.findById(activityId).orElseThrow();
+            assertNotNull(activity.getLatitude());
+            assertEquals(2, activity.getActivityTypes().size());
+        }
+    }
+
+    @Test
+    void generateGivesEveryActivityOneCreatorAndDistinctMembersTest() {
+        SyntheticDataGenerator.Result result = generator.generate(smallOptions());
+
+        for (long activityId : result.getActivityIds()) {
+            List<ActivityMembership> memberships = membershipRepository.findActivityMembershipsByActivity_Id(activityId);
+            assertEquals(4, memberships.size());
+            assertEquals(1, memberships.stream().filter(membership -> membership.getRole() == ActivityMembership.Role.CREATOR).count());
+        }
+    }
+
+    @Test
+    void generateSendsNotificationsToEveryMemberTest() {
+        SyntheticDataGenerator.Result result = generator.generate(smallOptions());
+
+        Long recipients = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_inbox", Long.class);
+        assertEquals(result.getActivityIds().length * 2L * 4, recipients);
+    }
+
+    @Test
+    void generateWithSameSeedIsRepeatableTest() {
+        SyntheticDataGenerator.Options options = smallOptions();
+        SyntheticDataGenerator.Result first = generator.generate(options);
+        options.setEmailPrefix("generatorrepeat");
+        SyntheticDataGenerator.Result second = generator.generate(options);
+
+        for (int i = 0; i < first.getActivityIds().length; i++) {
+            Activity firstActivity = activityRepository.findById(first.getActivityIds()[i]).orElseThrow();
+            Activity secondActivity = activityRepository.findById(second.getActivityIds()[i]).orElseThrow();
+            assertEquals(firstActivity.getLatitude(), secondActivity.getLatitude());
+            assertEquals(firstActivity.getLongitude(), secondActivity.getLongitude());
+        }
+    }
+
+    @Test
+    void generateWithoutProfilesThrowsExceptionTest() {
+        SyntheticDataGenerator.Options options = smallOptions();
+        options.setProfiles(0);
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(options));
+    }
+}
@@ -0,0 +1,92 @@
+package com.springvuegradle.utilities;
+
+import com.springvuegradle.model.PassportCountry;
+import com.springvuegradle.model.Profile;
+import com.springvuegradle.repositories.PassportCountryRepository;
+import com.springvuegradle.repositories.ProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+class ValidationHelperTest {
+
+    @Autowired
+    PassportCountryRepository passportCountryRepository;
+    @Autowired
+    ProfileRepository profileRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        profileRepository.deleteAll();
+        passportCountryRepository.deleteAll();
+    }
+
+    @Test
+    void bundledCountriesHaveUniqueCodesTest() throws IOException {
+        ValidationHelper.CountryDataset dataset = ValidationHelper.getBundledCountries();
+        assertNotNull(dataset.getVersion());
+        Set<String> codes = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (PassportCountry country : dataset.getCountries()) {
+            assertTrue(country.getNumericCode() == null || codes.add(country.getNumericCode()));
+            names.add(country.getCountryName());
+        }
+        assertTrue(names.contains("New Zealand"));
+        assertTrue(names.contains("Republic of Kosovo"));
+    }
+
+    @Test
+    void updateAddsBundledCountriesOnceTest() throws IOException {
+        int size = ValidationHelper.getBundledCountries().getCountries().size();
+        ValidationHelper.updatePassportCountryRepository(passportCountryRepository, transactionManager);
+        assertEquals(size, passportCountryRepository.count());
+        assertEquals("900", passportCountryRepository.findByCountryName("Republic of Kosovo").get(0).getNumericCode());
+
+        long newZealandId = passportCountryRepository.findByNumericCode("554").get(0).getId();
+        ValidationHelper.updatePassportCountryRepository(passportCountryRepository, transactionManager);
+        assertEquals(size, passportCountryRepository.count());
+        assertEquals(newZealandId, passportCountryRepository.findByNumericCode("554").get(0).getId());
+    }
+
+    @Test
+    void renamedCountryIsUpdatedInPlaceTest() {
+        long id = passportCountryRepository.save(new PassportCountry("Swaziland", "748")).getId();
+        int[] changes = ValidationHelper.updatePassportCountryRepository(passportCountryRepository,
+                List.of(new PassportCountry("Eswatini", "748")));
+        assertArrayEquals(new int[]{0, 1, 0}, changes);
+        PassportCountry country = passportCountryRepository.findByNumericCode("748").get(0);
+        assertEquals(id, country.getId());
+        assertEquals("Eswatini", country.getCountryName());
+    }
+
+    @Test
+    void removedCountryIsPrunedFromProfilesTest() {
+        PassportCountry kept = passportCountryRepository.save(new PassportCountry("New Zealand", "554"));
+        PassportCountry removed = passportCountryRepository.save(new PassportCountry("Czechoslovakia", "200"));
+        Profile profile = ProfileTestUtils.createProfileNoPassportCountry();
+        profile.addPassportCountry(kept);
+        profile.addPassportCountry(removed);
+        long profileId = profileRepository.save(profile).getId();
+
+        int[] changes = ValidationHelper.updatePassportCountryRepository(passportCountryRepository,
+                List.of(new PassportCountry("New Zealand", "554")));
+        assertArrayEquals(new int[]{0, 0, 1}, changes);
+        assertTrue(passportCountryRepository.findByNumericCode("200").isEmpty());
+        assertEquals(List.of("New Zealand"), profileRepository.findById(profileId).get().getPassports());
+    }
+}
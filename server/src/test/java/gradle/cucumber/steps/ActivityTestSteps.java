@@ -17,6 +17,7 @@ import com.springvuegradle.model.Profile;
 import com.springvuegradle.repositories.*;
 import com.springvuegradle.service.ActivityService;
 import com.springvuegradle.service.ProfileService;
+import com.springvuegradle.utilities.ActivityRoleCountHelper;
 import com.springvuegradle.utilities.JwtUtil;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
@@ -28,6 +29,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
@@ -73,6 +75,9 @@ public class ActivityTestSteps {
     @Autowired
     NotificationRepository notificationRepository;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     private Profile profile;
 
     private String location;
@@ -248,6 +253,8 @@ public class ActivityTestSteps {
         ActivityMembership.Role role = ActivityMembership.Role.valueOf(roleString);
         ActivityMembership membership = new ActivityMembership(activity, profile, role);
         membershipRepository.save(membership);
+        membershipRepository.flush();
+        ActivityRoleCountHelper.rebuildRoleCounts(jdbcTemplate);
     }
 
     @When("I choose to change my role to {string}")
@@ -359,6 +366,8 @@ public class ActivityTestSteps {
                 activityMemberProfileResponseList.add(new ActivityMemberProfileResponse(newProfile.getId(), newProfile.getFirstname(), newProfile.getLastname(), newProfile.getPrimary_email(), roles.get(i)));
             }
         }
+        membershipRepository.flush();
+        ActivityRoleCountHelper.rebuildRoleCounts(jdbcTemplate);
         expectedMemberProfileResponse = new ResponseEntity<>(activityMemberProfileResponseList, HttpStatus.OK);
     }
 